@@ -81,8 +81,11 @@ public final class Moxy {
 
     private static final Logger LOG = Logger.getLogger(Moxy.class.getName());
 
-    private static MoxyEngine moxyEngine;
-    private static MoxyClassMockEngine moxyClassMockEngine;
+    private static volatile MoxyEngine moxyEngine;
+    private static volatile MoxyClassMockEngine moxyClassMockEngine;
+
+    // Engine bound to the current thread (if any), overrides moxyEngine.
+    private static final ThreadLocal<MoxyEngine> boundMoxyEngine = new ThreadLocal<>();
 
     private Moxy() {
         throw new UnsupportedOperationException(
@@ -132,19 +135,93 @@ public final class Moxy {
     }
 
     private static MoxyEngine ensureMoxyEngine() {
-        if (moxyEngine == null) {
-            moxyEngine = instantiateDefaultMoxyEngine();
+        final MoxyEngine bound = boundMoxyEngine.get();
+        if (bound != null) {
+            return bound;
+        }
+
+        MoxyEngine engine = moxyEngine;
+        if (engine == null) {
+            synchronized (Moxy.class) {
+                if ((engine = moxyEngine) == null) {
+                    moxyEngine = engine = instantiateDefaultMoxyEngine();
+                }
+            }
         }
 
-        return moxyEngine;
+        return engine;
     }
 
     private static MoxyClassMockEngine ensureMoxyClassMockEngine() {
-        if (moxyClassMockEngine == null) {
-            moxyClassMockEngine = instantiateDefaultMoxyClassMockEngine();
+        MoxyClassMockEngine engine = moxyClassMockEngine;
+        if (engine == null) {
+            synchronized (Moxy.class) {
+                if ((engine = moxyClassMockEngine) == null) {
+                    moxyClassMockEngine = engine = instantiateDefaultMoxyClassMockEngine();
+                }
+            }
         }
 
-        return moxyClassMockEngine;
+        return engine;
+    }
+
+    /**
+     * <p>Create a new, independent instance of the default {@link MoxyEngine}
+     * (as configured by the <code>com.roscopeco.moxy.engine.standard</code>
+     * system property).</p>
+     *
+     * <p>The new engine is not used by this class unless it is set with
+     * {@link #setMoxyEngine(MoxyEngine)} or bound with
+     * {@link #bindMoxyEngine(MoxyEngine)}.</p>
+     *
+     * @return A new {@link MoxyEngine}.
+     * @see #bindMoxyEngine(MoxyEngine)
+     * @since 1.0
+     */
+    public static MoxyEngine createMoxyEngine() {
+        return instantiateDefaultMoxyEngine();
+    }
+
+    /**
+     * <p>Bind the given {@link MoxyEngine} to the current thread. Until
+     * {@link #unbindMoxyEngine()} is called, all methods in this class
+     * (and in {@link Matchers}) that use the default engine will use
+     * the bound engine instead when called from this thread.</p>
+     *
+     * <p>This allows tests running in parallel to each use an isolated
+     * engine, so they don't see (or reset) each other's invocations.
+     * Mocks always record to the engine that created them, so calls
+     * made to them from other threads are still seen by the bound engine.</p>
+     *
+     * <p>Most users will not call this directly, but will use the JUnit 5
+     * extension in the <code>moxy-junit5</code> module instead.</p>
+     *
+     * <p><strong>Note:</strong> Class mocks are always global, and are
+     * not affected by engine binding.</p>
+     *
+     * @param engine The {@link MoxyEngine} to bind.
+     * @see #unbindMoxyEngine()
+     * @see #createMoxyEngine()
+     * @since 1.0
+     */
+    public static void bindMoxyEngine(final MoxyEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Cannot bind null engine");
+        }
+
+        boundMoxyEngine.set(engine);
+    }
+
+    /**
+     * Remove any {@link MoxyEngine} bound to the current thread
+     * with {@link #bindMoxyEngine(MoxyEngine)}. Subsequent calls
+     * from this thread will use the global engine.
+     *
+     * @see #bindMoxyEngine(MoxyEngine)
+     * @since 1.0
+     */
+    public static void unbindMoxyEngine() {
+        boundMoxyEngine.remove();
     }
 
     /**
@@ -170,6 +247,8 @@ public final class Moxy {
     /**
      * Get the current {@link MoxyEngine} in use by this class, or
      * create and return a default engine if none has been set.
+     * If an engine is bound to the current thread (see
+     * {@link #bindMoxyEngine(MoxyEngine)}), that engine is returned.
      *
      * @return The {@link MoxyEngine} currently in use.
      * @since 1.0
@@ -1233,4 +1312,90 @@ public final class Moxy {
                                                 final InvocationRunnable invocation) {
         return engine.assertMocks(invocation);
     }
+
+    /**
+     * <p>Start a query over the invocations recorded by the current
+     * default {@link MoxyEngine}.</p>
+     *
+     * <p>Example usage:</p>
+     *
+     * <pre><code>
+     * long saves = queryInvocations()
+     *     .matching(() -&gt; repo.save(any()))
+     *     .count();
+     * </code></pre>
+     *
+     * <p>See {@link MoxyInvocationQuery} for details on the filtering
+     * and evaluation methods available.</p>
+     *
+     * @return A new {@link MoxyInvocationQuery}.
+     * @see #queryInvocations(MoxyEngine)
+     * @since 1.0
+     */
+    public static MoxyInvocationQuery queryInvocations() {
+        return queryInvocations(ensureMoxyEngine());
+    }
+
+    /**
+     * <p>Start a query over the invocations recorded by the supplied
+     * {@link MoxyEngine}.</p>
+     *
+     * <p>See {@link MoxyInvocationQuery} for details on the filtering
+     * and evaluation methods available.</p>
+     *
+     * @param engine The {@link MoxyEngine} to use.
+     * @return A new {@link MoxyInvocationQuery}.
+     * @see #queryInvocations()
+     * @since 1.0
+     */
+    public static MoxyInvocationQuery queryInvocations(final MoxyEngine engine) {
+        return engine.queryInvocations();
+    }
+
+    /**
+     * <p>Start table-driven stubbing of the mock method invoked by the
+     * supplied lambda, using the currently-set (or default) {@link MoxyEngine}.</p>
+     *
+     * <p>This stubs the method with many argument/result combinations at
+     * once, without the overhead of a separate <code>when</code> for each.
+     * The invocation in the lambda is used only to determine which method
+     * is to be stubbed - its arguments are ignored.</p>
+     *
+     * <p>Example usage:</p>
+     *
+     * <pre><code>
+     * Moxy.stubTable(() -&gt; mock.lookup(null))
+     *     .rows(Map.of("one", 1, "two", 2));
+     * </code></pre>
+     *
+     * <p>See {@link MoxyStubTable} for details on the methods available.</p>
+     *
+     * @param invocation A lambda that will invoke the method to be stubbed.
+     * @param <T>        The type being stubbed (return type of the mock method).
+     * @return A {@link MoxyStubTable} that will stub the given method.
+     * @see #stubTable(MoxyEngine, InvocationSupplier)
+     * @see #when(InvocationSupplier)
+     * @since 1.0
+     */
+    public static <T> MoxyStubTable<T> stubTable(final InvocationSupplier<T> invocation) {
+        return stubTable(ensureMoxyEngine(), invocation);
+    }
+
+    /**
+     * <p>Start table-driven stubbing of the mock method invoked by the
+     * supplied lambda, using the specified {@link MoxyEngine}.</p>
+     *
+     * <p>See {@link MoxyStubTable} for details on the methods available.</p>
+     *
+     * @param engine     The {@link MoxyEngine} to use.
+     * @param invocation A lambda that will invoke the method to be stubbed.
+     * @param <T>        The type being stubbed (return type of the mock method).
+     * @return A {@link MoxyStubTable} that will stub the given method.
+     * @see #stubTable(InvocationSupplier)
+     * @since 1.0
+     */
+    public static <T> MoxyStubTable<T> stubTable(final MoxyEngine engine,
+                                                 final InvocationSupplier<T> invocation) {
+        return engine.stubTable(invocation);
+    }
 }
@@ -0,0 +1,49 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+/**
+ * <p>An action to run when a mock method taking 2 arguments is called,
+ * receiving its actual arguments. Used with {@link MoxyStubber#thenDoWith(Action2)}
+ * and {@link MoxyVoidStubber#thenDoWith(Action2)}.</p>
+ *
+ * <p>Unlike the <code>Consumer</code> passed to <code>thenDo</code>, the
+ * arguments are passed individually, with their declared types.</p>
+ *
+ * @param <A> The type of the first argument.
+ * @param <B> The type of the second argument.
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface Action2<A, B> {
+    /**
+     * Run the action.
+     *
+     * @param first The first argument.
+     * @param second The second argument.
+     * @since 1.0
+     */
+    void accept(A first, B second);
+}
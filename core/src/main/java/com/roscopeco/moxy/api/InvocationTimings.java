@@ -0,0 +1,83 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.time.Duration;
+
+/**
+ * <p>A read-only snapshot of the timings of calls to the real
+ * implementation of a spied (or delegating) mock method, as recorded
+ * by a {@link MoxyEngine} with invocation timing enabled.</p>
+ *
+ * <p>Timings are kept per mock method (regardless of arguments) in
+ * a histogram, so percentiles are approximate - reported values
+ * are within about 3% of the actual latency.</p>
+ *
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @see MoxyEngine#setInvocationTimingEnabled(boolean)
+ * @see MoxyEngine#getInvocationTimings(InvocationRunnable)
+ * @since 1.0
+ */
+public interface InvocationTimings {
+    /**
+     * @return The number of timed calls.
+     * @since 1.0
+     */
+    long getCount();
+
+    /**
+     * @return The shortest call latency, or {@link Duration#ZERO} if there were no calls.
+     * @since 1.0
+     */
+    Duration getMin();
+
+    /**
+     * @return The longest call latency, or {@link Duration#ZERO} if there were no calls.
+     * @since 1.0
+     */
+    Duration getMax();
+
+    /**
+     * @return The mean call latency, or {@link Duration#ZERO} if there were no calls.
+     * @since 1.0
+     */
+    Duration getMean();
+
+    /**
+     * Get the latency at the given percentile, e.g. <code>99.0</code>
+     * for the latency that 99% of calls completed within.
+     *
+     * @param percentile The percentile, between 0 and 100 (inclusive).
+     * @return The latency at the percentile, or {@link Duration#ZERO} if there were no calls.
+     * @throws IllegalArgumentException if the percentile is out of range.
+     * @since 1.0
+     */
+    Duration getPercentile(double percentile);
+
+    /**
+     * @return The greatest number of calls started within any one second.
+     * @since 1.0
+     */
+    long getPeakCallsPerSecond();
+}
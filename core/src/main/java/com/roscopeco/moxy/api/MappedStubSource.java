@@ -0,0 +1,272 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * <p>A {@link MoxyStubSource} that looks up results in a file of rows
+ * sorted by their encoded arguments, which is memory-mapped the first time
+ * it is needed. Looking up a call is a binary search of the file, so
+ * a large dataset costs page-cache rather than heap.</p>
+ *
+ * <p>Files are written with {@link #write(Path, Stream, MoxyStubCodec)}, and
+ * must be read with the same (or a compatible) {@link MoxyStubCodec}. They
+ * are limited to 2GB.</p>
+ *
+ * <p>A row whose value decodes to <code>null</code> is looked up as
+ * {@link Optional#empty()}, exactly as though the row were missing, so the
+ * call gets the mock's default behaviour either way. Use a codec that
+ * decodes to a non-null placeholder if you need to tell the two apart.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre><code>
+ * MappedStubSource.write(path, referenceData, MoxyStubCodec.utf8());
+ *
+ * // ... later ...
+ *
+ * Moxy.stubTable(() -&gt; mock.lookup(null))
+ *     .source(new MappedStubSource&lt;&gt;(path, MoxyStubCodec.utf8()));
+ * </code></pre>
+ *
+ * @param <T> The type this source provides (the return type of the mocked method).
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @since 1.0
+ */
+public class MappedStubSource<T> implements MoxyStubSource<T> {
+    private static final int MAGIC = 0x4d535431;     // "MST1"
+    private static final int HEADER_SIZE = 8;
+
+    private final Path path;
+    private final MoxyStubCodec<T> codec;
+
+    private volatile ByteBuffer mapped;
+    private int count;
+
+    /**
+     * Create a source that will read the given file. The file is not
+     * opened until the first lookup.
+     *
+     * @param path The file, as written by {@link #write(Path, Stream, MoxyStubCodec)}.
+     * @param codec The {@link MoxyStubCodec} the file was written with.
+     */
+    public MappedStubSource(final Path path, final MoxyStubCodec<T> codec) {
+        if (path == null) {
+            throw new IllegalArgumentException("Cannot create stub source with null path");
+        }
+
+        if (codec == null) {
+            throw new IllegalArgumentException("Cannot create stub source with null codec");
+        }
+
+        this.path = path;
+        this.codec = codec;
+    }
+
+    /**
+     * Write a file of rows for a single-argument method, where each
+     * key in the map is the argument for its value.
+     *
+     * @param path The file to write (replacing any existing file).
+     * @param rows The rows, keyed by argument.
+     * @param codec The {@link MoxyStubCodec} to encode the rows with.
+     * @param <T> The type of the results.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if any two rows encode to the same arguments.
+     */
+    public static <T> void write(final Path path,
+                                 final Map<?, ? extends T> rows,
+                                 final MoxyStubCodec<T> codec) throws IOException {
+        if (rows == null) {
+            throw new IllegalArgumentException("Cannot write stub source with null rows");
+        }
+
+        write(path, rows.entrySet().stream()
+                .map(entry -> Map.entry(Collections.singletonList(entry.getKey()), entry.getValue())), codec);
+    }
+
+    /**
+     * Write a file of rows, where each entry's key is the arguments for its value.
+     *
+     * @param path The file to write (replacing any existing file).
+     * @param rows The rows, as entries of arguments to value.
+     * @param codec The {@link MoxyStubCodec} to encode the rows with.
+     * @param <T> The type of the results.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if any two rows encode to the same arguments,
+     *                                  or the file would be larger than 2GB.
+     */
+    public static <T> void write(final Path path,
+                                 final Stream<? extends Map.Entry<? extends List<?>, ? extends T>> rows,
+                                 final MoxyStubCodec<T> codec) throws IOException {
+        if (path == null || rows == null || codec == null) {
+            throw new IllegalArgumentException("Cannot write stub source with null path, rows or codec");
+        }
+
+        final List<byte[][]> encoded = new ArrayList<>();
+        rows.forEach(row -> encoded.add(new byte[][]{
+                codec.encodeArgs(row.getKey()),
+                codec.encodeValue(row.getValue())}));
+
+        encoded.sort((a, b) -> Arrays.compareUnsigned(a[0], b[0]));
+
+        long offset = HEADER_SIZE + 4L * encoded.size();
+        final int[] offsets = new int[encoded.size()];
+
+        for (int i = 0; i < offsets.length; i++) {
+            final byte[][] row = encoded.get(i);
+
+            if (i > 0 && Arrays.equals(row[0], encoded.get(i - 1)[0])) {
+                throw new IllegalArgumentException("Cannot write stub source with duplicate arguments");
+            }
+
+            offsets[i] = (int) offset;
+            offset += 8L + row[0].length + row[1].length;
+
+            // Check where the row ends, so a file that can't be mapped is never written.
+            if (offset > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Cannot write stub source larger than 2GB");
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(offsets.length);
+
+            for (final int rowOffset : offsets) {
+                out.writeInt(rowOffset);
+            }
+
+            for (final byte[][] row : encoded) {
+                out.writeInt(row[0].length);
+                out.write(row[0]);
+                out.writeInt(row[1].length);
+                out.write(row[1]);
+            }
+        }
+    }
+
+    /*
+     * Absolute gets don't modify the buffer, so lookups share it without
+     * locking once it's mapped.
+     */
+    private ByteBuffer ensureMapped() {
+        ByteBuffer buffer = this.mapped;
+
+        if (buffer == null) {
+            synchronized (this) {
+                buffer = this.mapped;
+
+                if (buffer == null) {
+                    buffer = this.map();
+                    this.count = buffer.getInt(4);
+                    this.mapped = buffer;
+                }
+            }
+        }
+
+        return buffer;
+    }
+
+    private ByteBuffer map() {
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            if (size > Integer.MAX_VALUE) {
+                throw new MoxyException("Stub source " + this.path + " is larger than 2GB");
+            }
+
+            final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new MoxyException("File " + this.path + " is not a stub source");
+            }
+
+            return buffer;
+        } catch (final IOException e) {
+            throw new MoxyException("Unable to map stub source " + this.path, e);
+        }
+    }
+
+    private static int compareKey(final ByteBuffer buffer, final int keyOffset, final byte[] key) {
+        final int keyLength = buffer.getInt(keyOffset);
+        final int length = Math.min(keyLength, key.length);
+
+        for (int i = 0; i < length; i++) {
+            final int result = Byte.compareUnsigned(buffer.get(keyOffset + 4 + i), key[i]);
+
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return Integer.compare(keyLength, key.length);
+    }
+
+    @Override
+    public Optional<T> lookup(final List<?> args) {
+        final ByteBuffer buffer = this.ensureMapped();
+        final byte[] key = this.codec.encodeArgs(args);
+
+        int low = 0;
+        int high = this.count - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int rowOffset = buffer.getInt(HEADER_SIZE + 4 * mid);
+            final int result = compareKey(buffer, rowOffset, key);
+
+            if (result < 0) {
+                low = mid + 1;
+            } else if (result > 0) {
+                high = mid - 1;
+            } else {
+                final int valueOffset = rowOffset + 4 + key.length;
+                final int valueStart = valueOffset + 4;
+
+                final ByteBuffer value = buffer.duplicate();
+                value.limit(valueStart + buffer.getInt(valueOffset)).position(valueStart);
+
+                return Optional.ofNullable(this.codec.decodeValue(value.slice()));
+            }
+        }
+
+        return Optional.empty();
+    }
+}
@@ -29,6 +29,7 @@ import java.io.PrintStream;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.Flow;
 
 /**
  * <p>A MoxyEngine is the class that is responsible for generating mocks
@@ -75,8 +76,14 @@ public interface MoxyEngine {
      * mock hasn't been stubbed with another return type or other behaviour.</p>
      *
      * <p>By default, the framework will provide zero, null or false returns for
-     * all types except <code>java.util.Optional</code>. For the latter, the
-     * default return is <code>Optional.empty()</code>.</p>
+     * all types except <code>java.util.Optional</code> (and its primitive
+     * variants), <code>Collection</code>, <code>List</code>, <code>Set</code>,
+     * <code>Map</code> and <code>Stream</code>. For these, the default return
+     * is the appropriate empty value - the shared immutable empty instance, except
+     * for <code>Stream</code>, where each call gets a new empty stream.</p>
+     *
+     * <p>Generators may be registered (and removed) at any time, including
+     * while mocks are being called from other threads.</p>
      *
      * <p><strong>Note:</strong> The default value generator will <strong>not</strong>
      * be called during <em>monitored invocations</em>. The framework will always
@@ -957,6 +964,141 @@ public interface MoxyEngine {
      */
     void registerMatcher(final MoxyMatcher<?> matcher);
 
+    /**
+     * <p>Enable or disable timing of calls to real methods.</p>
+     *
+     * <p>When enabled, each call that a spy (or a mock stubbed to call the
+     * real method, or delegate) forwards to the real implementation is timed,
+     * and the latencies are aggregated into per-mock, per-method histograms.
+     * These can be retrieved with {@link #getInvocationTimings(InvocationRunnable)}
+     * or verified with (for example) {@link MoxyVerifier#hadLatencyAtMost(double, java.time.Duration)}.</p>
+     *
+     * <p>Timing is disabled by default, unless the
+     * <code>com.roscopeco.moxy.timing</code> system property is <code>true</code>.
+     * Recorded timings are discarded when the engine is reset.</p>
+     *
+     * @param enabled <code>true</code> to enable timing.
+     * @since 1.0
+     */
+    void setInvocationTimingEnabled(boolean enabled);
+
+    /**
+     * <p>Get a snapshot of the timings recorded for calls to the real
+     * implementation of the mock method invoked by the given lambda.</p>
+     *
+     * <p>Timings are kept per mock method, so the arguments passed
+     * in the lambda are ignored.</p>
+     *
+     * @param invocation A lambda that will invoke the method to get timings for.
+     * @return The timings (empty if none have been recorded).
+     * @see #setInvocationTimingEnabled(boolean)
+     * @since 1.0
+     */
+    InvocationTimings getInvocationTimings(InvocationRunnable invocation);
+
+    /**
+     * <p>Enable or disable tracking of concurrent calls to mock methods.</p>
+     *
+     * <p>When enabled, the number of calls currently in progress is counted
+     * for each mock method, and the highest count seen is kept. This
+     * can be verified with {@link MoxyVerifier#hadMaxConcurrency(int)} or
+     * {@link MoxyVerifier#hadMaxConcurrencyAtMost(int)}.</p>
+     *
+     * <p>Tracking is disabled by default, unless the
+     * <code>com.roscopeco.moxy.concurrency</code> system property is <code>true</code>.
+     * High-water marks are discarded when the engine is reset.</p>
+     *
+     * @param enabled <code>true</code> to enable concurrency tracking.
+     * @since 1.0
+     */
+    void setConcurrencyTrackingEnabled(boolean enabled);
+
+    /**
+     * <p>Have delayed stub responses (see {@link MoxyStubber#thenReturnAfter(java.time.Duration, Object)})
+     * from this engine's mocks fall due according to a new {@link VirtualClock},
+     * rather than in real time.</p>
+     *
+     * <p>The returned clock must be advanced for delayed responses to complete.
+     * The clock remains in use (across resets) until this method is
+     * called again, or {@link #useRealClock()} is called.</p>
+     *
+     * @return The new clock.
+     * @since 1.0
+     */
+    VirtualClock useVirtualClock();
+
+    /**
+     * <p>Have delayed stub responses from this engine's mocks fall due
+     * in real time (the default).</p>
+     *
+     * <p>Responses already scheduled on a virtual clock are unaffected,
+     * and will complete when that clock is advanced.</p>
+     *
+     * @see #useVirtualClock()
+     * @since 1.0
+     */
+    void useRealClock();
+
+    /**
+     * <p>Start a query over the invocations recorded by this engine.</p>
+     *
+     * <p>See {@link MoxyInvocationQuery} for details on the filtering
+     * and evaluation methods available.</p>
+     *
+     * @return A new {@link MoxyInvocationQuery}, initially matching all recorded invocations.
+     * @since 1.0
+     */
+    MoxyInvocationQuery queryInvocations();
+
+    /**
+     * <p>Start table-driven stubbing of the mock method invoked by
+     * the supplied lambda, to stub it with many argument/result
+     * combinations at once.</p>
+     *
+     * <p>The invocation in the lambda is used only to determine which
+     * method is to be stubbed - its arguments are ignored, and it does
+     * not change any existing stubbing. It is not counted toward mock
+     * invocation, return or throw counters.</p>
+     *
+     * <p>Example usage:</p>
+     *
+     * <pre><code>
+     * engine.stubTable(() -&gt; mock.lookup(null)).rows(responses);
+     * </code></pre>
+     *
+     * <p>See {@link MoxyStubTable} for details on the methods available.</p>
+     *
+     * @param invocation A lambda that will invoke the method to be stubbed.
+     * @param <T>        The type being stubbed (the return type of the mocked method).
+     * @return A {@link MoxyStubTable} that will stub the given method.
+     * @see #when(InvocationSupplier)
+     * @since 1.0
+     */
+    <T> MoxyStubTable<T> stubTable(InvocationSupplier<T> invocation);
+
+    /**
+     * <p>Obtain a {@link Flow.Publisher} of the invocations recorded by this
+     * engine, allowing mock interactions to be observed as they happen
+     * (for example, to count calls or check rates during a long-running test).</p>
+     *
+     * <p>Subscribers receive standard (i.e. not stubbing or verifying)
+     * invocations recorded after they subscribe, in the order they were
+     * recorded. Delivery is asynchronous, and honours each subscriber's
+     * demand. Up to <code>bufferCapacity</code> invocations are buffered per
+     * subscriber - when the buffer is full, invocations are dropped according
+     * to the given <code>overflowPolicy</code>, so a slow subscriber never
+     * holds up the code under test.</p>
+     *
+     * <p>The publisher never completes.</p>
+     *
+     * @param bufferCapacity The maximum number of invocations to buffer per subscriber.
+     * @param overflowPolicy What to do when a subscriber's buffer is full.
+     * @return A {@link Flow.Publisher} of recorded invocations.
+     * @since 1.0
+     */
+    Flow.Publisher<RecordedInvocation> getInvocationPublisher(int bufferCapacity,
+                                                              InvocationOverflowPolicy overflowPolicy);
+
     /**
      * <p>Obtain the default {@link com.roscopeco.moxy.api.ClassDefinitionStrategy} used by this engine.</p>
      *
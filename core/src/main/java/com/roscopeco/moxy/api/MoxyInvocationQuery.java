@@ -0,0 +1,152 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>Implementations of this interface allow the invocations recorded
+ * by an engine to be queried, for example to answer aggregate questions
+ * (such as the distribution of arguments passed to a method, or the number
+ * of calls per mock) that cannot be expressed with a {@link MoxyVerifier}.
+ * They are returned by the {@link MoxyEngine#queryInvocations()} method.</p>
+ *
+ * <p>Filtering methods narrow the query and return <code>this</code>, and may
+ * be chained. Terminal methods ({@link #stream()} and the methods built on it)
+ * evaluate the query against a snapshot of the invocations recorded at the
+ * time they are called, and may be called repeatedly.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre><code>
+ * Map&lt;Integer, Long&gt; batchSizes = engine.queryInvocations()
+ *     .matching(() -&gt; repo.saveAll(any()))
+ *     .parallel()
+ *     .countBy(i -&gt; ((List&lt;?&gt;) i.getArgs().get(0)).size());
+ * </code></pre>
+ *
+ * <p>Only standard invocations (i.e. not those made while stubbing or
+ * verifying) are included.</p>
+ *
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @since 1.0
+ */
+public interface MoxyInvocationQuery {
+    /**
+     * Only include invocations of methods on the given mock.
+     *
+     * @param mock The mock.
+     * @return <code>this</code>.
+     * @since 1.0
+     */
+    MoxyInvocationQuery onMock(Object mock);
+
+    /**
+     * <p>Only include invocations that match the one(s) made by the given
+     * lambda, in the same way as {@link MoxyEngine#assertMock(InvocationRunnable)}.
+     * If the lambda invokes more than one mock method, invocations
+     * matching any of them are included.</p>
+     *
+     * <p>The arguments passed to the mocks within the lambda may be either
+     * immediate arguments, other mocks, or argument matchers.</p>
+     *
+     * @param invocation A lambda that will invoke the methods to be matched.
+     * @return <code>this</code>.
+     * @since 1.0
+     */
+    MoxyInvocationQuery matching(InvocationRunnable invocation);
+
+    /**
+     * Only include invocations of methods with the given name, on any mock.
+     *
+     * @param methodName The method name.
+     * @return <code>this</code>.
+     * @since 1.0
+     */
+    MoxyInvocationQuery withMethodName(String methodName);
+
+    /**
+     * Only include invocations for which the given predicate holds.
+     *
+     * @param predicate The predicate.
+     * @return <code>this</code>.
+     * @since 1.0
+     */
+    MoxyInvocationQuery filter(Predicate<? super RecordedInvocation> predicate);
+
+    /**
+     * <p>Evaluate the query in parallel, using the common
+     * fork/join pool.</p>
+     *
+     * <p>Any matchers, predicates and functions used with a parallel
+     * query must be safe to call from multiple threads.</p>
+     *
+     * @return <code>this</code>.
+     * @since 1.0
+     */
+    MoxyInvocationQuery parallel();
+
+    /**
+     * Evaluate the query, returning a stream of the matching invocations
+     * in the order they were recorded. The stream is parallel if
+     * {@link #parallel()} was called.
+     *
+     * @return A stream of matching invocations.
+     * @since 1.0
+     */
+    Stream<RecordedInvocation> stream();
+
+    /**
+     * Evaluate the query, returning the matching invocations
+     * in the order they were recorded.
+     *
+     * @return An unmodifiable list of matching invocations.
+     * @since 1.0
+     */
+    List<RecordedInvocation> list();
+
+    /**
+     * Evaluate the query, returning the number of matching invocations.
+     *
+     * @return The number of matching invocations.
+     * @since 1.0
+     */
+    long count();
+
+    /**
+     * Evaluate the query, returning the number of matching invocations
+     * grouped by the given classifier (for example, by receiver, or by the
+     * value of an argument).
+     *
+     * @param classifier Function returning the group key for an invocation.
+     * @param <K> The type of the group key.
+     * @return A map of group key to number of matching invocations.
+     * @since 1.0
+     */
+    <K> Map<K, Long> countBy(Function<? super RecordedInvocation, ? extends K> classifier);
+}
@@ -38,7 +38,42 @@ import java.util.Deque;
  * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
  * @since 1.0
  */
+@SuppressWarnings("squid:S1214" /* Constants are only meaningful as matcher costs */)
 public interface MoxyMatcher<T> {
+    /**
+     * Cost of a matcher that does no work (e.g. <code>any()</code>).
+     *
+     * @see #cost()
+     * @since 1.0
+     */
+    int COST_TRIVIAL = 0;
+
+    /**
+     * Cost of a matcher that does a simple comparison (e.g. <code>eq()</code>
+     * or <code>instanceOf()</code>).
+     *
+     * @see #cost()
+     * @since 1.0
+     */
+    int COST_CHEAP = 10;
+
+    /**
+     * Cost of a matcher whose cost is unknown (e.g. one calling user code).
+     * This is the cost of matchers that don't override {@link #cost()}.
+     *
+     * @see #cost()
+     * @since 1.0
+     */
+    int COST_DEFAULT = 50;
+
+    /**
+     * Cost of a matcher that does substantial work (e.g. <code>regexMatch()</code>).
+     *
+     * @see #cost()
+     * @since 1.0
+     */
+    int COST_EXPENSIVE = 100;
+
     /**
      * <p>Called by the framework to determine whether the given argument
      * should be considered a match for this matcher.</p>
@@ -48,6 +83,27 @@ public interface MoxyMatcher<T> {
      */
     boolean matches(T arg);
 
+    /**
+     * <p>The relative cost of calling {@link #matches(Object)}, used by the
+     * framework to decide the order in which to match arguments.</p>
+     *
+     * <p>When matching a call's arguments, arguments given as plain values are
+     * compared first, and then matchers are called from the cheapest to the most
+     * expensive (those with equal cost in argument order), stopping as soon as
+     * one does not match. Matchers should therefore not rely on being called
+     * for every call.</p>
+     *
+     * <p>Costs are only compared with each other - see the <code>COST_</code>
+     * constants for typical values. The default implementation returns
+     * {@link #COST_DEFAULT}.</p>
+     *
+     * @return The relative cost of this matcher.
+     * @since 1.0
+     */
+    default int cost() {
+        return COST_DEFAULT;
+    }
+
     /**
      * <p>Called by the framework when loading this matcher to the internal
      * stack. A default implementation is provided that correctly handles
@@ -0,0 +1,100 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Converts the arguments and results of a mock method to and from the
+ * bytes stored in a {@link MappedStubSource} file.</p>
+ *
+ * <p>Argument encoding must be deterministic - the same arguments must always
+ * encode to the same bytes - as calls are looked up by their encoded arguments.</p>
+ *
+ * @param <T> The type this codec handles (the return type of the mocked method).
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @since 1.0
+ */
+public interface MoxyStubCodec<T> {
+    /**
+     * Encode the arguments to a call.
+     *
+     * @param args The arguments.
+     * @return The encoded key.
+     * @since 1.0
+     */
+    byte[] encodeArgs(List<?> args);
+
+    /**
+     * Encode a result (used when writing files).
+     *
+     * @param value The result.
+     * @return The encoded value.
+     * @since 1.0
+     */
+    byte[] encodeValue(T value);
+
+    /**
+     * Decode a result. The buffer's remaining bytes are exactly those
+     * produced by {@link #encodeValue(Object)}.
+     *
+     * @param buffer The encoded value.
+     * @return The result.
+     * @since 1.0
+     */
+    T decodeValue(ByteBuffer buffer);
+
+    /**
+     * A codec for methods returning <code>String</code>, storing
+     * the results as UTF-8. Arguments are encoded as the UTF-8 of their
+     * <code>String.valueOf</code>, separated by <code>'\0'</code>.
+     *
+     * @return A UTF-8 <code>String</code> codec.
+     * @since 1.0
+     */
+    static MoxyStubCodec<String> utf8() {
+        return new MoxyStubCodec<>() {
+            @Override
+            public byte[] encodeArgs(final List<?> args) {
+                return args.stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining("\0"))
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public byte[] encodeValue(final String value) {
+                return value.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decodeValue(final ByteBuffer buffer) {
+                return StandardCharsets.UTF_8.decode(buffer).toString();
+            }
+        };
+    }
+}
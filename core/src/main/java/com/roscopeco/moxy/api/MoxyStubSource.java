@@ -0,0 +1,57 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>A source of stubbed results for a mock method, consulted when a call
+ * to the method matches none of its explicit stubbing. Sources are attached
+ * to a method with {@link MoxyStubTable#source(MoxyStubSource)}.</p>
+ *
+ * <p>Sources allow very large canned datasets to back a mock without a
+ * stubbing (and its arguments and result) being held in memory for each
+ * row - see {@link MappedStubSource} for a source that reads its rows from
+ * a memory-mapped file.</p>
+ *
+ * <p>Sources may be called concurrently from any thread that calls the mock,
+ * and so must be thread-safe.</p>
+ *
+ * @param <T> The type this source provides (the return type of the mocked method).
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @since 1.0
+ */
+@FunctionalInterface
+public interface MoxyStubSource<T> {
+    /**
+     * Look up the result for a call with the given arguments.
+     *
+     * @param args The actual arguments to the call, as an immutable <code>List</code>.
+     * @return The result, or an empty <code>Optional</code> if this source has no
+     * result for these arguments (in which case the mock returns its default).
+     * @since 1.0
+     */
+    Optional<T> lookup(List<?> args);
+}
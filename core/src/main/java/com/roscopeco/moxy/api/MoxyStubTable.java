@@ -0,0 +1,120 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * <p>Implementations of this interface allow a single mock method to be
+ * stubbed with many argument/result combinations ("rows") at once, for
+ * example to load a large set of canned responses. They are returned by
+ * the {@link MoxyEngine#stubTable(InvocationSupplier)} method.</p>
+ *
+ * <p>The method to be stubbed is determined once, when the table is
+ * created, and each row is then installed directly. Each row has the same
+ * effect as stubbing with <code>when(...).thenReturn(...)</code> (or
+ * <code>thenAnswer</code>) for those exact arguments - prior stubbing that
+ * the arguments match is replaced.</p>
+ *
+ * <p>Example usage:</p>
+ *
+ * <pre><code>
+ * engine.stubTable(() -&gt; mock.lookup(null))
+ *     .rows(Map.of("one", 1, "two", 2))
+ *     .row(List.of("three"), 3);
+ * </code></pre>
+ *
+ * <p>Calls that match no row can also be answered from a
+ * {@link MoxyStubSource}, for datasets too large to hold as rows.</p>
+ *
+ * <p>Row arguments are compared with <code>equals</code>, exactly as
+ * immediate arguments are when stubbing with <code>when</code>. Where the method
+ * takes primitive arguments, the appropriate wrapper type should be used.</p>
+ *
+ * @param <T> The type this table handles (the return type of the mocked method).
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @since 1.0
+ */
+public interface MoxyStubTable<T> {
+    /**
+     * Stub the method to return <code>value</code> when called with
+     * the given arguments.
+     *
+     * @param args The arguments (one per method parameter).
+     * @param value The value to return.
+     * @return <code>this</code>, for further rows.
+     * @throws IllegalArgumentException if the number of arguments is wrong.
+     * @since 1.0
+     */
+    MoxyStubTable<T> row(List<?> args, T value);
+
+    /**
+     * Stub the method to return the value calculated by <code>answer</code>
+     * when called with the given arguments. The answer receives the actual
+     * arguments as an immutable <code>List</code>.
+     *
+     * @param args The arguments (one per method parameter).
+     * @param answer The {@link Function}, usually as a lambda.
+     * @return <code>this</code>, for further rows.
+     * @throws IllegalArgumentException if the number of arguments is wrong, or the answer is <code>null</code>.
+     * @since 1.0
+     */
+    MoxyStubTable<T> rowAnswer(List<?> args, Function<List<?>, T> answer);
+
+    /**
+     * Stub a single-argument method to return each value in the map when called
+     * with its key.
+     *
+     * @param rows The rows, keyed by argument.
+     * @return <code>this</code>, for further rows.
+     * @throws IllegalArgumentException if the method does not take exactly one argument.
+     * @since 1.0
+     */
+    MoxyStubTable<T> rows(Map<?, ? extends T> rows);
+
+    /**
+     * Stub the method to return each entry's value when called with the
+     * arguments in its key.
+     *
+     * @param rows The rows, as entries of arguments (one per method parameter) to value.
+     * @return <code>this</code>, for further rows.
+     * @throws IllegalArgumentException if the number of arguments in any row is wrong.
+     * @since 1.0
+     */
+    MoxyStubTable<T> rows(Stream<? extends Map.Entry<? extends List<?>, ? extends T>> rows);
+
+    /**
+     * Answer calls to the method that match none of its stubbing from the
+     * given {@link MoxyStubSource}, replacing any source previously set.
+     *
+     * @param source The source, for example a {@link MappedStubSource}.
+     * @return <code>this</code>, for further rows.
+     * @throws IllegalArgumentException if the source is <code>null</code>.
+     * @since 1.0
+     */
+    MoxyStubTable<T> source(MoxyStubSource<? extends T> source);
+}
@@ -23,9 +23,12 @@
  */
 package com.roscopeco.moxy.api;
 
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * <p>Implementations of this interface allow mocks to be stubbed to
@@ -146,6 +149,258 @@ public interface MoxyStubber<T> {
      */
     MoxyStubber<T> thenAnswer(Function<List<?>, T> provider);
 
+    /**
+     * <p>Stub this method to return the value calculated by the supplied
+     * {@link Answer1}, which receives the method's single actual argument.</p>
+     *
+     * <p>This is an alternative to {@link #thenAnswer(Function)} that
+     * receives the arguments individually rather than as a <code>List</code>.
+     * As the argument types can't be inferred from the stubbed method, lambdas
+     * should declare their parameter types. Primitive arguments are passed as
+     * their wrapper types.</p>
+     *
+     * <p>For example:</p>
+     *
+     * <pre><code>
+     *   Moxy.when(() -&gt; mock.sayHelloTo(null))
+     *       .thenAnswerWith((String who) -&gt; "Hi, " + who);
+     * </code></pre>
+     *
+     * <p>This method may be chained with other <code>then...</code> methods,
+     * which will cause the mocked invocation to exhibit the chained
+     * behaviours, in order, upon multiple calls to the mock.</p>
+     *
+     * @param answer The {@link Answer1}, usually as a lambda.
+     * @param <A> The type of the argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the answer is <code>null</code>, or the method
+     *          does not take exactly one argument.
+     * @since 1.0
+     */
+    <A> MoxyStubber<T> thenAnswerWith(Answer1<A, T> answer);
+
+    /**
+     * <p>Stub this method to return the value calculated by the supplied
+     * {@link Answer2}, which receives the method's 2 actual arguments.</p>
+     *
+     * <p>See {@link #thenAnswerWith(Answer1)} for details.</p>
+     *
+     * @param answer The {@link Answer2}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the answer is <code>null</code>, or the method
+     *          does not take exactly 2 arguments.
+     * @since 1.0
+     */
+    <A, B> MoxyStubber<T> thenAnswerWith(Answer2<A, B, T> answer);
+
+    /**
+     * <p>Stub this method to return the value calculated by the supplied
+     * {@link Answer3}, which receives the method's 3 actual arguments.</p>
+     *
+     * <p>See {@link #thenAnswerWith(Answer1)} for details.</p>
+     *
+     * @param answer The {@link Answer3}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @param <C> The type of the third argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the answer is <code>null</code>, or the method
+     *          does not take exactly 3 arguments.
+     * @since 1.0
+     */
+    <A, B, C> MoxyStubber<T> thenAnswerWith(Answer3<A, B, C, T> answer);
+
+    /**
+     * <p>Stub this method to return the value calculated by the supplied
+     * {@link Answer4}, which receives the method's 4 actual arguments.</p>
+     *
+     * <p>See {@link #thenAnswerWith(Answer1)} for details.</p>
+     *
+     * @param answer The {@link Answer4}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @param <C> The type of the third argument.
+     * @param <D> The type of the fourth argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the answer is <code>null</code>, or the method
+     *          does not take exactly 4 arguments.
+     * @since 1.0
+     */
+    <A, B, C, D> MoxyStubber<T> thenAnswerWith(Answer4<A, B, C, D, T> answer);
+
+    /**
+     * <p>Stub this method to return each of the values from the given
+     * <code>Iterator</code> in turn, one per call.</p>
+     *
+     * <p>Values are pulled from the iterator lazily, as calls are made, so
+     * very long (or unbounded) sequences can be returned without being held
+     * in memory. Each call gets a different value, in order, even when
+     * many threads call the mock at once (the iterator is only ever
+     * accessed by one thread at a time).</p>
+     *
+     * <p>What happens once the iterator is exhausted is determined by
+     * the given {@link ExhaustionPolicy}.</p>
+     *
+     * <p>There are no primitive specialisations - as with
+     * {@link #thenReturn(Object)}, methods returning primitives unbox
+     * the values, so sequences of primitives must be boxed.</p>
+     *
+     * <p>For example:</p>
+     *
+     * <pre><code>
+     *   Moxy.when(() -&gt; mock.nextTick())
+     *       .thenReturnEach(ticks.iterator(), ExhaustionPolicy.NEXT_STUB)
+     *       .thenThrow(new EndOfFeedException());
+     * </code></pre>
+     *
+     * <p>This method may be chained with other <code>then...</code> methods,
+     * which will cause the mocked invocation to exhibit the chained
+     * behaviours, in order, upon multiple calls to the mock.</p>
+     *
+     * @param values The values to return.
+     * @param policy The behaviour once all values have been returned.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the values or policy are <code>null</code>.
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnEach(Iterator<? extends T> values, ExhaustionPolicy policy);
+
+    /**
+     * <p>Stub this method to return each of the values from the given
+     * <code>Iterator</code> in turn, moving on to the next behaviour
+     * in the chain (if any) once they have all been returned.</p>
+     *
+     * <p>See {@link #thenReturnEach(Iterator, ExhaustionPolicy)}
+     * for details.</p>
+     *
+     * @param values The values to return.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the values are <code>null</code>.
+     * @see ExhaustionPolicy#NEXT_STUB
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnEach(Iterator<? extends T> values);
+
+    /**
+     * <p>Stub this method to return each of the values from the given
+     * <code>Iterable</code> in turn, one per call.</p>
+     *
+     * <p>See {@link #thenReturnEach(Iterator, ExhaustionPolicy)}
+     * for details.</p>
+     *
+     * @param values The values to return.
+     * @param policy The behaviour once all values have been returned.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the values or policy are <code>null</code>.
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnEach(Iterable<? extends T> values, ExhaustionPolicy policy);
+
+    /**
+     * <p>Stub this method to return each of the values from the given
+     * <code>Iterable</code> in turn, moving on to the next behaviour
+     * in the chain (if any) once they have all been returned.</p>
+     *
+     * <p>See {@link #thenReturnEach(Iterator, ExhaustionPolicy)}
+     * for details.</p>
+     *
+     * @param values The values to return.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the values are <code>null</code>.
+     * @see ExhaustionPolicy#NEXT_STUB
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnEach(Iterable<? extends T> values);
+
+    /**
+     * <p>Stub this method to return each of the elements of the given
+     * <code>Stream</code> in turn, one per call. Elements are only
+     * consumed from the stream as calls are made.</p>
+     *
+     * <p>See {@link #thenReturnEach(Iterator, ExhaustionPolicy)}
+     * for details.</p>
+     *
+     * @param values The values to return.
+     * @param policy The behaviour once all values have been returned.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the values or policy are <code>null</code>.
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnEach(Stream<? extends T> values, ExhaustionPolicy policy);
+
+    /**
+     * <p>Stub this method to return each of the elements of the given
+     * <code>Stream</code> in turn, moving on to the next behaviour
+     * in the chain (if any) once they have all been returned.</p>
+     *
+     * <p>See {@link #thenReturnEach(Iterator, ExhaustionPolicy)}
+     * for details.</p>
+     *
+     * @param values The values to return.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the values are <code>null</code>.
+     * @see ExhaustionPolicy#NEXT_STUB
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnEach(Stream<? extends T> values);
+
+    /**
+     * <p>Stub this method to return a <code>CompletableFuture</code> that
+     * completes with the given value after the given delay.</p>
+     *
+     * <p>This is intended for simulating slow asynchronous dependencies.
+     * The mocked method returns immediately, and no thread is blocked while
+     * the delay elapses - futures are completed from a shared scheduler
+     * (or, if the engine is using a {@link VirtualClock}, when the clock
+     * is advanced past their due time). Each call returns a new future,
+     * whose delay starts when the call is made.</p>
+     *
+     * <p>The method's return type must be one that a <code>CompletableFuture</code>
+     * can be returned as (<code>CompletableFuture</code>, <code>CompletionStage</code>,
+     * <code>Future</code> or <code>Object</code>).</p>
+     *
+     * <p>For example:</p>
+     *
+     * <pre><code>
+     *   Moxy.when(() -&gt; mock.fetch("key")).thenReturnAfter(Duration.ofMillis(50), "value");
+     * </code></pre>
+     *
+     * <p>This method may be chained with other <code>then...</code> methods,
+     * which will cause the mocked invocation to exhibit the chained
+     * behaviours, in order, upon multiple calls to the mock.</p>
+     *
+     * <p>See {@link #thenReturn(Object)} for a example of chained stubbing.</p>
+     *
+     * @param delay The delay before each returned future completes.
+     * @param value The value to complete the future with.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the delay is <code>null</code> or negative,
+     *          or the method cannot return a <code>CompletableFuture</code>.
+     * @see MoxyEngine#useVirtualClock()
+     * @since 1.0
+     */
+    MoxyStubber<T> thenReturnAfter(Duration delay, Object value);
+
+    /**
+     * <p>Stub this method to return a <code>CompletableFuture</code> that
+     * completes exceptionally with the given <code>Throwable</code> after the
+     * given delay.</p>
+     *
+     * <p>Apart from how the future completes, this behaves exactly like
+     * {@link #thenReturnAfter(Duration, Object)}.</p>
+     *
+     * @param delay The delay before each returned future completes.
+     * @param throwable The <code>Throwable</code> to complete the future with.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the delay or throwable is <code>null</code>,
+     *          the delay is negative, or the method cannot return a <code>CompletableFuture</code>.
+     * @see MoxyEngine#useVirtualClock()
+     * @since 1.0
+     */
+    MoxyStubber<T> thenThrowAfter(Duration delay, Throwable throwable);
+
     /**
      * <p>Have this method delegate calls to the first compatible method on
      * the given object.</p>
@@ -245,4 +500,74 @@ public interface MoxyStubber<T> {
      * @since 1.0
      */
     MoxyStubber<T> thenDo(Consumer<List<?>> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * single actual argument, as an {@link Action1}.</p>
+     *
+     * <p>This is an alternative to {@link #thenDo(Consumer)} that receives
+     * the arguments individually rather than as a <code>List</code>. As the
+     * argument types can't be inferred from the stubbed method, lambdas should
+     * declare their parameter types. Primitive arguments are passed as their
+     * wrapper types.</p>
+     *
+     * @param action The {@link Action1}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly one argument.
+     * @since 1.0
+     */
+    <A> MoxyStubber<T> thenDoWith(Action1<A> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * 2 actual arguments, as an {@link Action2}.</p>
+     *
+     * <p>See {@link #thenDoWith(Action1)} for details.</p>
+     *
+     * @param action The {@link Action2}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly 2 arguments.
+     * @since 1.0
+     */
+    <A, B> MoxyStubber<T> thenDoWith(Action2<A, B> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * 3 actual arguments, as an {@link Action3}.</p>
+     *
+     * <p>See {@link #thenDoWith(Action1)} for details.</p>
+     *
+     * @param action The {@link Action3}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @param <C> The type of the third argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly 3 arguments.
+     * @since 1.0
+     */
+    <A, B, C> MoxyStubber<T> thenDoWith(Action3<A, B, C> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * 4 actual arguments, as an {@link Action4}.</p>
+     *
+     * <p>See {@link #thenDoWith(Action1)} for details.</p>
+     *
+     * @param action The {@link Action4}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @param <C> The type of the third argument.
+     * @param <D> The type of the fourth argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly 4 arguments.
+     * @since 1.0
+     */
+    <A, B, C, D> MoxyStubber<T> thenDoWith(Action4<A, B, C, D> action);
 }
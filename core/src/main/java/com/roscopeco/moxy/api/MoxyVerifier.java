@@ -25,6 +25,8 @@ package com.roscopeco.moxy.api;
 
 import org.opentest4j.AssertionFailedError;
 
+import java.time.Duration;
+
 /**
  * <p>Implementations of this interface allow mocks to be verified after
  * use. They are returned by the
@@ -35,6 +37,11 @@ import org.opentest4j.AssertionFailedError;
  * of this interface, as verifying will require internal knowledge
  * of the engine's mocking strategy.</p>
  *
+ * <p>A verifier may be kept and checked repeatedly, for example when
+ * polling for calls made asynchronously. Implementations may remember
+ * how far they have checked, so that each repeated check only examines
+ * invocations made since the last one.</p>
+ *
  * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
  * @since 1.0
  */
@@ -120,6 +127,116 @@ public interface MoxyVerifier {
      */
     MoxyVerifier wasCalledAtMost(int times);
 
+    /**
+     * Verify the mock method is called at least once within the given
+     * <code>timeout</code>, waiting for the call if it has not already
+     * been made.
+     * <p>
+     * This is intended for verifying calls made asynchronously. The
+     * verification completes as soon as a matching call is made, rather
+     * than at the end of the timeout.
+     * <p>
+     * Throws {@link AssertionFailedError} if the assertion fails.
+     * @param timeout The maximum time to wait.
+     * @return <code>this</code>
+     * @see #awaitCalls(int, Duration)
+     * @since 1.0
+     */
+    MoxyVerifier wasCalledWithin(Duration timeout);
+
+    /**
+     * Verify the mock method is called at least <code>times</code> within
+     * the given <code>timeout</code>, waiting for the calls if they have
+     * not already been made.
+     * <p>
+     * This is intended for verifying calls made asynchronously. The
+     * verification completes as soon as the expected number of matching
+     * calls have been made, rather than at the end of the timeout.
+     * <p>
+     * Throws {@link AssertionFailedError} if the assertion fails.
+     * @param times The number of expected invocations.
+     * @param timeout The maximum time to wait.
+     * @return <code>this</code>
+     * @see #wasCalledWithin(Duration)
+     * @since 1.0
+     */
+    MoxyVerifier awaitCalls(int times, Duration timeout);
+
+    /**
+     * Verify that, at the given <code>percentile</code>, calls to the real
+     * (or delegate) implementation of the spied method took at most
+     * <code>limit</code> - for example, <code>hadLatencyAtMost(99, Duration.ofMillis(2))</code>
+     * verifies the 99th percentile latency is no more than 2ms.
+     * <p>
+     * Requires invocation timing to be enabled on the engine (see
+     * {@link MoxyEngine#setInvocationTimingEnabled(boolean)}). Timings
+     * are kept per mock method, so the arguments in the call are ignored.
+     * <p>
+     * Throws {@link AssertionFailedError} if the assertion fails, or
+     * if no timed calls have been recorded.
+     *
+     * @param percentile The percentile, between 0 and 100 (inclusive).
+     * @param limit The maximum acceptable latency at that percentile.
+     * @return <code>this</code>
+     * @see InvocationTimings
+     * @since 1.0
+     */
+    MoxyVerifier hadLatencyAtMost(double percentile, Duration limit);
+
+    /**
+     * Verify that at most <code>callsPerSecond</code> calls to the real
+     * (or delegate) implementation of the spied method were started
+     * within any one second.
+     * <p>
+     * Requires invocation timing to be enabled on the engine (see
+     * {@link MoxyEngine#setInvocationTimingEnabled(boolean)}). Timings
+     * are kept per mock method, so the arguments in the call are ignored.
+     * <p>
+     * Throws {@link AssertionFailedError} if the assertion fails.
+     *
+     * @param callsPerSecond The maximum acceptable number of calls in a second.
+     * @return <code>this</code>
+     * @see InvocationTimings#getPeakCallsPerSecond()
+     * @since 1.0
+     */
+    MoxyVerifier hadCallRateAtMost(long callsPerSecond);
+
+    /**
+     * Verify that the greatest number of calls to the mocked method that
+     * were in progress at the same time was exactly <code>calls</code>.
+     * <p>
+     * Requires concurrency tracking to be enabled on the engine (see
+     * {@link MoxyEngine#setConcurrencyTrackingEnabled(boolean)}). Counts
+     * are kept per mock method, so the arguments in the call are ignored.
+     * <p>
+     * Throws {@link AssertionFailedError} if the assertion fails.
+     *
+     * @param calls The expected maximum number of concurrent calls.
+     * @return <code>this</code>
+     * @see #hadMaxConcurrencyAtMost(int)
+     * @since 1.0
+     */
+    MoxyVerifier hadMaxConcurrency(int calls);
+
+    /**
+     * Verify that no more than <code>calls</code> calls to the mocked method
+     * were ever in progress at the same time - for example,
+     * <code>hadMaxConcurrencyAtMost(1)</code> verifies the method was never
+     * called concurrently.
+     * <p>
+     * Requires concurrency tracking to be enabled on the engine (see
+     * {@link MoxyEngine#setConcurrencyTrackingEnabled(boolean)}). Counts
+     * are kept per mock method, so the arguments in the call are ignored.
+     * <p>
+     * Throws {@link AssertionFailedError} if the assertion fails.
+     *
+     * @param calls The maximum acceptable number of concurrent calls.
+     * @return <code>this</code>
+     * @see #hadMaxConcurrency(int)
+     * @since 1.0
+     */
+    MoxyVerifier hadMaxConcurrencyAtMost(int calls);
+
     /**
      * Verify the mocked method didn't throw an exception of type <code>throwable</code>.
      * <p>
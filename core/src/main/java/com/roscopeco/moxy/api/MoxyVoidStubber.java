@@ -179,4 +179,74 @@ public interface MoxyVoidStubber {
      * @since 1.0
      */
     MoxyVoidStubber thenDo(Consumer<List<?>> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * single actual argument, as an {@link Action1}.</p>
+     *
+     * <p>This is an alternative to {@link #thenDo(Consumer)} that receives
+     * the arguments individually rather than as a <code>List</code>. As the
+     * argument types can't be inferred from the stubbed method, lambdas should
+     * declare their parameter types. Primitive arguments are passed as their
+     * wrapper types.</p>
+     *
+     * @param action The {@link Action1}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly one argument.
+     * @since 1.0
+     */
+    <A> MoxyVoidStubber thenDoWith(Action1<A> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * 2 actual arguments, as an {@link Action2}.</p>
+     *
+     * <p>See {@link #thenDoWith(Action1)} for details.</p>
+     *
+     * @param action The {@link Action2}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly 2 arguments.
+     * @since 1.0
+     */
+    <A, B> MoxyVoidStubber thenDoWith(Action2<A, B> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * 3 actual arguments, as an {@link Action3}.</p>
+     *
+     * <p>See {@link #thenDoWith(Action1)} for details.</p>
+     *
+     * @param action The {@link Action3}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @param <C> The type of the third argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly 3 arguments.
+     * @since 1.0
+     */
+    <A, B, C> MoxyVoidStubber thenDoWith(Action3<A, B, C> action);
+
+    /**
+     * <p>Add a <em>doAction</em> to this method that receives the method's
+     * 4 actual arguments, as an {@link Action4}.</p>
+     *
+     * <p>See {@link #thenDoWith(Action1)} for details.</p>
+     *
+     * @param action The {@link Action4}, usually as a lambda.
+     * @param <A> The type of the first argument.
+     * @param <B> The type of the second argument.
+     * @param <C> The type of the third argument.
+     * @param <D> The type of the fourth argument.
+     * @return <code>this</code>, for ongoing stubbing.
+     * @throws IllegalArgumentException if the action is <code>null</code>, or the method
+     *          does not take exactly 4 arguments.
+     * @since 1.0
+     */
+    <A, B, C, D> MoxyVoidStubber thenDoWith(Action4<A, B, C, D> action);
 }
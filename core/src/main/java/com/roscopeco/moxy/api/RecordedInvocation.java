@@ -0,0 +1,60 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.util.List;
+
+/**
+ * <p>A read-only view of a single invocation of a mock method, as
+ * recorded by a {@link MoxyEngine}.</p>
+ *
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @see MoxyEngine#getInvocationPublisher(int, InvocationOverflowPolicy)
+ * @since 1.0
+ */
+public interface RecordedInvocation {
+    /**
+     * @return The mock the method was invoked on.
+     * @since 1.0
+     */
+    Object getReceiver();
+
+    /**
+     * @return The name of the invoked method.
+     * @since 1.0
+     */
+    String getMethodName();
+
+    /**
+     * @return The descriptor of the invoked method, in JVM internal format.
+     * @since 1.0
+     */
+    String getMethodDesc();
+
+    /**
+     * @return The arguments the method was called with. Possibly empty, never null.
+     * @since 1.0
+     */
+    List<Object> getArgs();
+}
@@ -0,0 +1,70 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import java.time.Duration;
+
+/**
+ * <p>A manually-advanced clock that drives delayed stub responses
+ * (such as those set up with {@link MoxyStubber#thenReturnAfter(Duration, Object)})
+ * in place of real time.</p>
+ *
+ * <p>While an engine is using a virtual clock, delayed responses complete
+ * only when the clock is advanced past their due time, on the thread
+ * calling {@link #advance(Duration)}. This allows latency-heavy scenarios
+ * to run in (close to) zero real time, and deterministically.</p>
+ *
+ * <p>Implementations are thread-safe.</p>
+ *
+ * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
+ * @see MoxyEngine#useVirtualClock()
+ * @since 1.0
+ */
+public interface VirtualClock {
+    /**
+     * <p>Move this clock forward by the given amount, completing (in due-time
+     * order) any delayed responses that become due.</p>
+     *
+     * <p>Responses scheduled by code that runs while the clock is advancing
+     * (e.g. in a dependent stage of a completed future) will also be
+     * completed if they fall due before the new time.</p>
+     *
+     * @param amount The amount of time to advance by. Must not be negative.
+     * @throws IllegalArgumentException if <code>amount</code> is <code>null</code> or negative.
+     * @since 1.0
+     */
+    void advance(Duration amount);
+
+    /**
+     * @return The total time this clock has been advanced by.
+     * @since 1.0
+     */
+    Duration getElapsed();
+
+    /**
+     * @return The number of delayed responses that have not yet fallen due.
+     * @since 1.0
+     */
+    int getPendingCount();
+}
@@ -25,13 +25,10 @@ package com.roscopeco.moxy.impl.asm;
 
 import com.roscopeco.moxy.impl.asm.stubs.Stub;
 import com.roscopeco.moxy.impl.asm.stubs.StubDoActions;
-import com.roscopeco.moxy.impl.asm.stubs.StubInvocation;
 import com.roscopeco.moxy.impl.asm.stubs.StubMethod;
 
-import java.util.Deque;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * Holds mock objects' "instance variables".
@@ -53,40 +50,91 @@ public class ASMMockInstanceVars {
 
     private final ASMMoxyEngine engine;
 
-    // Using Deque here for efficient add-at-front, so when
-    // we stream we see the most recent stubbing...
-    private final Map<StubMethod, Deque<StubInvocation>> stubsMap;
+    // These maps are copy-on-write: they're replaced (under this
+    // object's lock) when stubbing, and read by invocations without
+    // locking. The doActions lists are never modified once published;
+    // StubTables are modified only under this object's lock, and are
+    // safe to read without it.
+    private volatile Map<StubMethod, StubTable> stubsMap;
+    private volatile Map<StubMethod, List<StubDoActions>> doActionsMap;
 
-    private final Map<StubMethod, List<StubDoActions>> doActionsMap;
+    // Standard invocations of this mock, by method name + descriptor.
+    // Guarded by the engine's InvocationRecorder.
+    private final Map<String, EpochInvocationList> invocationIndex;
 
-    // Cache for the stubdelegate - saves two lookups, argsmatch, etc.
-    //
-    // NOTE: This relies on generated code delegating immediately
-    // if shouldDelegateForInvocation is true!
-    //
-    // It is subsequently cleared in runDelegateForInvocation...
-    @SuppressWarnings("squid:S5164" /* This is remove()d in runDelegateForInvocation */)
-    private final ThreadLocal<CachedDelegate> stubDelegateCache = new ThreadLocal<>();
+    // In-flight call counters for this mock, by method name + descriptor.
+    private final Map<String, ConcurrencyCounter> concurrencyCounters;
 
     public ASMMockInstanceVars(final ASMMoxyEngine engine) {
+        this(engine, new LinkedHashMap<>(), new ConcurrentHashMap<>());
+    }
+
+    /*
+     * Used when resetting a mock - stubbing is discarded, but the
+     * mock's invocation history (and concurrency) is kept.
+     */
+    ASMMockInstanceVars(final ASMMoxyEngine engine,
+                        final Map<String, EpochInvocationList> invocationIndex,
+                        final Map<String, ConcurrencyCounter> concurrencyCounters) {
         this.engine = engine;
-        this.stubsMap = new HashMap<>();
-        this.doActionsMap = new HashMap<>();
+        this.stubsMap = Collections.emptyMap();
+        this.doActionsMap = Collections.emptyMap();
+        this.invocationIndex = invocationIndex;
+        this.concurrencyCounters = concurrencyCounters;
     }
 
     public ASMMoxyEngine getEngine() {
         return this.engine;
     }
 
-    Map<StubMethod, Deque<StubInvocation>> getStubsMap() {
+    Map<StubMethod, StubTable> getStubsMap() {
         return this.stubsMap;
     }
 
+    /*
+     * Callers must hold this object's lock.
+     */
+    StubTable ensureStubTable(final StubMethod method) {
+        StubTable table = this.stubsMap.get(method);
+
+        if (table == null) {
+            table = new StubTable();
+
+            final HashMap<StubMethod, StubTable> copy = new HashMap<>(this.stubsMap);
+            copy.put(method, table);
+            this.stubsMap = Collections.unmodifiableMap(copy);
+        }
+
+        return table;
+    }
+
     Map<StubMethod, List<StubDoActions>> getDoActionsMap() {
         return this.doActionsMap;
     }
 
-    ThreadLocal<CachedDelegate> getStubDelegateCache() {
-        return this.stubDelegateCache;
+    /*
+     * Callers must hold this object's lock.
+     */
+    void setDoActions(final StubMethod method, final List<StubDoActions> doActions) {
+        this.doActionsMap = copyWith(this.doActionsMap, method, doActions);
+    }
+
+    /*
+     * Copy of the given map, with the list for the given method replaced.
+     */
+    private static <T> Map<StubMethod, List<T>> copyWith(final Map<StubMethod, List<T>> map,
+                                                         final StubMethod method,
+                                                         final List<T> list) {
+        final HashMap<StubMethod, List<T>> copy = new HashMap<>(map);
+        copy.put(method, List.copyOf(list));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    Map<String, EpochInvocationList> getInvocationIndex() {
+        return this.invocationIndex;
+    }
+
+    Map<String, ConcurrencyCounter> getConcurrencyCounters() {
+        return this.concurrencyCounters;
     }
 }
\ No newline at end of file
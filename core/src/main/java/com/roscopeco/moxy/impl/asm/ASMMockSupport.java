@@ -26,11 +26,9 @@ package com.roscopeco.moxy.impl.asm;
 import com.roscopeco.moxy.api.InvalidMockInvocationException;
 import com.roscopeco.moxy.impl.asm.ASMMockInstanceVars.CachedDelegate;
 import com.roscopeco.moxy.impl.asm.stubs.*;
-import org.objectweb.asm.Type;
 
 import java.util.*;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * All mocks implement this interface. It (ab)uses default methods
@@ -63,47 +61,32 @@ public interface ASMMockSupport {
 
     default void __moxy_asm_removePriorStubbing(final StubMethod stubMethod,
                                                 final Invocation invocation) {
-        synchronized (__moxy_asm_ivars()) {
-            final Map<StubMethod, Deque<StubInvocation>> map = __moxy_asm_ivars().getStubsMap();
-            map.computeIfPresent(stubMethod, (k, deque) -> {
-                final ASMMoxyMatcherEngine matchEngine = __moxy_asm_ivars().getEngine().getMatcherEngine();
-
-                return deque.stream()
-                        .filter(stubInvocation -> !matchEngine.argsMatch(invocation.getArgs(), stubInvocation.getArgs()))
-                        .collect(Collectors.toCollection(ArrayDeque::new));
-            });
-        }
-    }
+        final ASMMockInstanceVars ivars = __moxy_asm_ivars();
 
-    // NOTE: This should be used when the arguments come from a monitored
-    // invocation (i.e. may contain matchers).
-    default StubInvocation findStubInvocationForMonitoredArgs(final Deque<StubInvocation> deque,
-                                                              final List<Object> args) {
-        for (final StubInvocation invocation : deque) {
-            if (args.equals(invocation.getArgs())) {
-                return invocation;
+        synchronized (ivars) {
+            final StubTable table = ivars.getStubsMap().get(stubMethod);
+
+            if (table != null) {
+                table.removeMatching(invocation.getArgs(), ivars.getEngine().getMatcherEngine());
             }
         }
-
-        return null;
     }
 
-    default void __moxy_asm_safelyAddStubbing(
-            final Map<StubMethod, Deque<StubInvocation>> map,
-            final Invocation invocation,
-            final Stub stubbing) {
-        synchronized (__moxy_asm_ivars()) {
-            final StubMethod stubMethod = new StubMethod(invocation.getMethodName(), invocation.getMethodDesc());
-            final Deque<StubInvocation> deque = map.computeIfAbsent(stubMethod, k -> new ArrayDeque<>());
+    default void __moxy_asm_safelyAddStubbing(final Invocation invocation, final Stub stubbing) {
+        final ASMMockInstanceVars ivars = __moxy_asm_ivars();
+
+        synchronized (ivars) {
+            final StubTable table = ivars.ensureStubTable(
+                    new StubMethod(invocation.getMethodName(), invocation.getMethodDesc()));
 
-            StubInvocation stubInvocation = findStubInvocationForMonitoredArgs(deque, invocation.getArgs());
+            StubInvocation stubInvocation = table.findForMonitoredArgs(invocation.getArgs());
 
             if (stubInvocation != null) {
-                stubInvocation.getStubs().addLast(stubbing);
+                stubInvocation.addStub(stubbing);
             } else {
                 stubInvocation = new StubInvocation(invocation.getArgs());
-                stubInvocation.getStubs().addFirst(stubbing);
-                deque.addLast(stubInvocation);
+                stubInvocation.addStub(stubbing);
+                table.add(stubInvocation);
             }
         }
     }
@@ -116,9 +99,7 @@ public interface ASMMockSupport {
                     + "(If you're testing the framework; may indicate an incomplete partial mock engine)");
         }
 
-        final Map<StubMethod, Deque<StubInvocation>> stubsMap = __moxy_asm_ivars().getStubsMap();
-
-        __moxy_asm_safelyAddStubbing(stubsMap, invocation, stub);
+        __moxy_asm_safelyAddStubbing(invocation, stub);
     }
 
     default void __moxy_asm_addDoAction(final Invocation invocation,
@@ -131,31 +112,34 @@ public interface ASMMockSupport {
         final ASMMockInstanceVars ivars = this.__moxy_asm_ivars();
 
         final ASMMoxyMatcherEngine matchEngine = ivars.getEngine().getMatcherEngine();
-        final Map<StubMethod, List<StubDoActions>> doActionsMap = ivars.getDoActionsMap();
-        final List<StubDoActions> list = doActionsMap.computeIfAbsent(
-                new StubMethod(invocation.getMethodName(), invocation.getMethodDesc()),
-                k -> new ArrayList<>());
 
-        StubDoActions matchingStub = null;
+        synchronized (ivars) {
+            final StubMethod stubMethod = new StubMethod(invocation.getMethodName(), invocation.getMethodDesc());
+            final List<StubDoActions> list = ivars.getDoActionsMap().getOrDefault(stubMethod, Collections.emptyList());
 
-        for (final StubDoActions actions : list) {
-            if (matchEngine.argsMatch(invocation.getArgs(), actions.getMatchArgs())) {
-                matchingStub = actions;
-                break;
+            StubDoActions matchingStub = null;
+
+            for (final StubDoActions actions : list) {
+                if (matchEngine.argsMatch(invocation.getArgs(), actions.getMatchArgs())) {
+                    matchingStub = actions;
+                    break;
+                }
             }
-        }
 
-        if (matchingStub == null) {
-            list.add(new StubDoActions(invocation.getArgs(), action));
-        } else {
-            matchingStub.getActions().add(action);
+            if (matchingStub == null) {
+                final List<StubDoActions> newList = new ArrayList<>(list);
+                newList.add(new StubDoActions(invocation.getArgs(), action));
+                ivars.setDoActions(stubMethod, newList);
+            } else {
+                matchingStub.getActions().add(action);
+            }
         }
     }
 
     // NOTE: This should NOT be used when the arguments come from a monitored
     // invocation (i.e. may contain matchers).
     //
-    // In that case, use #findStubInvocationForMonitoredArgs instead.
+    // In that case, use StubTable#findForMonitoredArgs instead.
     default StubInvocation findStubbingForActualInvocation(final Invocation invocation) {
         if (invocation == null) {
             throw new InvalidMockInvocationException("[BUG] Mock callback to support with no recorded invocation\n"
@@ -163,34 +147,30 @@ public interface ASMMockSupport {
         }
 
         final ASMMockInstanceVars ivars = this.__moxy_asm_ivars();
-        final Map<StubMethod, Deque<StubInvocation>> stubsMap = ivars.getStubsMap();
-        final ASMMoxyMatcherEngine matchEngine = ivars.getEngine().getMatcherEngine();
-        final Deque<StubInvocation> deque = stubsMap.get(
+        final StubTable table = ivars.getStubsMap().get(
                 new StubMethod(invocation.getMethodName(), invocation.getMethodDesc()));
 
-        // Old-fashioned but a tad more efficient...
-        if (deque != null) {
-            for (final StubInvocation stubInvocation : deque) {
-                if (matchEngine.argsMatch(invocation.getArgs(), stubInvocation.getArgs())) {
-                    return stubInvocation;
-                }
-            }
+        if (table != null) {
+            final StubInvocation stubInvocation = table.find(invocation.getArgs(), ivars.getEngine().getMatcherEngine());
+            return stubInvocation != null ? stubInvocation : table.findInSource(invocation.getArgs());
         }
 
         return null;
     }
 
+    // NOTE: The following "...ForInvocation" methods each look at (and possibly
+    // move past) the current stub individually. Generated code doesn't use them,
+    // instead claiming a single stub for each call with #__moxy_asm_claimStubForInvocation
+    // (see the "...ForCurrentInvocation" methods below).
     default void __moxy_asm_popReturnOrThrowForInvocation(final Invocation invocation) {
         final StubInvocation stubInvocation = findStubbingForActualInvocation(invocation);
 
         if (stubInvocation != null) {
-            final Stub nextStub = stubInvocation.getStubs().peek();
+            final Stub nextStub = stubInvocation.peekStub();
             if (nextStub != null &&
-                    (nextStub.getType().equals(StubType.RETURN_OBJECT) || nextStub.getType().equals(StubType.THROW_EXCEPTION)) &&
-                    !nextStub.isRetained() &&
-                    stubInvocation.getStubs().size() > 1) {
+                    (nextStub.getType().equals(StubType.RETURN_OBJECT) || nextStub.getType().equals(StubType.THROW_EXCEPTION))) {
 
-                stubInvocation.getStubs().pop();
+                stubInvocation.popStub(nextStub);
             }
         }
     }
@@ -202,13 +182,12 @@ public interface ASMMockSupport {
         final StubInvocation stubInvocation = findStubbingForActualInvocation(invocation);
 
         if (stubInvocation != null) {
-            final Stub nextStub = stubInvocation.getStubs().peek();
+            final Stub nextStub = stubInvocation.peekStub();
             if (nextStub != null && nextStub.getType().equals(StubType.THROW_EXCEPTION)) {
-                if (forceRetain || nextStub.isRetained() || stubInvocation.getStubs().size() < 2) {
-                    return (Throwable) nextStub.getObject(invocation.getArgs());
-                } else {
-                    return (Throwable) stubInvocation.getStubs().pop().getObject(invocation.getArgs());
+                if (!forceRetain) {
+                    stubInvocation.popStub(nextStub);
                 }
+                return (Throwable) nextStub.getObject(invocation.getArgs());
             } else {
                 return null;
             }
@@ -217,26 +196,21 @@ public interface ASMMockSupport {
         }
     }
 
-    default Object __moxy_asm_getConfiguredDefaultReturnForType(final String className) {
-        return this.__moxy_asm_ivars().getEngine().getDefaultReturn(className);
-    }
-
     default Object __moxy_asm_getReturnableForInvocation(final Invocation invocation, final boolean forceRetain) {
         final StubInvocation stubInvocation = findStubbingForActualInvocation(invocation);
 
         if (stubInvocation != null) {
-            final Stub nextStub = stubInvocation.getStubs().peek();
+            final Stub nextStub = stubInvocation.peekStub();
             if (nextStub != null && nextStub.getType().equals(StubType.RETURN_OBJECT)) {
-                if (forceRetain || nextStub.isRetained() || stubInvocation.getStubs().size() < 2) {
-                    return nextStub.getObject(invocation.getArgs());
-                } else {
-                    return stubInvocation.getStubs().pop().getObject(invocation.getArgs());
+                if (!forceRetain) {
+                    stubInvocation.popStub(nextStub);
                 }
+                return nextStub.getObject(invocation.getArgs());
             } else {
                 return null;
             }
         } else {
-            return __moxy_asm_getConfiguredDefaultReturnForType(Type.getReturnType(invocation.getMethodDesc()).getClassName());
+            return __moxy_asm_ivars().getEngine().getDefaultReturnForMethod(invocation.getMethodDesc());
         }
     }
 
@@ -244,11 +218,9 @@ public interface ASMMockSupport {
         final StubInvocation stubInvocation = findStubbingForActualInvocation(invocation);
 
         if (stubInvocation != null) {
-            final Stub nextStub = stubInvocation.getStubs().peek();
+            final Stub nextStub = stubInvocation.peekStub();
             if (nextStub != null && nextStub.getType().equals(StubType.CALL_SUPER)) {
-                if (!nextStub.isRetained() && stubInvocation.getStubs().size() > 1) {
-                    stubInvocation.getStubs().pop();
-                }
+                stubInvocation.popStub(nextStub);
                 return true;
             } else {
                 return false;
@@ -260,16 +232,12 @@ public interface ASMMockSupport {
 
     default boolean __moxy_asm_shouldDelegateForInvocation(final Invocation invocation) {
         final StubInvocation stubInvocation = findStubbingForActualInvocation(invocation);
-        final ASMMockInstanceVars ivars = __moxy_asm_ivars();
 
         if (stubInvocation != null) {
-            final Stub nextStub = stubInvocation.getStubs().peek();
+            final Stub nextStub = stubInvocation.peekStub();
             if (nextStub != null && nextStub.getType().equals(StubType.DELEGATE)) {
-                if (!nextStub.isRetained() && stubInvocation.getStubs().size() > 1) {
-                    stubInvocation.getStubs().pop();
-                }
-
-                ivars.getStubDelegateCache().set(new CachedDelegate(nextStub, invocation.getArgs()));
+                stubInvocation.popStub(nextStub);
+                __moxy_asm_cacheDelegate(nextStub, invocation);
                 return true;
             } else {
                 return false;
@@ -279,8 +247,36 @@ public interface ASMMockSupport {
         }
     }
 
+    /*
+     * Claims the stub to use for an actual call to a mock method, or returns
+     * null if the invocation isn't stubbed.
+     *
+     * The stub is claimed (atomically moving on the stub chain) the first time
+     * this is called for the invocation, and the same stub is returned thereafter.
+     * So each call sees exactly one stub from the chain, however many threads
+     * are calling, without locking.
+     */
+    default Stub __moxy_asm_claimStubForInvocation(final Invocation invocation) {
+        if (!invocation.isStubClaimed()) {
+            final StubInvocation stubInvocation = findStubbingForActualInvocation(invocation);
+            invocation.setClaimedStub(stubInvocation == null ? null : stubInvocation.claimStub(invocation));
+        }
+
+        return invocation.getClaimedStub();
+    }
+
+    // Cache the delegate - saves two lookups, argsmatch, etc.
+    //
+    // NOTE: This relies on generated code delegating immediately
+    // if shouldDelegateForInvocation is true! It is subsequently
+    // cleared in runCachedDelegate...
+    default void __moxy_asm_cacheDelegate(final Stub delegate, final Invocation invocation) {
+        __moxy_asm_ivars().getEngine().getThreadContext().setCachedDelegate(new CachedDelegate(delegate, invocation.getArgs()));
+    }
+
     default Object __moxy_asm_runCachedDelegate() {
-        final CachedDelegate stubDelegate = __moxy_asm_ivars().getStubDelegateCache().get();
+        final EngineThreadContext context = __moxy_asm_ivars().getEngine().getThreadContext();
+        final CachedDelegate stubDelegate = context.getCachedDelegate();
 
         if (stubDelegate == null) {
             throw new IllegalStateException("[BUG] Attempted to run cached delegate, but cache was empty");
@@ -289,7 +285,7 @@ public interface ASMMockSupport {
         try {
             return stubDelegate.delegate.getObject(stubDelegate.actualArgs);
         } finally {
-            __moxy_asm_ivars().getStubDelegateCache().remove();
+            context.setCachedDelegate(null);
         }
     }
 
@@ -309,13 +305,27 @@ public interface ASMMockSupport {
         //
         // Note that this runs _all_ actions that match the arguments. If using matchers,
         // this could run ones that weren't necessarily intended. This needs to be documented!
-        final List<?> immutableArgs =
-                Collections.unmodifiableList(invocation.getArgs());
-
+        //
+        // Typed actions are handed the args as-is. The immutable view is only
+        // created for the first plain Consumer that matches, so calls that only
+        // run typed actions (or none at all) don't allocate it.
         if (list != null) {
+            final List<Object> args = invocation.getArgs();
+            List<?> immutableArgs = null;
+
             for (final StubDoActions stubDoActions : list) {
-                if (matchEngine.argsMatch(invocation.getArgs(), stubDoActions.getMatchArgs())) {
-                    stubDoActions.getActions().forEach(action -> action.accept(immutableArgs));
+                if (matchEngine.argsMatch(args, stubDoActions.getMatchArgs())) {
+                    for (final Consumer<List<?>> action : stubDoActions.getActions()) {
+                        if (action instanceof StubTypedAction) {
+                            action.accept(args);
+                        } else {
+                            if (immutableArgs == null) {
+                                immutableArgs = Collections.unmodifiableList(args);
+                            }
+
+                            action.accept(immutableArgs);
+                        }
+                    }
                 }
             }
         }
@@ -325,27 +335,35 @@ public interface ASMMockSupport {
      * recorded. It relies on the fact that getLastInvocation will always be the current
      * invocation just prior to throw or return.
      */
-    default void __moxy_asm_popReturnOrThrowForCurrentInvocation() {
-        __moxy_asm_popReturnOrThrowForInvocation(
-                __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation());
-    }
+    default Throwable __moxy_asm_getThrowableForCurrentInvocation() {
+        final Invocation invocation = __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation();
+        final Stub stub = __moxy_asm_claimStubForInvocation(invocation);
 
-    /* This MUST only ever be called from mocked methods AFTER the invocation has been
-     * recorded. It relies on the fact that getLastInvocation will always be the current
-     * invocation just prior to throw or return.
-     */
-    default Throwable __moxy_asm_getThrowableForCurrentInvocation(final boolean forceRetain) {
-        return __moxy_asm_getThrowableForInvocation(
-                __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation(), forceRetain);
+        if (stub != null && stub.getType().equals(StubType.THROW_EXCEPTION)) {
+            return (Throwable) stub.getObject(invocation.getArgs());
+        } else {
+            return null;
+        }
     }
 
     /* This MUST only ever be called from mocked methods AFTER the invocation has been
      * recorded. It relies on the fact that getLastInvocation will always be the current
      * invocation just prior to throw or return.
      */
-    default Object __moxy_asm_getReturnableForCurrentInvocation(final boolean forceRetain) {
-        return __moxy_asm_getReturnableForInvocation(
-                __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation(), forceRetain);
+    default Object __moxy_asm_getReturnableForCurrentInvocation() {
+        final Invocation invocation = __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation();
+        final Stub stub = __moxy_asm_claimStubForInvocation(invocation);
+
+        if (stub == null) {
+            return __moxy_asm_ivars().getEngine().getDefaultReturnForMethod(invocation.getMethodDesc());
+        } else if (stub instanceof StubSequence) {
+            // The value was claimed along with the stub
+            return invocation.getClaimedValue();
+        } else if (stub.getType().equals(StubType.RETURN_OBJECT)) {
+            return stub.getObject(invocation.getArgs());
+        } else {
+            return null;
+        }
     }
 
     /* This MUST only ever be called from mocked methods AFTER the invocation has been
@@ -353,8 +371,10 @@ public interface ASMMockSupport {
      * invocation just prior to throw or return.
      */
     default boolean __moxy_asm_shouldCallSuperForCurrentInvocation() {
-        return __moxy_asm_shouldCallSuperForInvocation(
+        final Stub stub = __moxy_asm_claimStubForInvocation(
                 __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation());
+
+        return stub != null && stub.getType().equals(StubType.CALL_SUPER);
     }
 
     /* This MUST only ever be called from mocked methods AFTER the invocation has been
@@ -362,8 +382,15 @@ public interface ASMMockSupport {
      * invocation just prior to throw or return.
      */
     default boolean __moxy_asm_shouldDelegateForCurrentInvocation() {
-        return __moxy_asm_shouldDelegateForInvocation(
-                __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation());
+        final Invocation invocation = __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation();
+        final Stub stub = __moxy_asm_claimStubForInvocation(invocation);
+
+        if (stub != null && stub.getType().equals(StubType.DELEGATE)) {
+            __moxy_asm_cacheDelegate(stub, invocation);
+            return true;
+        } else {
+            return false;
+        }
     }
 
     /* This MUST only ever be called from mocked methods AFTER the invocation has been
@@ -380,9 +407,40 @@ public interface ASMMockSupport {
      * invocation just prior to throw or return.
      */
     default void __moxy_asm_updateCurrentInvocationReturnThrow(final Object returned, final Throwable threw) {
-        final Invocation invocation = __moxy_asm_ivars().getEngine().getRecorder().getCurrentInvocation();
+        final InvocationRecorder recorder = __moxy_asm_ivars().getEngine().getRecorder();
+        final Invocation invocation = recorder.getCurrentInvocation();
         invocation.setReturned(returned);
         invocation.setThrew(threw);
+
+        if (threw != null) {
+            recorder.invocationThrew(invocation);
+        }
+    }
+
+    /* Called at the end of the preamble of every mock method; the result must be
+     * passed to __moxy_asm_invocationExited however the method returns or throws.
+     */
+    default Object __moxy_asm_invocationEntered() {
+        return __moxy_asm_getRecorder().invocationEntered(__moxy_asm_ivars());
+    }
+
+    default void __moxy_asm_invocationExited(final Object counter) {
+        if (counter != null) {
+            ((ConcurrencyCounter) counter).exit();
+        }
+    }
+
+    /* Called immediately before calling the real (or delegate) method; the result
+     * must be passed to __moxy_asm_realMethodExited when it returns or throws.
+     */
+    default Object __moxy_asm_realMethodEntered() {
+        return __moxy_asm_getRecorder().realMethodEntered();
+    }
+
+    default void __moxy_asm_realMethodExited(final Object timing) {
+        if (timing != null) {
+            __moxy_asm_getRecorder().realMethodExited((InvocationRecorder.RealMethodTiming) timing);
+        }
     }
 
     default boolean __moxy_asm_isMockBehaviourDisabledOnThisThread() {
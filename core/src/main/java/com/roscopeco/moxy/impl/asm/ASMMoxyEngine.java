@@ -39,11 +39,13 @@ import org.objectweb.asm.util.TraceClassVisitor;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Default MoxyEngine implementation.
@@ -66,12 +68,67 @@ public class ASMMoxyEngine implements MoxyEngine {
 
     private static final String UNRECOVERABLE_ERROR = "Unrecoverable Error";
     private static final String CANNOT_MOCK_NULL_CLASS = "Cannot mock null class";
+    private static final DefaultReturnGenerator NULL_DEFAULT_RETURN = () -> null;
 
+    /*
+     * Per-class cache of the MoxyMock marker, so isMock (which is called
+     * on every instantiate and reset) doesn't hit the annotation machinery.
+     */
+    private static final ClassValue<Boolean> MOCK_MARKER_CACHE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            return type.getAnnotation(MoxyMock.class) != null;
+        }
+    };
+
+    /*
+     * Per-class cache of the support ivars field offset, used when
+     * initializing (and resetting) mocks.
+     */
+    private static final ClassValue<Long> IVARS_FIELD_OFFSET_CACHE = new ClassValue<>() {
+        @Override
+        protected Long computeValue(final Class<?> type) {
+            try {
+                return UnsafeUtils.objectFieldOffset(
+                        type.getDeclaredField(TypesAndDescriptors.SUPPORT_IVARS_FIELD_NAME));
+            } catch (final NoSuchFieldException e) {
+                throw new MoxyException("Unrecoverable error: Instantiation exception; see cause", e);
+            }
+        }
+    };
+
+    /*
+     * All per-thread state used by this engine and its recorder, matcher
+     * engine and mocks. See EngineThreadContext.
+     */
     @SuppressWarnings("squid:S5164" /* Tests hopefully aren't using pools... */)
-    private final ThreadLocal<Boolean> threadLocalMockBehaviourDisabled;
+    private final ThreadLocal<EngineThreadContext> threadContext = ThreadLocal.withInitial(EngineThreadContext::new);
     private final InvocationRecorder recorder;
     private final ASMMoxyMatcherEngine matcherEngine;
-    private final Map<String, DefaultReturnGenerator> returnGeneratorMap;
+
+    private final Map<String, DefaultReturnGenerator> returnGeneratorMap = new ConcurrentHashMap<>();
+
+    /*
+     * Default return generators, resolved by method descriptor so that calls
+     * to an unstubbed method don't parse its descriptor or look up its return
+     * type each time. Replaced (rather than cleared) whenever the generators
+     * change, so a resolution racing with the change can only ever be stored
+     * in the discarded map.
+     */
+    private volatile Map<String, DefaultReturnGenerator> resolvedDefaultReturns = new ConcurrentHashMap<>();
+    private volatile StubScheduler stubScheduler = StubScheduler.REAL_TIME;
+
+    /*
+     * Per-class cache of mockable methods. This is per-engine since
+     * it depends on #isMockCandidate. Values are immutable - callers
+     * get a copy from #gatherAllMockableMethods.
+     */
+    private final ClassValue<Map<String, Method>> mockableMethodsCache = new ClassValue<>() {
+        @Override
+        protected Map<String, Method> computeValue(final Class<?> type) {
+            return Collections.unmodifiableMap(ASMMoxyEngine.this.walkAllMockableMethods(type));
+        }
+    };
 
     /**
      * Construct a new instance of the ASMMoxyEngine.
@@ -81,9 +138,6 @@ public class ASMMoxyEngine implements MoxyEngine {
     public ASMMoxyEngine() {
         this.recorder = new InvocationRecorder(this);
         this.matcherEngine = new ASMMoxyMatcherEngine(this);
-        this.threadLocalMockBehaviourDisabled = new ThreadLocal<>();
-        this.threadLocalMockBehaviourDisabled.set(false);
-        this.returnGeneratorMap = new HashMap<>();
 
         this.registerDefaultReturnGenerators();
     }
@@ -91,9 +145,6 @@ public class ASMMoxyEngine implements MoxyEngine {
     ASMMoxyEngine(final InvocationRecorder recorder, final ASMMoxyMatcherEngine matcherEngine) {
         this.recorder = recorder;
         this.matcherEngine = matcherEngine;
-        this.threadLocalMockBehaviourDisabled = new ThreadLocal<>();
-        this.threadLocalMockBehaviourDisabled.set(false);
-        this.returnGeneratorMap = new HashMap<>();
 
         this.registerDefaultReturnGenerators();
     }
@@ -105,28 +156,43 @@ public class ASMMoxyEngine implements MoxyEngine {
         return this.recorder;
     }
 
+    StubScheduler getStubScheduler() {
+        return this.stubScheduler;
+    }
+
     ASMMoxyMatcherEngine getMatcherEngine() {
         return this.matcherEngine;
     }
 
-    Object getDefaultReturn(final String className) {
-        final DefaultReturnGenerator gen = this.returnGeneratorMap.get(className);
+    /*
+     * Obtain the engine context for the current thread.
+     */
+    EngineThreadContext getThreadContext() {
+        return this.threadContext.get();
+    }
+
+    /*
+     * Default return for an unstubbed call to a method, from the generator
+     * for its return type (if any). The generator is resolved once per method
+     * descriptor, until the generators change.
+     */
+    Object getDefaultReturnForMethod(final String methodDesc) {
+        final DefaultReturnGenerator gen = this.resolvedDefaultReturns.computeIfAbsent(methodDesc, desc ->
+                this.returnGeneratorMap.getOrDefault(Type.getReturnType(desc).getClassName(), NULL_DEFAULT_RETURN));
 
-        if (gen != null) {
-            return this.returnGeneratorMap.get(className).generateDefaultReturnValue();
-        } else {
-            return null;
-        }
+        return gen.generateDefaultReturnValue();
     }
 
     @Override
     public void registerDefaultReturnForType(final String type, final DefaultReturnGenerator generator) {
         this.returnGeneratorMap.put(type, generator);
+        this.resolvedDefaultReturns = new ConcurrentHashMap<>();
     }
 
     @Override
     public void removeDefaultReturnForType(final String type) {
         this.returnGeneratorMap.remove(type);
+        this.resolvedDefaultReturns = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -135,8 +201,21 @@ public class ASMMoxyEngine implements MoxyEngine {
         this.registerDefaultReturnGenerators();
     }
 
+    /*
+     * Built-in defaults. Empty Optionals and collections are immutable
+     * singletons, so are shared by every call; streams can only be
+     * consumed once, so each call gets a new (empty) one.
+     */
     private void registerDefaultReturnGenerators() {
         this.registerDefaultReturnForType(Optional.class.getName(), Optional::empty);
+        this.registerDefaultReturnForType(OptionalInt.class.getName(), OptionalInt::empty);
+        this.registerDefaultReturnForType(OptionalLong.class.getName(), OptionalLong::empty);
+        this.registerDefaultReturnForType(OptionalDouble.class.getName(), OptionalDouble::empty);
+        this.registerDefaultReturnForType(Collection.class.getName(), Collections::emptyList);
+        this.registerDefaultReturnForType(List.class.getName(), Collections::emptyList);
+        this.registerDefaultReturnForType(Set.class.getName(), Collections::emptySet);
+        this.registerDefaultReturnForType(Map.class.getName(), Collections::emptyMap);
+        this.registerDefaultReturnForType(Stream.class.getName(), Stream::empty);
     }
 
     /**
@@ -261,7 +340,7 @@ public class ASMMoxyEngine implements MoxyEngine {
 
     @Override
     public boolean isMock(final Class<?> clz) {
-        return clz.getAnnotation(MoxyMock.class) != null;
+        return MOCK_MARKER_CACHE.get(clz);
     }
 
     @Override
@@ -293,9 +372,15 @@ public class ASMMoxyEngine implements MoxyEngine {
     /*
      * Gather all mock-candidate methods on the given class.
      *
-     * Used by both classic and class mock engines.
+     * Used by both classic and class mock engines. The hierarchy is
+     * only walked once per class; the returned map is a mutable copy
+     * since the type visitors remove methods as they generate them.
      */
     Map<String, Method> gatherAllMockableMethods(final Class<?> originalClass) {
+        return new HashMap<>(this.mockableMethodsCache.get(originalClass));
+    }
+
+    private Map<String, Method> walkAllMockableMethods(final Class<?> originalClass) {
         final HashMap<String, Method> methods = new HashMap<>();
 
         Deque<Class<?>> queue = new ArrayDeque<>();
@@ -388,7 +473,7 @@ public class ASMMoxyEngine implements MoxyEngine {
      */
     void startMonitoredInvocation() {
         this.getMatcherEngine().ensureStackConsistency(false);
-        this.threadLocalMockBehaviourDisabled.set(true);
+        this.getThreadContext().setMockBehaviourDisabled(true);
         this.getRecorder().startMonitoredInvocation();
     }
 
@@ -403,14 +488,14 @@ public class ASMMoxyEngine implements MoxyEngine {
      * #runMonitoredInvocation.
      */
     void endMonitoredInvocation(boolean noThrow) {
-        Boolean b = this.threadLocalMockBehaviourDisabled.get();
+        final EngineThreadContext context = this.getThreadContext();
 
-        if (b == null || Boolean.FALSE.equals(b)) {
+        if (!context.isMockBehaviourDisabled()) {
             throw new IllegalStateException("[BUG] Attempt to end an unstarted monitored invocation (in engine)");
         }
 
         this.getRecorder().endMonitoredInvocation();
-        this.threadLocalMockBehaviourDisabled.set(false);
+        context.setMockBehaviourDisabled(false);
 
         // Do this at end to guarantee we've ended the invocation,
         // as it may throw if the stack is inconsistent.
@@ -422,8 +507,7 @@ public class ASMMoxyEngine implements MoxyEngine {
      * current thread.
      */
     boolean isMockStubbingDisabledOnThisThread() {
-        final Boolean disabled = this.threadLocalMockBehaviourDisabled.get();
-        return (disabled != null && disabled);
+        return this.getThreadContext().isMockBehaviourDisabled();
     }
 
     @Override
@@ -432,6 +516,12 @@ public class ASMMoxyEngine implements MoxyEngine {
         return new ASMMoxyStubber<>(this, invocations);
     }
 
+    @Override
+    public <T> MoxyStubTable<T> stubTable(final InvocationSupplier<T> invocation) {
+        final List<Invocation> invocations = this.runMonitoredInvocation(invocation::get);
+        return new ASMMoxyStubTable<>(this, invocations);
+    }
+
     @Override
     public MoxyVoidStubber when(final InvocationRunnable invocation) {
         final List<Invocation> invocations = this.runMonitoredInvocation(invocation::run);
@@ -455,6 +545,44 @@ public class ASMMoxyEngine implements MoxyEngine {
         this.getMatcherEngine().registerMatcher(matcher);
     }
 
+    @Override
+    public void setInvocationTimingEnabled(final boolean enabled) {
+        this.getRecorder().setTimingEnabled(enabled);
+    }
+
+    @Override
+    public InvocationTimings getInvocationTimings(final InvocationRunnable invocation) {
+        return new ASMMoxyVerifier(this, this.runMonitoredInvocation(invocation::run)).getTimings();
+    }
+
+    @Override
+    public void setConcurrencyTrackingEnabled(final boolean enabled) {
+        this.getRecorder().setConcurrencyTrackingEnabled(enabled);
+    }
+
+    @Override
+    public VirtualClock useVirtualClock() {
+        final ASMVirtualClock clock = new ASMVirtualClock();
+        this.stubScheduler = clock;
+        return clock;
+    }
+
+    @Override
+    public void useRealClock() {
+        this.stubScheduler = StubScheduler.REAL_TIME;
+    }
+
+    @Override
+    public MoxyInvocationQuery queryInvocations() {
+        return new ASMMoxyInvocationQuery(this);
+    }
+
+    @Override
+    public Flow.Publisher<RecordedInvocation> getInvocationPublisher(final int bufferCapacity,
+                                                                     final InvocationOverflowPolicy overflowPolicy) {
+        return this.getRecorder().getPublisher().publisher(bufferCapacity, overflowPolicy);
+    }
+
     /*
      * Instantiate a mock of the given mock class without
      * calling a constructor.
@@ -489,9 +617,23 @@ public class ASMMoxyEngine implements MoxyEngine {
     @SuppressWarnings({"unchecked"})
     <T> T initializeMock(final Class<? extends T> mockClass, final Object mock) {
         try {
-            final Field ivarsField = mockClass.getDeclaredField(TypesAndDescriptors.SUPPORT_IVARS_FIELD_NAME);
-            UnsafeUtils.putObject(mock, UnsafeUtils.objectFieldOffset(ivarsField), new ASMMockInstanceVars(this));
+            final ASMMockInstanceVars ivars;
+            final ASMMockInstanceVars oldIvars = mock instanceof ASMMockSupport
+                    ? ((ASMMockSupport) mock).__moxy_asm_ivars()
+                    : null;
+
+            if (oldIvars == null) {
+                ivars = new ASMMockInstanceVars(this);
+            } else {
+                ivars = new ASMMockInstanceVars(this,
+                        oldIvars.getInvocationIndex(),
+                        oldIvars.getConcurrencyCounters());
+            }
+
+            UnsafeUtils.putObject(mock, IVARS_FIELD_OFFSET_CACHE.get(mockClass), ivars);
             return (T) mock;
+        } catch (final MoxyException e) {
+            throw e;
         } catch (final Exception e) {
             throw new MoxyException("Unrecoverable error: Instantiation exception; see cause", e);
         }
@@ -0,0 +1,151 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.InvalidMockInvocationException;
+import com.roscopeco.moxy.api.InvocationRunnable;
+import com.roscopeco.moxy.api.MoxyInvocationQuery;
+import com.roscopeco.moxy.api.RecordedInvocation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Filters are accumulated as a single predicate over Invocation, and
+ * applied to a snapshot of the recorder's history when the query is
+ * evaluated. The snapshot is an ArrayList, so parallel streams split
+ * it evenly across the fork/join pool.
+ *
+ * Matching invocations are returned as read-only views (never the
+ * recorder's own invocations), and user-supplied predicates are applied
+ * to those views.
+ *
+ * Where the query matches a single monitored invocation, the snapshot
+ * is taken from the recorder's per-mock index rather than the full history.
+ */
+class ASMMoxyInvocationQuery implements MoxyInvocationQuery {
+    private final ASMMoxyEngine engine;
+
+    private Predicate<Invocation> filter = invocation -> true;
+    private Predicate<RecordedInvocation> recordedFilter;
+    private Invocation indexedInvocation;
+    private boolean parallel;
+
+    ASMMoxyInvocationQuery(final ASMMoxyEngine engine) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Cannot construct with null engine");
+        }
+
+        this.engine = engine;
+    }
+
+    @Override
+    public MoxyInvocationQuery onMock(final Object mock) {
+        return this.and(invocation -> invocation.getReceiver() == mock);     // identity is intentional!
+    }
+
+    @Override
+    public MoxyInvocationQuery matching(final InvocationRunnable invocation) {
+        final List<Invocation> monitored = this.engine.runMonitoredInvocation(invocation::run);
+        final ASMMoxyMatcherEngine matcherEngine = this.engine.getMatcherEngine();
+
+        if (monitored.isEmpty() || monitored.stream().anyMatch(i -> i.getReceiver() == null)) {
+            throw new InvalidMockInvocationException("No mock invocation found");
+        }
+
+        if (monitored.size() == 1 && this.indexedInvocation == null) {
+            this.indexedInvocation = monitored.get(0);
+        }
+
+        return this.and(recorded -> VerifierHelpers.matchesAny(matcherEngine, monitored, recorded));
+    }
+
+    @Override
+    public MoxyInvocationQuery withMethodName(final String methodName) {
+        return this.and(invocation -> invocation.getMethodName().equals(methodName));
+    }
+
+    @Override
+    public MoxyInvocationQuery filter(final Predicate<? super RecordedInvocation> predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("Cannot filter with null predicate");
+        }
+
+        this.recordedFilter = this.recordedFilter == null
+                ? predicate::test
+                : this.recordedFilter.and(predicate);
+
+        return this;
+    }
+
+    @Override
+    public MoxyInvocationQuery parallel() {
+        this.parallel = true;
+        return this;
+    }
+
+    @Override
+    public Stream<RecordedInvocation> stream() {
+        final InvocationRecorder recorder = this.engine.getRecorder();
+        final List<Invocation> snapshot = this.indexedInvocation == null
+                ? recorder.getInvocationList()
+                : recorder.getInvocationList(this.indexedInvocation.getReceiver(),
+                                             this.indexedInvocation.getMethodName(),
+                                             this.indexedInvocation.getMethodDesc());
+
+        final Stream<Invocation> stream = this.parallel ? snapshot.parallelStream() : snapshot.stream();
+        final Stream<RecordedInvocation> views = stream.filter(this.filter).map(RecordedInvocationView::new);
+
+        return this.recordedFilter == null ? views : views.filter(this.recordedFilter);
+    }
+
+    @Override
+    public List<RecordedInvocation> list() {
+        return Collections.unmodifiableList(this.stream().collect(Collectors.toList()));
+    }
+
+    @Override
+    public long count() {
+        return this.stream().count();
+    }
+
+    @Override
+    public <K> Map<K, Long> countBy(final Function<? super RecordedInvocation, ? extends K> classifier) {
+        if (classifier == null) {
+            throw new IllegalArgumentException("Cannot group by null classifier");
+        }
+
+        return this.stream().collect(Collectors.groupingBy(classifier, Collectors.counting()));
+    }
+
+    private MoxyInvocationQuery and(final Predicate<Invocation> predicate) {
+        this.filter = this.filter.and(predicate);
+        return this;
+    }
+}
@@ -40,22 +40,12 @@ class ASMMoxyMatcherEngine {
         this.engine = engine;
     }
 
-    @SuppressWarnings("squid:S5164" /* Tests hopefully aren't using pools... */)
-    private ThreadLocal<ArrayDeque<MoxyMatcher<?>>> matcherStack = new ThreadLocal<>();
-
     private ASMMoxyEngine getASMMoxyEngine() {
         return this.engine;
     }
 
     private ArrayDeque<MoxyMatcher<?>> ensureMatcherStack() {
-        ArrayDeque<MoxyMatcher<?>> stack = this.matcherStack.get();
-
-        if (stack == null) {
-            stack = new ArrayDeque<>();
-            this.matcherStack.set(stack);
-        }
-
-        return stack;
+        return this.getASMMoxyEngine().getThreadContext().ensureMatcherStack();
     }
 
     ArrayDeque<MoxyMatcher<?>> getMatcherStack() {
@@ -93,40 +83,86 @@ class ASMMoxyMatcherEngine {
         }
     }
 
+    /*
+     * Arguments given as plain values are compared first, then matchers are
+     * called cheapest first (by MoxyMatcher#cost), stopping at the first
+     * mismatch - so an expensive matcher is only called once every cheaper
+     * argument has matched.
+     */
     // suppress because we check manually
     @SuppressWarnings("unchecked")
     boolean argsMatch(final List<Object> actualArgs, final List<Object> storedArgs) {
-        if (storedArgs.size() != actualArgs.size()) {
+        final int size = storedArgs.size();
+
+        if (size != actualArgs.size()) {
             return false;
         }
 
-        boolean result = true;
+        int matcherCount = 0;
 
-        for (int i = 0; i < storedArgs.size(); i++) {
+        for (int i = 0; i < size; i++) {
             final Object stored = storedArgs.get(i);
-            final Object actual = actualArgs.get(i);
 
             if (stored instanceof MoxyMatcher) {
-                final MoxyMatcher<Object> matcher = (MoxyMatcher<Object>) stored;
-                if (!matcher.matches(actual)) {
-                    result = false;
+                matcherCount++;
+            } else if (!valueMatches(stored, actualArgs.get(i))) {
+                return false;
+            }
+        }
+
+        if (matcherCount < 2 || size > Long.SIZE) {
+            // No ordering needed (or too many args to track in a mask; just go in order)
+            for (int i = 0; i < size; i++) {
+                final Object stored = storedArgs.get(i);
+
+                if (stored instanceof MoxyMatcher && !((MoxyMatcher<Object>) stored).matches(actualArgs.get(i))) {
+                    return false;
                 }
-            } else {
-                if (stored == null) {
-                    result = actual == null;
-                } else {
-                    if (!stored.equals(actual)) {
-                        result = false;
+            }
+
+            return true;
+        }
+
+        // Selection by cost, rather than sorting, so matching allocates nothing.
+        long matched = 0;
+
+        for (int n = 0; n < matcherCount; n++) {
+            int next = -1;
+            int nextCost = Integer.MAX_VALUE;
+
+            for (int i = 0; i < size; i++) {
+                final Object stored = storedArgs.get(i);
+
+                if (stored instanceof MoxyMatcher && (matched & (1L << i)) == 0) {
+                    final int cost = ((MoxyMatcher<?>) stored).cost();
+
+                    if (next == -1 || cost < nextCost) {
+                        next = i;
+                        nextCost = cost;
                     }
                 }
             }
+
+            matched |= 1L << next;
+
+            if (!((MoxyMatcher<Object>) storedArgs.get(next)).matches(actualArgs.get(next))) {
+                return false;
+            }
         }
 
-        return result;
+        return true;
+    }
+
+    private static boolean valueMatches(final Object stored, final Object actual) {
+        if (stored == null) {
+            return actual == null;
+        } else {
+            return stored.equals(actual);
+        }
     }
 
     private boolean clearMatcherStack() {
-        final ArrayDeque<MoxyMatcher<?>> stack = this.matcherStack.get();
+        final ArrayDeque<MoxyMatcher<?>> stack = this.getASMMoxyEngine().getThreadContext().getMatcherStack();
         if (stack != null && !stack.isEmpty()) {
             // clear stack as per contract of InconsistentMatchersException
             stack.clear();
@@ -145,7 +181,7 @@ class ASMMoxyMatcherEngine {
         final boolean inconsistentStack = this.clearMatcherStack();
 
         if (inconsistentStack && !noThrow) {
-            throw new InconsistentMatchersException(0, this.matcherStack.get());
+            throw new InconsistentMatchersException(0, this.ensureMatcherStack());
         }
     }
 }
@@ -27,10 +27,7 @@ import com.roscopeco.moxy.api.MoxyMultiVerifier;
 import org.opentest4j.AssertionFailedError;
 import org.opentest4j.MultipleFailuresError;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
 import java.util.function.LongPredicate;
 
 class ASMMoxyMultiVerifier extends AbstractASMMoxyInvocationListProcessor implements MoxyMultiVerifier {
@@ -40,8 +37,45 @@ class ASMMoxyMultiVerifier extends AbstractASMMoxyInvocationListProcessor implem
         super(engine, Collections.unmodifiableList(invocations));
     }
 
-    private long getCallCount(final Invocation invocation, final List<Invocation> actualInvocations) {
-        return VerifierHelpers.getCallCount(this.getEngine().getMatcherEngine(), invocation, actualInvocations);
+    /*
+     * Count the calls for all monitored invocations. Monitored invocations
+     * are bucketed by receiver and method, and each bucket is counted in
+     * one pass over that receiver's invocations of that method, rather than
+     * scanning the whole ordered list once per monitored invocation.
+     *
+     * Counts are returned in the same order as the monitored invocations.
+     */
+    private long[] getCallCounts(final List<Invocation> monitoredInvocations) {
+        final Map<Object, Map<String, List<Integer>>> buckets = new IdentityHashMap<>();
+
+        for (int i = 0; i < monitoredInvocations.size(); i++) {
+            final Invocation monitored = monitoredInvocations.get(i);
+
+            buckets.computeIfAbsent(monitored.getReceiver(), k -> new LinkedHashMap<>())
+                    .computeIfAbsent(monitored.getMethodName() + monitored.getMethodDesc(), k -> new ArrayList<>())
+                    .add(i);
+        }
+
+        final long[] callCounts = new long[monitoredInvocations.size()];
+
+        buckets.values().forEach(methods -> methods.values().forEach(indices -> {
+            final List<Invocation> bucket = new ArrayList<>(indices.size());
+            indices.forEach(i -> bucket.add(monitoredInvocations.get(i)));
+
+            final Invocation first = bucket.get(0);
+            final long[] bucketCounts = VerifierHelpers.getCallCounts(
+                    this.getEngine().getMatcherEngine(),
+                    bucket,
+                    this.getRecorder().getInvocationList(first.getReceiver(),
+                            first.getMethodName(),
+                            first.getMethodDesc()));
+
+            for (int i = 0; i < bucketCounts.length; i++) {
+                callCounts[indices.get(i)] = bucketCounts[i];
+            }
+        }));
+
+        return callCounts;
     }
 
     /*
@@ -53,17 +87,17 @@ class ASMMoxyMultiVerifier extends AbstractASMMoxyInvocationListProcessor implem
         // This flag is used later if ordering is checked, to provide a sensible failure message...
         this.allCalledChecked = true;
 
-        final List<Invocation> actualInvocations = new LinkedList<>(this.getRecorder().getInvocationList());
-        final List<AssertionFailedError> errors = new ArrayList<>(actualInvocations.size());
+        final List<Invocation> monitoredInvocations = this.getMonitoredInvocations();
+        final long[] callCounts = this.getCallCounts(monitoredInvocations);
+        final List<AssertionFailedError> errors = new ArrayList<>();
 
-        this.getMonitoredInvocations().forEach(monitored -> {
-            final long callCount = this.getCallCount(monitored, actualInvocations);
-
-            if (!passCondition.test(callCount)) {
+        for (int i = 0; i < callCounts.length; i++) {
+            if (!passCondition.test(callCounts[i])) {
                 errors.add(new AssertionFailedError(
-                        VerifierHelpers.makeExpectedCountMismatchMessage(monitored, expectedTimes, callCount, comparison)));
+                        VerifierHelpers.makeExpectedCountMismatchMessage(
+                                monitoredInvocations.get(i), expectedTimes, callCounts[i], comparison)));
             }
-        });
+        }
 
         if (errors.size() == 1) {
             throw errors.get(0);
@@ -121,17 +155,16 @@ class ASMMoxyMultiVerifier extends AbstractASMMoxyInvocationListProcessor implem
 
     @Override
     public void inThatOrder() {
-        VerifierHelpers.testOrderedMatch(this.getEngine().getMatcherEngine(),
-                this.getEngine().getRecorder().getInvocationList(),
+        VerifierHelpers.testIndexedOrderedMatch(this.getEngine().getMatcherEngine(),
+                this.getEngine().getRecorder(),
                 this.getMonitoredInvocations(),
-                false,
                 this.allCalledChecked);
     }
 
     @Override
     public void exclusivelyInThatOrder() {
         VerifierHelpers.testOrderedMatch(this.getEngine().getMatcherEngine(),
-                this.getEngine().getRecorder().getInvocationList(),
+                this.getEngine().getRecorder().getInvocations(),
                 this.getMonitoredInvocations(),
                 true,
                 this.allCalledChecked);
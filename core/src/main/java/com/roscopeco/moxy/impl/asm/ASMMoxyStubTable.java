@@ -0,0 +1,164 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.MoxyStubSource;
+import com.roscopeco.moxy.api.MoxyStubTable;
+import com.roscopeco.moxy.impl.asm.stubs.*;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/*
+ * Installs rows directly into the mock's StubTable for the method, taking
+ * the ivars lock once per call rather than going through a monitored
+ * invocation (and removal of prior stubbing) per row.
+ */
+class ASMMoxyStubTable<T> extends AbstractASMMoxyInvocationListProcessor implements MoxyStubTable<T> {
+    private final ASMMockInstanceVars ivars;
+    private final StubMethod stubMethod;
+    private final int argumentCount;
+
+    ASMMoxyStubTable(final ASMMoxyEngine engine, final List<Invocation> invocations) {
+        super(engine, Collections.unmodifiableList(invocations));
+
+        final Invocation invocation = this.getLastMonitoredInvocation();
+
+        this.ivars = ((ASMMockSupport) invocation.getReceiver()).__moxy_asm_ivars();
+        this.stubMethod = new StubMethod(invocation.getMethodName(), invocation.getMethodDesc());
+        this.argumentCount = Type.getArgumentTypes(invocation.getMethodDesc()).length;
+    }
+
+    @Override
+    public MoxyStubTable<T> row(final List<?> args, final T value) {
+        this.installRows(Stream.of(new Row(args, new StubReturn(value, false))));
+        return this;
+    }
+
+    @Override
+    public MoxyStubTable<T> rowAnswer(final List<?> args, final Function<List<?>, T> answer) {
+        if (answer == null) {
+            throw new IllegalArgumentException("Cannot stub with null answer");
+        }
+
+        this.installRows(Stream.of(new Row(args, new StubAnswer(answer, false))));
+        return this;
+    }
+
+    @Override
+    public MoxyStubTable<T> rows(final Map<?, ? extends T> rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("Cannot stub with null rows");
+        }
+
+        if (this.argumentCount != 1) {
+            throw new IllegalArgumentException(this.makeArgumentCountMessage(1));
+        }
+
+        this.installRows(rows.entrySet().stream()
+                .map(entry -> new Row(Collections.singletonList(entry.getKey()), new StubReturn(entry.getValue(), false))));
+
+        return this;
+    }
+
+    @Override
+    public MoxyStubTable<T> rows(final Stream<? extends Map.Entry<? extends List<?>, ? extends T>> rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("Cannot stub with null rows");
+        }
+
+        this.installRows(rows.map(entry -> new Row(entry.getKey(), new StubReturn(entry.getValue(), false))));
+
+        return this;
+    }
+
+    @Override
+    public MoxyStubTable<T> source(final MoxyStubSource<? extends T> source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Cannot stub with null source");
+        }
+
+        synchronized (this.ivars) {
+            this.ivars.ensureStubTable(this.stubMethod).setSource(source);
+        }
+
+        return this;
+    }
+
+    private static final class Row {
+        private final List<?> args;
+        private final Stub stub;
+
+        private Row(final List<?> args, final Stub stub) {
+            this.args = args;
+            this.stub = stub;
+        }
+    }
+
+    /*
+     * Rows are validated before any is installed, so a bad row leaves
+     * the existing stubbing untouched.
+     */
+    private void installRows(final Stream<Row> rows) {
+        final List<Row> validated = new ArrayList<>();
+
+        rows.forEach(row -> {
+            if (row.args == null) {
+                throw new IllegalArgumentException("Cannot stub with null arguments");
+            }
+
+            if (row.args.size() != this.argumentCount) {
+                throw new IllegalArgumentException(this.makeArgumentCountMessage(row.args.size()));
+            }
+
+            validated.add(row);
+        });
+
+        final ASMMoxyMatcherEngine matchEngine = this.getEngine().getMatcherEngine();
+
+        synchronized (this.ivars) {
+            final StubTable table = this.ivars.ensureStubTable(this.stubMethod);
+
+            for (final Row row : validated) {
+                final List<Object> args = new ArrayList<>(row.args);
+                final StubInvocation stubInvocation = new StubInvocation(args);
+                stubInvocation.addStub(row.stub);
+
+                table.removeMatching(args, matchEngine);
+                table.add(stubInvocation);
+            }
+        }
+    }
+
+    private String makeArgumentCountMessage(final int actual) {
+        return "Cannot stub "
+                + TypeStringUtils.javaMethodSignature(this.getLastMonitoredInvocation())
+                + " with " + actual + " argument(s) - it takes " + this.argumentCount;
+    }
+}
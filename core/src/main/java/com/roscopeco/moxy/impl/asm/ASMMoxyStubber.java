@@ -23,14 +23,18 @@
  */
 package com.roscopeco.moxy.impl.asm;
 
-import com.roscopeco.moxy.api.MoxyStubber;
+import com.roscopeco.moxy.api.*;
 import com.roscopeco.moxy.impl.asm.stubs.*;
 
 import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 class ASMMoxyStubber<T> extends AbstractASMMoxyInvocationListProcessor implements MoxyStubber<T> {
     ASMMoxyStubber(final ASMMoxyEngine engine, final List<Invocation> invocations) {
@@ -82,6 +86,134 @@ class ASMMoxyStubber<T> extends AbstractASMMoxyInvocationListProcessor implement
         return this;
     }
 
+    @Override
+    public <A> MoxyStubber<T> thenAnswerWith(final Answer1<A, T> answer) {
+        return this.thenAnswerWith(answer, 1, StubberHelpers.answerFunction(answer));
+    }
+
+    @Override
+    public <A, B> MoxyStubber<T> thenAnswerWith(final Answer2<A, B, T> answer) {
+        return this.thenAnswerWith(answer, 2, StubberHelpers.answerFunction(answer));
+    }
+
+    @Override
+    public <A, B, C> MoxyStubber<T> thenAnswerWith(final Answer3<A, B, C, T> answer) {
+        return this.thenAnswerWith(answer, 3, StubberHelpers.answerFunction(answer));
+    }
+
+    @Override
+    public <A, B, C, D> MoxyStubber<T> thenAnswerWith(final Answer4<A, B, C, D, T> answer) {
+        return this.thenAnswerWith(answer, 4, StubberHelpers.answerFunction(answer));
+    }
+
+    private MoxyStubber<T> thenAnswerWith(final Object answer, final int argumentCount,
+                                          final Function<List<?>, T> function) {
+        if (answer == null) {
+            throw new IllegalArgumentException("Cannot stub with null answer");
+        }
+
+        StubberHelpers.checkArgumentCount(this.getLastMonitoredInvocation(), argumentCount, "an answer");
+
+        return this.thenAnswer(function);
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnEach(final Iterator<? extends T> values, final ExhaustionPolicy policy) {
+        if (values == null) {
+            throw new IllegalArgumentException("Cannot stub with null values");
+        }
+
+        if (policy == null) {
+            throw new IllegalArgumentException("Cannot stub with null exhaustion policy");
+        }
+
+        final Invocation invocation = this.getLastMonitoredInvocation();
+        final ASMMockSupport receiver = (ASMMockSupport) invocation.getReceiver();
+
+        receiver.__moxy_asm_setStubbing(invocation, new StubSequence(values, policy));
+
+        return this;
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnEach(final Iterator<? extends T> values) {
+        return this.thenReturnEach(values, ExhaustionPolicy.NEXT_STUB);
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnEach(final Iterable<? extends T> values, final ExhaustionPolicy policy) {
+        if (values == null) {
+            throw new IllegalArgumentException("Cannot stub with null values");
+        }
+
+        return this.thenReturnEach(values.iterator(), policy);
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnEach(final Iterable<? extends T> values) {
+        return this.thenReturnEach(values, ExhaustionPolicy.NEXT_STUB);
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnEach(final Stream<? extends T> values, final ExhaustionPolicy policy) {
+        if (values == null) {
+            throw new IllegalArgumentException("Cannot stub with null values");
+        }
+
+        return this.thenReturnEach(values.iterator(), policy);
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnEach(final Stream<? extends T> values) {
+        return this.thenReturnEach(values, ExhaustionPolicy.NEXT_STUB);
+    }
+
+    @Override
+    public MoxyStubber<T> thenReturnAfter(final Duration delay, final Object value) {
+        return this.thenCompleteAfter(delay, future -> future.complete(value));
+    }
+
+    @Override
+    public MoxyStubber<T> thenThrowAfter(final Duration delay, final Throwable throwable) {
+        if (throwable == null) {
+            throw new IllegalArgumentException("Cannot stub with null throwable");
+        }
+
+        return this.thenCompleteAfter(delay, future -> future.completeExceptionally(throwable));
+    }
+
+    /*
+     * Stubs with an answer that returns a new future, and schedules
+     * its completion (with the engine's current scheduler) after the delay.
+     */
+    private MoxyStubber<T> thenCompleteAfter(final Duration delay,
+                                             final Consumer<CompletableFuture<Object>> completion) {
+        if (delay == null || delay.isNegative()) {
+            throw new IllegalArgumentException("Cannot stub with null or negative delay");
+        }
+
+        final Invocation invocation = this.getLastMonitoredInvocation();
+        final ASMMockSupport receiver = (ASMMockSupport) invocation.getReceiver();
+
+        if (!StubberHelpers.canReturnCompletableFuture(invocation.getMethodDesc())) {
+            throw new IllegalArgumentException(
+                    "Cannot stub "
+                            + TypeStringUtils.javaMethodSignature(invocation)
+                            + " to complete after a delay - it cannot return a CompletableFuture");
+        }
+
+        final long delayNanos = delay.toNanos();
+        final ASMMoxyEngine engine = this.getEngine();
+
+        receiver.__moxy_asm_setStubbing(invocation, new StubAnswer(args -> {
+            final CompletableFuture<Object> future = new CompletableFuture<>();
+            engine.getStubScheduler().schedule(delayNanos, () -> completion.accept(future));
+            return future;
+        }, false));
+
+        return this;
+    }
+
     @Override
     public MoxyStubber<T> thenDelegateTo(final Object delegate) {
         if (delegate == null) {
@@ -119,4 +251,35 @@ class ASMMoxyStubber<T> extends AbstractASMMoxyInvocationListProcessor implement
 
         return this;
     }
+
+    @Override
+    public <A> MoxyStubber<T> thenDoWith(final Action1<A> action) {
+        return this.thenDoWith(action, 1, StubberHelpers.actionConsumer(action));
+    }
+
+    @Override
+    public <A, B> MoxyStubber<T> thenDoWith(final Action2<A, B> action) {
+        return this.thenDoWith(action, 2, StubberHelpers.actionConsumer(action));
+    }
+
+    @Override
+    public <A, B, C> MoxyStubber<T> thenDoWith(final Action3<A, B, C> action) {
+        return this.thenDoWith(action, 3, StubberHelpers.actionConsumer(action));
+    }
+
+    @Override
+    public <A, B, C, D> MoxyStubber<T> thenDoWith(final Action4<A, B, C, D> action) {
+        return this.thenDoWith(action, 4, StubberHelpers.actionConsumer(action));
+    }
+
+    private MoxyStubber<T> thenDoWith(final Object action, final int argumentCount,
+                                      final StubTypedAction consumer) {
+        if (action == null) {
+            throw new IllegalArgumentException("Cannot stub with null action");
+        }
+
+        StubberHelpers.checkArgumentCount(this.getLastMonitoredInvocation(), argumentCount, "an action");
+
+        return this.thenDo(consumer);
+    }
 }
@@ -26,11 +26,19 @@ package com.roscopeco.moxy.impl.asm;
 import com.roscopeco.moxy.api.MoxyVerifier;
 import org.opentest4j.AssertionFailedError;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
 
 class ASMMoxyVerifier extends AbstractASMMoxyInvocationListProcessor implements MoxyVerifier {
+    /*
+     * Call counts are kept incrementally, so verifiers that are
+     * held and re-checked (e.g. when polling) only examine new
+     * invocations each time.
+     */
+    private final InvocationCursor callCountCursor = new InvocationCursor();
+
     ASMMoxyVerifier(final ASMMoxyEngine engine, final List<Invocation> invocations) {
         super(engine, Collections.unmodifiableList(invocations));
     }
@@ -38,19 +46,8 @@ class ASMMoxyVerifier extends AbstractASMMoxyInvocationListProcessor implements
     @Override
     public MoxyVerifier wasCalled() {
         final Invocation invocation = this.getLastMonitoredInvocation();
-        final String methodName = invocation.getMethodName();
-        final String methodDesc = invocation.getMethodDesc();
 
-        if (this.getEngine()
-                .getRecorder()
-                .getInvocationList(invocation.getReceiver().getClass(),
-                        methodName,
-                        methodDesc)
-                .stream()
-                .anyMatch(e -> this.getEngine()
-                        .getMatcherEngine()
-                        .argsMatch(e.getArgs(), invocation.getArgs())
-                )) {
+        if (this.getCallCount(invocation) > 0) {
             return this;
         } else {
             throw new AssertionFailedError(
@@ -67,11 +64,8 @@ class ASMMoxyVerifier extends AbstractASMMoxyInvocationListProcessor implements
         return VerifierHelpers.getCallCount(
                 this.getEngine().getMatcherEngine(),
                 invocation,
-                this.getEngine()
-                        .getRecorder()
-                        .getInvocationList(invocation.getReceiver().getClass(),
-                                invocation.getMethodName(),
-                                invocation.getMethodDesc()));
+                this.getEngine().getRecorder(),
+                this.callCountCursor);
     }
 
     @Override
@@ -137,13 +131,151 @@ class ASMMoxyVerifier extends AbstractASMMoxyInvocationListProcessor implements
         }
     }
 
+    @Override
+    public MoxyVerifier wasCalledWithin(final Duration timeout) {
+        return this.awaitCalls(1, timeout);
+    }
+
+    LatencyHistogram getTimings() {
+        final Invocation invocation = this.getLastMonitoredInvocation();
+
+        return this.getRecorder().getTimings(invocation.getReceiver(),
+                invocation.getMethodName(),
+                invocation.getMethodDesc());
+    }
+
+    @Override
+    public MoxyVerifier hadLatencyAtMost(final double percentile, final Duration limit) {
+        if (limit == null) {
+            throw new IllegalArgumentException("Cannot verify latency with null limit");
+        }
+
+        final LatencyHistogram timings = this.getTimings();
+
+        if (timings.getCount() > 0 && timings.getPercentile(percentile).compareTo(limit) <= 0) {
+            return this;
+        } else {
+            throw new AssertionFailedError(
+                    VerifierHelpers.makeLatencyMismatchMessage(this.getLastMonitoredInvocation(),
+                            percentile,
+                            limit,
+                            timings));
+        }
+    }
+
+    @Override
+    public MoxyVerifier hadCallRateAtMost(final long callsPerSecond) {
+        final long peak = this.getTimings().getPeakCallsPerSecond();
+
+        if (peak <= callsPerSecond) {
+            return this;
+        } else {
+            throw new AssertionFailedError(
+                    VerifierHelpers.makeCallRateMismatchMessage(this.getLastMonitoredInvocation(),
+                            callsPerSecond,
+                            peak));
+        }
+    }
+
+    @Override
+    public MoxyVerifier hadMaxConcurrency(final int calls) {
+        final int max = this.getMaxConcurrency();
+
+        if (max == calls) {
+            return this;
+        } else {
+            throw new AssertionFailedError(
+                    VerifierHelpers.makeConcurrencyMismatchMessage(this.getLastMonitoredInvocation(),
+                            StringConsts.EXACTLY,
+                            calls,
+                            max));
+        }
+    }
+
+    @Override
+    public MoxyVerifier hadMaxConcurrencyAtMost(final int calls) {
+        final int max = this.getMaxConcurrency();
+
+        if (max <= calls) {
+            return this;
+        } else {
+            throw new AssertionFailedError(
+                    VerifierHelpers.makeConcurrencyMismatchMessage(this.getLastMonitoredInvocation(),
+                            StringConsts.AT_MOST,
+                            calls,
+                            max));
+        }
+    }
+
+    private int getMaxConcurrency() {
+        final Invocation invocation = this.getLastMonitoredInvocation();
+
+        return this.getRecorder().getMaxConcurrency(invocation.getReceiver(),
+                invocation.getMethodName(),
+                invocation.getMethodDesc());
+    }
+
+    /*
+     * Waits for calls by registering a waiter with the recorder, which is
+     * signalled as soon as a matching invocation is recorded. The waiter
+     * is registered before the first count, so no matching call is missed.
+     */
+    @Override
+    public MoxyVerifier awaitCalls(final int times, final Duration timeout) {
+        if (timeout == null) {
+            throw new IllegalArgumentException("Cannot await calls with null timeout");
+        }
+
+        final Invocation invocation = this.getLastMonitoredInvocation();
+        final InvocationRecorder recorder = this.getEngine().getRecorder();
+        final ASMMoxyMatcherEngine matcherEngine = this.getEngine().getMatcherEngine();
+
+        final InvocationWaiter waiter = new InvocationWaiter(invocation.getReceiver(),
+                invocation.getMethodName(),
+                invocation.getMethodDesc(),
+                e -> matcherEngine.argsMatch(e.getArgs(), invocation.getArgs()));
+
+        final long deadline = System.nanoTime() + timeout.toNanos();
+
+        recorder.registerWaiter(waiter);
+        try {
+            long actual = this.getCallCount(invocation);
+
+            while (actual < times) {
+                final long remaining = deadline - System.nanoTime();
+
+                if (remaining <= 0) {
+                    throw new AssertionFailedError(
+                            VerifierHelpers.makeExpectedCountWithinMismatchMessage(invocation,
+                                    times,
+                                    actual,
+                                    timeout));
+                }
+
+                waiter.await(remaining);
+                actual = this.getCallCount(invocation);
+            }
+
+            return this;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionFailedError(
+                    VerifierHelpers.makeExpectedCountWithinMismatchMessage(invocation,
+                            times,
+                            this.getCallCount(invocation),
+                            timeout) + StringConsts.BUT_WAS_INTERRUPTED, e);
+        } finally {
+            recorder.unregisterWaiter(waiter);
+        }
+    }
+
     private long countExceptionsThrown(final Invocation invocation,
                                       final String methodName,
                                       final String methodDesc,
                                       final Predicate<? super Invocation> filterPredicate) {
         return this.getEngine()
                 .getRecorder()
-                .getInvocationList(invocation.getReceiver().getClass(),
+                .getInvocationList(invocation.getReceiver(),
                         methodName,
                         methodDesc)
                 .stream()
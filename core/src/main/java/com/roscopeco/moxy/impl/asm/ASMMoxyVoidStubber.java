@@ -23,10 +23,11 @@
  */
 package com.roscopeco.moxy.impl.asm;
 
-import com.roscopeco.moxy.api.MoxyVoidStubber;
+import com.roscopeco.moxy.api.*;
 import com.roscopeco.moxy.impl.asm.stubs.StubDelegate;
 import com.roscopeco.moxy.impl.asm.stubs.StubSuper;
 import com.roscopeco.moxy.impl.asm.stubs.StubThrow;
+import com.roscopeco.moxy.impl.asm.stubs.StubTypedAction;
 
 import java.lang.reflect.Method;
 import java.util.List;
@@ -98,4 +99,35 @@ class ASMMoxyVoidStubber extends AbstractASMMoxyInvocationListProcessor implemen
 
         return this;
     }
+
+    @Override
+    public <A> MoxyVoidStubber thenDoWith(final Action1<A> action) {
+        return this.thenDoWith(action, 1, StubberHelpers.actionConsumer(action));
+    }
+
+    @Override
+    public <A, B> MoxyVoidStubber thenDoWith(final Action2<A, B> action) {
+        return this.thenDoWith(action, 2, StubberHelpers.actionConsumer(action));
+    }
+
+    @Override
+    public <A, B, C> MoxyVoidStubber thenDoWith(final Action3<A, B, C> action) {
+        return this.thenDoWith(action, 3, StubberHelpers.actionConsumer(action));
+    }
+
+    @Override
+    public <A, B, C, D> MoxyVoidStubber thenDoWith(final Action4<A, B, C, D> action) {
+        return this.thenDoWith(action, 4, StubberHelpers.actionConsumer(action));
+    }
+
+    private MoxyVoidStubber thenDoWith(final Object action, final int argumentCount,
+                                       final StubTypedAction consumer) {
+        if (action == null) {
+            throw new IllegalArgumentException("Cannot stub with null action");
+        }
+
+        StubberHelpers.checkArgumentCount(this.getLastMonitoredInvocation(), argumentCount, "an action");
+
+        return this.thenDo(consumer);
+    }
 }
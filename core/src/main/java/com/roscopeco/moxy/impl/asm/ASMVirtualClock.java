@@ -0,0 +1,112 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.VirtualClock;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+
+/*
+ * VirtualClock implementation, which queues scheduled tasks until
+ * the clock is advanced past their due time.
+ *
+ * Tasks are run on the advancing thread, outside the lock, so they
+ * may freely schedule further tasks. Tasks due at the same time
+ * run in the order they were scheduled.
+ */
+class ASMVirtualClock implements VirtualClock, StubScheduler {
+    private static final class ScheduledTask implements Comparable<ScheduledTask> {
+        private final long dueNanos;
+        private final long sequence;
+        private final Runnable task;
+
+        private ScheduledTask(final long dueNanos, final long sequence, final Runnable task) {
+            this.dueNanos = dueNanos;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(final ScheduledTask other) {
+            final int result = Long.compare(this.dueNanos, other.dueNanos);
+            return result != 0 ? result : Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    private final PriorityQueue<ScheduledTask> queue = new PriorityQueue<>();
+    private long nowNanos;
+    private long nextSequence;
+
+    @Override
+    public synchronized void schedule(final long delayNanos, final Runnable task) {
+        this.queue.add(new ScheduledTask(this.nowNanos + delayNanos, this.nextSequence++, task));
+    }
+
+    @Override
+    public void advance(final Duration amount) {
+        if (amount == null || amount.isNegative()) {
+            throw new IllegalArgumentException("Cannot advance clock by null or negative amount");
+        }
+
+        final long targetNanos;
+        synchronized (this) {
+            targetNanos = this.nowNanos + amount.toNanos();
+        }
+
+        ScheduledTask next;
+        while ((next = this.pollDue(targetNanos)) != null) {
+            next.task.run();
+        }
+
+        synchronized (this) {
+            this.nowNanos = Math.max(this.nowNanos, targetNanos);
+        }
+    }
+
+    /*
+     * Removes the next task due at or before the target, moving the clock
+     * on to its due time (so tasks it schedules are relative to that).
+     */
+    private synchronized ScheduledTask pollDue(final long targetNanos) {
+        final ScheduledTask next = this.queue.peek();
+
+        if (next == null || next.dueNanos > targetNanos) {
+            return null;
+        }
+
+        this.nowNanos = Math.max(this.nowNanos, next.dueNanos);
+        return this.queue.poll();
+    }
+
+    @Override
+    public synchronized Duration getElapsed() {
+        return Duration.ofNanos(this.nowNanos);
+    }
+
+    @Override
+    public synchronized int getPendingCount() {
+        return this.queue.size();
+    }
+}
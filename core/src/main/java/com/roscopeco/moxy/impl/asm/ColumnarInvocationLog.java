@@ -0,0 +1,314 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/*
+ * An in-memory, struct-of-arrays invocation log, used by the recorder
+ * in columnar history mode.
+ *
+ * Each invocation is a row across a set of growable primitive columns
+ * (sequence, receiver id, method id, thrown id and offset into
+ * the argument pools). Arguments are stored as a tag plus a long value -
+ * primitives by value, and anything else as an index into the reference
+ * pool. Invocation objects (and boxed arguments) are only created when
+ * the log is read, and scans filtered by receiver and method only touch
+ * the id columns for non-matching rows.
+ *
+ * Unlike the spill log, receivers (as well as arguments) are held
+ * strongly, just as they are in the standard history.
+ *
+ * Not thread-safe - guarded by the owning InvocationRecorder's lock.
+ */
+final class ColumnarInvocationLog implements InvocationLog {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_BOOLEAN = 1;
+    private static final byte TAG_BYTE = 2;
+    private static final byte TAG_CHAR = 3;
+    private static final byte TAG_SHORT = 4;
+    private static final byte TAG_INT = 5;
+    private static final byte TAG_LONG = 6;
+    private static final byte TAG_FLOAT = 7;
+    private static final byte TAG_DOUBLE = 8;
+    private static final byte TAG_REFERENCE = 9;
+
+    private final Map<String, Integer> methodIds = new HashMap<>();
+    private final List<String> methodNames = new ArrayList<>();
+    private final List<String> methodDescs = new ArrayList<>();
+
+    // Row columns
+    private long[] sequences = new long[INITIAL_CAPACITY];
+    private int[] receiverIds = new int[INITIAL_CAPACITY];
+    private int[] invokedMethodIds = new int[INITIAL_CAPACITY];
+    private int[] threwIds = new int[INITIAL_CAPACITY];
+    private int[] argOffsets = new int[INITIAL_CAPACITY];
+    private int rows;
+
+    // Argument pools
+    private byte[] argTags = new byte[INITIAL_CAPACITY];
+    private long[] argValues = new long[INITIAL_CAPACITY];
+    private int args;
+
+    private Object[] references = new Object[INITIAL_CAPACITY];
+    private int referenceCount;
+
+    // Replaced (rather than cleared) on reset, so reset is constant-time
+    private Map<Object, Integer> receiverIdMap = new IdentityHashMap<>();
+    private List<Object> receivers = new ArrayList<>();
+    private List<Throwable> throwables = new ArrayList<>();
+
+    @Override
+    public long getEndPosition() {
+        return this.rows;
+    }
+
+    /*
+     * Row and pool arrays are kept, and overwritten as new invocations are
+     * recorded. The reference pool is replaced, so old arguments can be collected.
+     */
+    @Override
+    public void reset() {
+        this.rows = 0;
+        this.args = 0;
+        this.references = new Object[INITIAL_CAPACITY];
+        this.referenceCount = 0;
+        this.receiverIdMap = new IdentityHashMap<>();
+        this.receivers = new ArrayList<>();
+        this.throwables = new ArrayList<>();
+    }
+
+    @Override
+    public long append(final Invocation invocation) {
+        if (this.rows == this.sequences.length) {
+            final int capacity = this.rows * 2;
+            this.sequences = Arrays.copyOf(this.sequences, capacity);
+            this.receiverIds = Arrays.copyOf(this.receiverIds, capacity);
+            this.invokedMethodIds = Arrays.copyOf(this.invokedMethodIds, capacity);
+            this.threwIds = Arrays.copyOf(this.threwIds, capacity);
+            this.argOffsets = Arrays.copyOf(this.argOffsets, capacity);
+        }
+
+        final int row = this.rows;
+        this.sequences[row] = invocation.getSequence();
+        this.receiverIds[row] = this.receiverIdFor(invocation.getReceiver());
+        this.invokedMethodIds[row] = this.methodIdFor(invocation.getMethodName(), invocation.getMethodDesc());
+        this.threwIds[row] = invocation.getThrew() == null ? -1 : this.addThrowable(invocation.getThrew());
+        this.argOffsets[row] = this.args;
+
+        final List<Object> invocationArgs = invocation.getArgs();
+        this.ensureArgCapacity(invocationArgs.size());
+        for (final Object arg : invocationArgs) {
+            this.putArg(arg);
+        }
+
+        this.rows++;
+        return row;
+    }
+
+    @Override
+    public void updateThrew(final long position, final long sequence, final Throwable threw) {
+        if (position < this.rows && this.sequences[(int) position] == sequence) {
+            this.threwIds[(int) position] = this.addThrowable(threw);
+        }
+    }
+
+    @Override
+    public long scan(final long fromPosition,
+                     final Object receiver,
+                     final String methodName,
+                     final String methodDesc,
+                     final Predicate<Invocation> visitor) {
+        if (receiver == null) {
+            for (int row = (int) fromPosition; row < this.rows; row++) {
+                if (!visitor.test(this.decode(row))) {
+                    return row + 1L;
+                }
+            }
+
+            return this.rows;
+        }
+
+        final Integer receiverId = this.receiverIdMap.get(receiver);
+        final Integer methodId = this.methodIds.get(methodName + methodDesc);
+
+        if (receiverId == null || methodId == null) {
+            return this.rows;
+        }
+
+        final int receiverFilter = receiverId;
+        final int methodFilter = methodId;
+
+        for (int row = (int) fromPosition; row < this.rows; row++) {
+            if (this.invokedMethodIds[row] == methodFilter
+                    && this.receiverIds[row] == receiverFilter
+                    && !visitor.test(this.decode(row))) {
+                return row + 1L;
+            }
+        }
+
+        return this.rows;
+    }
+
+    private Invocation decode(final int row) {
+        final int from = this.argOffsets[row];
+        final int to = row + 1 < this.rows ? this.argOffsets[row + 1] : this.args;
+        final ArrayList<Object> decodedArgs = new ArrayList<>(to - from);
+
+        for (int i = from; i < to; i++) {
+            decodedArgs.add(this.getArg(i));
+        }
+
+        final int methodId = this.invokedMethodIds[row];
+        final Invocation invocation = new Invocation(this.receivers.get(this.receiverIds[row]),
+                this.methodNames.get(methodId),
+                this.methodDescs.get(methodId),
+                decodedArgs);
+
+        invocation.setSequence(this.sequences[row]);
+
+        final int threwId = this.threwIds[row];
+        if (threwId >= 0) {
+            invocation.setThrew(this.throwables.get(threwId));
+        }
+
+        return invocation;
+    }
+
+    private void ensureArgCapacity(final int needed) {
+        if (this.args + needed > this.argTags.length) {
+            final int capacity = Math.max(this.argTags.length * 2, this.args + needed);
+            this.argTags = Arrays.copyOf(this.argTags, capacity);
+            this.argValues = Arrays.copyOf(this.argValues, capacity);
+        }
+    }
+
+    private void putArg(final Object arg) {
+        final byte tag;
+        final long value;
+
+        if (arg == null) {
+            tag = TAG_NULL;
+            value = 0;
+        } else if (arg instanceof Boolean) {
+            tag = TAG_BOOLEAN;
+            value = ((Boolean) arg) ? 1 : 0;
+        } else if (arg instanceof Byte) {
+            tag = TAG_BYTE;
+            value = (Byte) arg;
+        } else if (arg instanceof Character) {
+            tag = TAG_CHAR;
+            value = (Character) arg;
+        } else if (arg instanceof Short) {
+            tag = TAG_SHORT;
+            value = (Short) arg;
+        } else if (arg instanceof Integer) {
+            tag = TAG_INT;
+            value = (Integer) arg;
+        } else if (arg instanceof Long) {
+            tag = TAG_LONG;
+            value = (Long) arg;
+        } else if (arg instanceof Float) {
+            tag = TAG_FLOAT;
+            value = Float.floatToRawIntBits((Float) arg);
+        } else if (arg instanceof Double) {
+            tag = TAG_DOUBLE;
+            value = Double.doubleToRawLongBits((Double) arg);
+        } else {
+            tag = TAG_REFERENCE;
+            value = this.addReference(arg);
+        }
+
+        this.argTags[this.args] = tag;
+        this.argValues[this.args] = value;
+        this.args++;
+    }
+
+    private Object getArg(final int index) {
+        final byte tag = this.argTags[index];
+        final long value = this.argValues[index];
+
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_BOOLEAN:
+                return value != 0;
+            case TAG_BYTE:
+                return (byte) value;
+            case TAG_CHAR:
+                return (char) value;
+            case TAG_SHORT:
+                return (short) value;
+            case TAG_INT:
+                return (int) value;
+            case TAG_LONG:
+                return value;
+            case TAG_FLOAT:
+                return Float.intBitsToFloat((int) value);
+            case TAG_DOUBLE:
+                return Double.longBitsToDouble(value);
+            case TAG_REFERENCE:
+                return this.references[(int) value];
+            default:
+                throw new IllegalStateException("[BUG] Corrupt invocation log (unknown tag " + tag + ")");
+        }
+    }
+
+    private int addReference(final Object reference) {
+        if (this.referenceCount == this.references.length) {
+            this.references = Arrays.copyOf(this.references, this.referenceCount * 2);
+        }
+
+        this.references[this.referenceCount] = reference;
+        return this.referenceCount++;
+    }
+
+    private int addThrowable(final Throwable threw) {
+        this.throwables.add(threw);
+        return this.throwables.size() - 1;
+    }
+
+    private int receiverIdFor(final Object receiver) {
+        return this.receiverIdMap.computeIfAbsent(receiver, k -> {
+            this.receivers.add(receiver);
+            return this.receivers.size() - 1;
+        });
+    }
+
+    private int methodIdFor(final String methodName, final String methodDesc) {
+        return this.methodIds.computeIfAbsent(methodName + methodDesc, k -> {
+            this.methodNames.add(methodName);
+            this.methodDescs.add(methodDesc);
+            return this.methodNames.size() - 1;
+        });
+    }
+}
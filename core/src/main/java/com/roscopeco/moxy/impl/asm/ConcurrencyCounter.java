@@ -0,0 +1,64 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Counts in-flight calls to a mock method, and keeps a high-water mark
+ * of concurrent calls. Both are updated lock-free.
+ *
+ * The high-water mark is tagged with the recorder's concurrency epoch
+ * (in its top 32 bits), so resetting the engine discards it lazily
+ * without racing with calls in flight. The in-flight count itself
+ * isn't reset, as calls that started before the reset will still end.
+ */
+final class ConcurrencyCounter {
+    private static final long LOW_BITS = 0xFFFFFFFFL;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong highWater = new AtomicLong();
+
+    void enter(final int epoch) {
+        final long current = this.inFlight.incrementAndGet();
+        final long tag = (long) epoch << 32;
+
+        this.highWater.accumulateAndGet(tag | current, (previous, update) ->
+                (previous & ~LOW_BITS) != tag || (previous & LOW_BITS) < current ? update : previous);
+    }
+
+    void exit() {
+        this.inFlight.decrementAndGet();
+    }
+
+    int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    int getHighWater(final int epoch) {
+        final long value = this.highWater.get();
+        return (value >>> 32) == (epoch & LOW_BITS) ? (int) (value & LOW_BITS) : 0;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.MoxyMatcher;
+import com.roscopeco.moxy.impl.asm.ASMMockInstanceVars.CachedDelegate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/*
+ * Holds all per-thread engine state in a single object.
+ *
+ * Previously the engine, recorder, matcher engine and each individual
+ * mock kept their own ThreadLocals, so a single mocked call touched
+ * several of them (and every mock instance added an entry to every
+ * thread that used it). Everything now hangs off one ThreadLocal per
+ * engine, and the collections are only allocated on threads that
+ * actually stub or verify.
+ *
+ * Instances are only ever accessed from their owning thread, so no
+ * synchronization is needed here.
+ */
+final class EngineThreadContext {
+    private boolean mockBehaviourDisabled;
+    private Invocation currentInvocation;
+    private CachedDelegate cachedDelegate;
+    private ArrayDeque<ArrayList<Invocation>> monitoredInvocationStack;
+    private ArrayDeque<MoxyMatcher<?>> matcherStack;
+
+    boolean isMockBehaviourDisabled() {
+        return this.mockBehaviourDisabled;
+    }
+
+    void setMockBehaviourDisabled(final boolean mockBehaviourDisabled) {
+        this.mockBehaviourDisabled = mockBehaviourDisabled;
+    }
+
+    Invocation getCurrentInvocation() {
+        return this.currentInvocation;
+    }
+
+    void setCurrentInvocation(final Invocation currentInvocation) {
+        this.currentInvocation = currentInvocation;
+    }
+
+    CachedDelegate getCachedDelegate() {
+        return this.cachedDelegate;
+    }
+
+    void setCachedDelegate(final CachedDelegate cachedDelegate) {
+        this.cachedDelegate = cachedDelegate;
+    }
+
+    /*
+     * Returns true if there are any monitored invocations in progress
+     * on this thread. Doesn't allocate the stack if there aren't.
+     */
+    boolean isInMonitoredInvocation() {
+        return this.monitoredInvocationStack != null && !this.monitoredInvocationStack.isEmpty();
+    }
+
+    ArrayDeque<ArrayList<Invocation>> ensureMonitoredInvocationStack() {
+        if (this.monitoredInvocationStack == null) {
+            this.monitoredInvocationStack = new ArrayDeque<>();
+        }
+
+        return this.monitoredInvocationStack;
+    }
+
+    /*
+     * May return null if no matchers have ever been used on this thread.
+     */
+    ArrayDeque<MoxyMatcher<?>> getMatcherStack() {
+        return this.matcherStack;
+    }
+
+    ArrayDeque<MoxyMatcher<?>> ensureMatcherStack() {
+        if (this.matcherStack == null) {
+            this.matcherStack = new ArrayDeque<>();
+        }
+
+        return this.matcherStack;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import java.util.ArrayList;
+
+/*
+ * An invocation list tagged with the recorder epoch it was recorded in.
+ *
+ * When the recorder is reset its epoch moves on, and lists from earlier
+ * epochs are cleared (keeping their storage) the next time they're used.
+ * Instances are guarded by the owning InvocationRecorder's lock.
+ */
+final class EpochInvocationList extends ArrayList<Invocation> {
+    private static final long serialVersionUID = 1L;
+
+    private int epoch;
+
+    EpochInvocationList(final int epoch) {
+        this.epoch = epoch;
+    }
+
+    EpochInvocationList ensureEpoch(final int currentEpoch) {
+        if (this.epoch != currentEpoch) {
+            this.clear();
+            this.epoch = currentEpoch;
+        }
+
+        return this;
+    }
+}
@@ -23,6 +23,8 @@
  */
 package com.roscopeco.moxy.impl.asm;
 
+import com.roscopeco.moxy.impl.asm.stubs.Stub;
+import com.roscopeco.moxy.impl.asm.stubs.StubClaim;
 import com.roscopeco.moxy.api.MoxyException;
 
 import java.util.Collections;
@@ -35,7 +37,7 @@ import java.util.Objects;
  *
  * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
  */
-final class Invocation {
+final class Invocation implements StubClaim {
     private static final List<Object> EMPTY_OBJECT_LIST = Collections.emptyList();
 
     private final Object receiver;
@@ -44,6 +46,15 @@ final class Invocation {
     private final List<Object> args;
     private Object returned;
     private Throwable threw;
+    private long sequence = -1;
+    private long logPosition = -1;
+
+    // The stub claimed for this (actual) invocation, once claimed, and the
+    // value claimed from it if it's a StubSequence.
+    // Only accessed by the invoking thread. See ASMMockSupport.
+    private boolean stubClaimed;
+    private Stub claimedStub;
+    private Object claimedValue;
 
     /**
      * Create a new Invocation with the specified receiver, method and arguments.
@@ -130,6 +141,52 @@ final class Invocation {
         this.threw = threw;
     }
 
+    boolean isStubClaimed() {
+        return this.stubClaimed;
+    }
+
+    Stub getClaimedStub() {
+        return this.claimedStub;
+    }
+
+    void setClaimedStub(final Stub claimedStub) {
+        this.claimedStub = claimedStub;
+        this.stubClaimed = true;
+    }
+
+    Object getClaimedValue() {
+        return this.claimedValue;
+    }
+
+    @Override
+    public void setClaimedValue(final Object claimedValue) {
+        this.claimedValue = claimedValue;
+    }
+
+    /*
+     * The position of this invocation in the recorder's global order,
+     * or -1 if not recorded as a standard invocation.
+     */
+    long getSequence() {
+        return this.sequence;
+    }
+
+    void setSequence(final long sequence) {
+        this.sequence = sequence;
+    }
+
+    /*
+     * The position of this invocation in the recorder's invocation log,
+     * or -1 if not logged.
+     */
+    long getLogPosition() {
+        return this.logPosition;
+    }
+
+    void setLogPosition(final long logPosition) {
+        this.logPosition = logPosition;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(this.receiver, this.methodName, this.methodDesc, this.args);
@@ -0,0 +1,60 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+/*
+ * Remembers how far a verifier has scanned through the invocations of
+ * a single receiver/method, and how many matches it found, so repeated
+ * checks (e.g. when polling) only look at invocations recorded since.
+ *
+ * Only accessed while holding the owning InvocationRecorder's lock.
+ */
+final class InvocationCursor {
+    private int epoch = -1;
+    private long position;
+    private long matchCount;
+
+    int getEpoch() {
+        return this.epoch;
+    }
+
+    long getPosition() {
+        return this.position;
+    }
+
+    long getMatchCount() {
+        return this.matchCount;
+    }
+
+    void advance(final long newPosition, final long newMatches) {
+        this.position = newPosition;
+        this.matchCount += newMatches;
+    }
+
+    void restart(final int newEpoch) {
+        this.epoch = newEpoch;
+        this.position = 0;
+        this.matchCount = 0;
+    }
+}
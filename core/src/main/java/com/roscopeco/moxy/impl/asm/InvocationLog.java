@@ -0,0 +1,67 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import java.util.function.Predicate;
+
+/*
+ * Alternative storage for standard invocations, used by the
+ * InvocationRecorder in place of its per-mock indices and ordered
+ * lists (see SpillInvocationLog and ColumnarInvocationLog).
+ *
+ * Logs store invocations in their own format, and materialise
+ * Invocation objects only as they're read. Positions are opaque,
+ * but increase as invocations are appended.
+ *
+ * Implementations need not be thread-safe - they are guarded by
+ * the owning InvocationRecorder's lock.
+ */
+interface InvocationLog {
+    /*
+     * Append the given (sequenced) invocation, returning its position.
+     */
+    long append(Invocation invocation);
+
+    /*
+     * Record that the invocation at the given position threw. Ignored
+     * if the log has been reset since (i.e. the sequence doesn't match).
+     */
+    void updateThrew(long position, long sequence, Throwable threw);
+
+    /*
+     * Read invocations from the given position, passing each to the visitor
+     * until it returns false. If receiver is non-null, only invocations of the
+     * given method on that receiver are read. Returns the position following
+     * the last invocation read (or the end position, if the visitor never
+     * returned false).
+     */
+    long scan(long fromPosition, Object receiver, String methodName, String methodDesc, Predicate<Invocation> visitor);
+
+    long getEndPosition();
+
+    /*
+     * Discard all invocations, in constant time.
+     */
+    void reset();
+}
@@ -0,0 +1,215 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.InvocationOverflowPolicy;
+import com.roscopeco.moxy.api.RecordedInvocation;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * Publishes recorded invocations to subscribers.
+ *
+ * The recorder offers each standard invocation (while holding its lock);
+ * offering never blocks - each subscription has a bounded buffer, and
+ * invocations are dropped according to the subscription's policy when
+ * it's full. Delivery happens on the executor, never on the mock's thread,
+ * with at most one delivery task running per subscription.
+ *
+ * Subscribers get a read-only view of each invocation, rather than the
+ * recorder's own (mutable) Invocation. See RecordedInvocationView.
+ */
+final class InvocationPublisher {
+    /*
+     * As SubmissionPublisher, use the common pool unless it can't
+     * support parallelism, in which case use a new thread per task.
+     */
+    private static final Executor DEFAULT_EXECUTOR = ForkJoinPool.getCommonPoolParallelism() > 1
+            ? ForkJoinPool.commonPool()
+            : InvocationPublisher::runOnNewThread;
+
+    private final List<InvocationSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Executor executor;
+
+    InvocationPublisher() {
+        this(DEFAULT_EXECUTOR);
+    }
+
+    InvocationPublisher(final Executor executor) {
+        this.executor = executor;
+    }
+
+    private static void runOnNewThread(final Runnable task) {
+        final Thread thread = new Thread(task, "moxy-invocation-publisher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    Flow.Publisher<RecordedInvocation> publisher(final int bufferCapacity,
+                                                 final InvocationOverflowPolicy overflowPolicy) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Buffer capacity must be at least 1");
+        } else if (overflowPolicy == null) {
+            throw new IllegalArgumentException("Cannot publish invocations with null overflow policy");
+        }
+
+        return subscriber -> this.subscribe(subscriber, bufferCapacity, overflowPolicy);
+    }
+
+    private void subscribe(final Flow.Subscriber<? super RecordedInvocation> subscriber,
+                           final int bufferCapacity,
+                           final InvocationOverflowPolicy overflowPolicy) {
+        if (subscriber == null) {
+            throw new NullPointerException("Cannot subscribe null subscriber");
+        }
+
+        final InvocationSubscription subscription =
+                new InvocationSubscription(subscriber, bufferCapacity, overflowPolicy);
+
+        this.subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+    }
+
+    boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    void offer(final Invocation invocation) {
+        final RecordedInvocation published = new RecordedInvocationView(invocation);
+
+        for (final InvocationSubscription subscription : this.subscriptions) {
+            subscription.offer(published);
+        }
+    }
+
+    private final class InvocationSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super RecordedInvocation> subscriber;
+        private final int capacity;
+        private final InvocationOverflowPolicy overflowPolicy;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // Guarded by this
+        private final ArrayDeque<RecordedInvocation> buffer = new ArrayDeque<>();
+        private long demand;
+        private boolean cancelled;
+
+        InvocationSubscription(final Flow.Subscriber<? super RecordedInvocation> subscriber,
+                               final int capacity,
+                               final InvocationOverflowPolicy overflowPolicy) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        void offer(final RecordedInvocation invocation) {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return;
+                }
+
+                if (this.buffer.size() >= this.capacity) {
+                    if (this.overflowPolicy == InvocationOverflowPolicy.DROP_NEWEST) {
+                        return;
+                    }
+
+                    this.buffer.poll();
+                }
+
+                this.buffer.add(invocation);
+            }
+
+            this.scheduleDrain();
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                this.cancel();
+                this.subscriber.onError(
+                        new IllegalArgumentException("Subscription request must be positive (rule 3.9)"));
+                return;
+            }
+
+            synchronized (this) {
+                final long newDemand = this.demand + n;
+                this.demand = newDemand < 0 ? Long.MAX_VALUE : newDemand;
+            }
+
+            this.scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                this.cancelled = true;
+                this.buffer.clear();
+            }
+
+            InvocationPublisher.this.subscriptions.remove(this);
+        }
+
+        private synchronized boolean canDeliver() {
+            return !this.cancelled && this.demand > 0 && !this.buffer.isEmpty();
+        }
+
+        private synchronized RecordedInvocation poll() {
+            if (this.canDeliver()) {
+                this.demand--;
+                return this.buffer.poll();
+            } else {
+                return null;
+            }
+        }
+
+        private void scheduleDrain() {
+            if (this.canDeliver() && this.draining.compareAndSet(false, true)) {
+                InvocationPublisher.this.executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                RecordedInvocation next;
+                while ((next = this.poll()) != null) {
+                    this.subscriber.onNext(next);
+                }
+            } catch (final RuntimeException e) {
+                // Subscriber is broken (rule 2.13) - just cancel.
+                this.cancel();
+            } finally {
+                this.draining.set(false);
+            }
+
+            // Anything that arrived after the last poll, but before
+            // draining was reset, would otherwise be left in the buffer.
+            this.scheduleDrain();
+        }
+    }
+}
@@ -26,7 +26,11 @@ package com.roscopeco.moxy.impl.asm;
 import com.roscopeco.moxy.api.MoxyMatcher;
 import com.roscopeco.moxy.matchers.InconsistentMatchersException;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * <p>Handles recording of invocations.</p>
@@ -44,18 +48,66 @@ import java.util.*;
  * a given class, and to find <strong>all</strong> invocations, in the order they
  * were called.</p>
  *
+ * <p>If the <code>com.roscopeco.moxy.history.weak</code> system property is
+ * <code>true</code> when the engine is created, the recorder keeps its history
+ * of invocations on mocks only for as long as those mocks are reachable, so
+ * mocks (and their history) can be garbage collected before the engine is
+ * reset. This does not apply to class mocks.</p>
+ *
+ * <p>If the <code>com.roscopeco.moxy.history.spill</code> system property is
+ * set when the engine is created, the recorder instead keeps its history of
+ * invocations in memory-mapped files (in a temporary directory under the
+ * directory named by the property, or the default temporary directory if
+ * it is <code>true</code>), so history can grow beyond the size of the heap.
+ * Verification then reads through the files, and so is slower. Arguments
+ * that can't be written to the files (other than primitives and strings) are
+ * still held on the heap.</p>
+ *
+ * <p>If the <code>com.roscopeco.moxy.history.columnar</code> system property is
+ * <code>true</code> (and spill history is not enabled), the recorder keeps its
+ * history in memory, but in compact primitive columns rather than as individual
+ * objects. This reduces the memory (and garbage collection) cost of very large
+ * histories, while still allowing verification to skip quickly over invocations
+ * of other methods.</p>
+ *
  * @author Ross Bamford &lt;roscopeco AT gmail DOT com&gt;
  * @since 1.0
  */
 public class InvocationRecorder {
+    static final String WEAK_HISTORY_PROPERTY = "com.roscopeco.moxy.history.weak";
+    static final String SPILL_HISTORY_PROPERTY = "com.roscopeco.moxy.history.spill";
+    static final String COLUMNAR_HISTORY_PROPERTY = "com.roscopeco.moxy.history.columnar";
+    static final String TIMING_PROPERTY = "com.roscopeco.moxy.timing";
+    static final String CONCURRENCY_PROPERTY = "com.roscopeco.moxy.concurrency";
+
+    /*
+     * Passed from realMethodEntered to realMethodExited (via a local in
+     * the generated method), so nested calls on the same thread are
+     * each timed correctly.
+     */
+    static final class RealMethodTiming {
+        final Invocation invocation;
+        final int epoch;
+        final long startNanos;
+
+        RealMethodTiming(final Invocation invocation, final int epoch, final long startNanos) {
+            this.invocation = invocation;
+            this.epoch = epoch;
+            this.startNanos = startNanos;
+        }
+    }
+
     private final ASMMoxyEngine engine;
 
     /*
-     * This list keeps track of all 'standard' (i.e. unmonitored) invocations,
-     * keyed by mock class, then by method for faster searching in whens and single-invocation
-     * verifiers.
+     * Standard (i.e. unmonitored) invocations are indexed by method on each
+     * mock instance (in its ASMMockInstanceVars), so single-invocation
+     * verifiers only need to look at the history of the mock in question.
+     *
+     * This map is the fallback index (keyed by class, then method) for
+     * receivers that don't carry their own (which shouldn't normally happen).
      */
-    private final HashMap<Class<?>, LinkedHashMap<String, List<Invocation>>> invocationMap;
+    private final HashMap<Class<?>, LinkedHashMap<String, EpochInvocationList>> invocationMap;
 
     /*
      * This list keeps track of all 'standard' (i.e. unmonitored) invocations.
@@ -63,43 +115,125 @@ public class InvocationRecorder {
      *
      * This is used by the multi-invocation verifiers.
      */
-    private final ArrayList<Invocation> standardInvocationsOrderedList;
+    private final EpochInvocationList standardInvocationsOrderedList;
 
     /*
-     * This stores the current invocation, and is valid *only* during invocation
-     * of mocked methods. It is cleared before mocks return.
+     * In weak history mode, this replaces the list above. Invocations are then
+     * only strongly held by the per-mock index in their receiver's instance vars,
+     * so become unreachable along with the mock. References cleared by the GC
+     * are enqueued, and swept from this list the next time it's used.
+     *
+     * Null when not in weak history mode.
      */
-    @SuppressWarnings("squid:S5164" /* False positive: We *do* call remove on this! */)
-    private final ThreadLocal<Invocation> currentInvocationThreadLocal;
+    private final ArrayList<WeakReference<Invocation>> weakInvocationsOrderedList;
+    private final ReferenceQueue<Invocation> collectedInvocations;
+    private int weakInvocationsOrderedListEpoch;
 
     /*
-     * This stack keeps track of monitored invocations. Each time a monitored
-     * invocation is started, a new 'frame' is pushed, and used at the end of
-     * that invocation to retrieve the monitored invocations.
+     * In spill or columnar history mode, standard invocations are only recorded
+     * in this log - neither the per-mock indices nor the ordered lists above are used.
      *
-     * It's a stack in case someone feels the need to nest when/asserts.
+     * Null when not in either mode.
      */
-    @SuppressWarnings("squid:S5164" /* False positive: We *do* call remove on this! */)
-    private final ThreadLocal<ArrayDeque<ArrayList<Invocation>>> monitoredInvocationStackThreadLocal;
+    private final InvocationLog invocationLog;
+
+    /*
+     * The current epoch. Reset just moves this on - lists recorded in
+     * a previous epoch are cleared (and their storage reused) the next
+     * time they're accessed, rather than all at once when resetting.
+     *
+     * Only accessed while holding this recorder's lock.
+     */
+    private int epoch;
+
+    /*
+     * Sequence number for the next standard invocation. Each per-method list
+     * is therefore sorted by sequence, which lets ordered verification binary
+     * search just the relevant lists rather than walking the ordered list.
+     */
+    private long nextSequence;
+
+    /*
+     * Threads waiting in timed verifications, signalled as matching
+     * standard invocations are recorded.
+     */
+    private final List<InvocationWaiter> waiters = new ArrayList<>();
+
+    /*
+     * Publishes standard invocations to any subscribers, as they're recorded.
+     */
+    private final InvocationPublisher publisher = new InvocationPublisher();
+
+    /*
+     * Whether calls to real (or delegate) methods are timed. When they are,
+     * latencies are kept in per-mock, per-method histograms here, which hold
+     * their mocks strongly until reset (regardless of the history mode).
+     *
+     * Replaced on reset; guarded by this recorder's lock.
+     */
+    private volatile boolean timingEnabled = Boolean.getBoolean(TIMING_PROPERTY);
+    private Map<Object, Map<String, LatencyHistogram>> timings = new IdentityHashMap<>();
+
+    /*
+     * Whether in-flight calls to mock methods are counted. Counters live in
+     * each mock's ivars, and are updated without taking this recorder's lock;
+     * their high-water marks are discarded on reset by moving this epoch on.
+     */
+    private volatile boolean concurrencyTrackingEnabled = Boolean.getBoolean(CONCURRENCY_PROPERTY);
+    private volatile int concurrencyEpoch;
 
     InvocationRecorder(final ASMMoxyEngine engine) {
+        this(engine, Boolean.getBoolean(WEAK_HISTORY_PROPERTY), createInvocationLog());
+    }
+
+    InvocationRecorder(final ASMMoxyEngine engine, final boolean weakHistory, final InvocationLog invocationLog) {
         this.engine = engine;
         this.invocationMap = new HashMap<>();
-        this.standardInvocationsOrderedList = new ArrayList<>();
-        this.currentInvocationThreadLocal = new ThreadLocal<>();
-        this.monitoredInvocationStackThreadLocal = new ThreadLocal<>();
-        this.monitoredInvocationStackThreadLocal.set(new ArrayDeque<>());
+        this.standardInvocationsOrderedList = new EpochInvocationList(0);
+        this.invocationLog = invocationLog;
+
+        if (weakHistory) {
+            this.weakInvocationsOrderedList = new ArrayList<>();
+            this.collectedInvocations = new ReferenceQueue<>();
+        } else {
+            this.weakInvocationsOrderedList = null;
+            this.collectedInvocations = null;
+        }
     }
 
-    private ArrayDeque<ArrayList<Invocation>> ensureThreadLocalMonitoredInvocationStack() {
-        ArrayDeque<ArrayList<Invocation>> stack;
+    private static InvocationLog createInvocationLog() {
+        final String spillProperty = System.getProperty(SPILL_HISTORY_PROPERTY);
 
-        if ((stack = this.monitoredInvocationStackThreadLocal.get()) == null) {
-            stack = new ArrayDeque<>();
-            this.monitoredInvocationStackThreadLocal.set(stack);
+        if (spillProperty == null || spillProperty.isEmpty() || "false".equals(spillProperty)) {
+            return Boolean.getBoolean(COLUMNAR_HISTORY_PROPERTY) ? new ColumnarInvocationLog() : null;
+        } else if ("true".equals(spillProperty)) {
+            return SpillInvocationLog.create(null, SpillInvocationLog.DEFAULT_SEGMENT_SIZE);
+        } else {
+            return SpillInvocationLog.create(Paths.get(spillProperty), SpillInvocationLog.DEFAULT_SEGMENT_SIZE);
         }
+    }
+
+    boolean isWeakHistory() {
+        return this.weakInvocationsOrderedList != null;
+    }
 
-        return stack;
+    boolean isLogHistory() {
+        return this.invocationLog != null;
+    }
+
+    /*
+     * The current invocation (valid *only* during invocation of mocked methods)
+     * and the stack of monitored invocations are both held in the engine's
+     * per-thread context.
+     *
+     * The monitored invocation stack keeps track of monitored invocations. Each
+     * time a monitored invocation is started, a new 'frame' is pushed, and used
+     * at the end of that invocation to retrieve the monitored invocations.
+     *
+     * It's a stack in case someone feels the need to nest when/asserts.
+     */
+    private EngineThreadContext getThreadContext() {
+        return this.engine.getThreadContext();
     }
 
     /*
@@ -130,10 +264,6 @@ public class InvocationRecorder {
                                               final String methodDesc,
                                               final List<Object> args) {
 
-        final List<Invocation> invocations = this.ensureInvocationList(
-                this.ensureInvocationMap(this.ensureLocalClassMap(), receiver.getClass()),
-                methodName, methodDesc);
-
         final Invocation invocation = new Invocation(receiver,
                 methodName,
                 methodDesc,
@@ -142,20 +272,39 @@ public class InvocationRecorder {
         // Fixup matchers
         this.replaceInvocationArgsWithMatchers(invocation);
 
-        if (this.ensureThreadLocalMonitoredInvocationStack().isEmpty()) {
+        final EngineThreadContext context = this.getThreadContext();
+
+        if (!context.isInMonitoredInvocation()) {
             // Not in a monitored invocation, add to standard map/list
-            final List<Invocation> orderedInvocations =
-                    this.ensureAllInvocationsOrderedList();
 
-            // Add to list of invocations mapped by class (for faster lookup)
-            invocations.add(invocation);
+            invocation.setSequence(this.nextSequence++);
 
-            // Add to ordered list (for in-order verification)
-            orderedInvocations.add(invocation);
+            if (this.isLogHistory()) {
+                // Logged invocations are only recorded in the log
+                invocation.setLogPosition(this.invocationLog.append(invocation));
+            } else {
+                // Add to list of invocations mapped by receiver (for faster lookup)
+                this.ensureInvocationList(this.ensureInvocationMap(receiver), methodName, methodDesc)
+                        .add(invocation);
+
+                // Add to ordered list (for in-order verification)
+                if (this.isWeakHistory()) {
+                    this.ensureWeakInvocationsOrderedList()
+                            .add(new WeakReference<>(invocation, this.collectedInvocations));
+                } else {
+                    this.ensureAllInvocationsOrderedList().add(invocation);
+                }
+            }
+
+            this.signalWaiters(invocation);
+
+            if (this.publisher.hasSubscribers()) {
+                this.publisher.offer(invocation);
+            }
         } else {
             // In a monitored invocation, just add to list at top of stack.
             final List<Invocation> orderedInvocations =
-                    this.monitoredInvocationStackThreadLocal.get().peek();
+                    context.ensureMonitoredInvocationStack().peek();
 
             orderedInvocations.add(invocation);
         }
@@ -163,7 +312,7 @@ public class InvocationRecorder {
         // Record current invocation on this thread.
         // Mocks rely on this to set their throws/returns,
         // so must always be set!
-        this.currentInvocationThreadLocal.set(invocation);
+        context.setCurrentInvocation(invocation);
     }
 
     /*
@@ -176,24 +325,169 @@ public class InvocationRecorder {
     synchronized void unrecordLastInvocation() {
         final Invocation lastInvocation = this.getCurrentInvocation();
 
-        if (lastInvocation != null) {
+        // Invocation logs are append-only.
+        if (lastInvocation != null && !this.isLogHistory()) {
             final List<Invocation> invocations = this.ensureInvocationList(
-                    this.ensureInvocationMap(this.ensureLocalClassMap(),
-                            lastInvocation.getReceiver().getClass()),
+                    this.ensureInvocationMap(lastInvocation.getReceiver()),
                     lastInvocation.getMethodName(),
                     lastInvocation.getMethodDesc());
 
-            invocations.remove(invocations.size() - 1);
+            if (!invocations.isEmpty()) {
+                invocations.remove(invocations.size() - 1);
+            }
         }
     }
 
     /*
-     * Get invocations for the given class/method/desc combo, in order.
+     * Get invocations for the given receiver/method/desc combo, in order.
      *
      * Part of the contract of this method is that it returns a copy of the original list.
+     * Callers must still filter by receiver, as the fallback index is per-class.
      */
-    synchronized List<Invocation> getInvocationList(final Class<?> forClz, final String methodName, final String methodDesc) {
-        return new ArrayList<>(this.ensureInvocationList(this.ensureInvocationMap(this.ensureLocalClassMap(), forClz), methodName, methodDesc));
+    synchronized List<Invocation> getInvocationList(final Object receiver, final String methodName, final String methodDesc) {
+        if (this.isLogHistory()) {
+            final List<Invocation> result = new ArrayList<>();
+            this.invocationLog.scan(0, receiver, methodName, methodDesc, result::add);
+            return result;
+        } else {
+            return new ArrayList<>(this.ensureInvocationList(this.ensureInvocationMap(receiver), methodName, methodDesc));
+        }
+    }
+
+    /*
+     * Record that the given invocation threw. The invocation itself has already
+     * been updated - this just ensures the invocation log (if any) is, too.
+     */
+    void invocationThrew(final Invocation invocation) {
+        if (this.isLogHistory() && invocation.getLogPosition() >= 0) {
+            synchronized (this) {
+                this.invocationLog.updateThrew(invocation.getLogPosition(), invocation.getSequence(), invocation.getThrew());
+            }
+        }
+    }
+
+    /*
+     * Find the first standard invocation of the given receiver/method/desc combo with a
+     * sequence number greater than afterSequence for which the predicate holds, or null
+     * if there is no such invocation.
+     *
+     * The predicate must still check the receiver, as the fallback index is per-class.
+     */
+    synchronized Invocation findFirstInvocationAfter(final Object receiver,
+                                                     final String methodName,
+                                                     final String methodDesc,
+                                                     final long afterSequence,
+                                                     final Predicate<Invocation> predicate) {
+        if (this.isLogHistory()) {
+            final Invocation[] found = new Invocation[1];
+
+            this.invocationLog.scan(0, receiver, methodName, methodDesc, invocation -> {
+                if (invocation.getSequence() > afterSequence && predicate.test(invocation)) {
+                    found[0] = invocation;
+                    return false;
+                }
+
+                return true;
+            });
+
+            return found[0];
+        }
+
+        final List<Invocation> invocations = this.ensureInvocationList(
+                this.ensureInvocationMap(receiver), methodName, methodDesc);
+
+        int low = 0;
+        int high = invocations.size();
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (invocations.get(mid).getSequence() <= afterSequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        for (int i = low; i < invocations.size(); i++) {
+            final Invocation invocation = invocations.get(i);
+
+            if (predicate.test(invocation)) {
+                return invocation;
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * Count the standard invocations of the given receiver/method/desc combo for which
+     * the predicate holds, continuing from where the cursor last stopped. Only
+     * invocations recorded since the cursor's last use are examined, unless the
+     * recorder has been reset since (in which case counting starts again).
+     *
+     * The predicate must still check the receiver, as the fallback index is per-class.
+     */
+    synchronized long countInvocations(final InvocationCursor cursor,
+                                       final Object receiver,
+                                       final String methodName,
+                                       final String methodDesc,
+                                       final Predicate<Invocation> predicate) {
+        if (this.isLogHistory()) {
+            if (cursor.getEpoch() != this.epoch) {
+                cursor.restart(this.epoch);
+            }
+
+            final long[] newMatches = new long[1];
+
+            final long endPosition = this.invocationLog.scan(cursor.getPosition(), receiver, methodName, methodDesc, invocation -> {
+                if (predicate.test(invocation)) {
+                    newMatches[0]++;
+                }
+
+                return true;
+            });
+
+            cursor.advance(endPosition, newMatches[0]);
+            return cursor.getMatchCount();
+        }
+
+        final List<Invocation> invocations = this.ensureInvocationList(
+                this.ensureInvocationMap(receiver), methodName, methodDesc);
+
+        if (cursor.getEpoch() != this.epoch || cursor.getPosition() > invocations.size()) {
+            cursor.restart(this.epoch);
+        }
+
+        long newMatches = 0;
+        for (int i = (int) cursor.getPosition(); i < invocations.size(); i++) {
+            if (predicate.test(invocations.get(i))) {
+                newMatches++;
+            }
+        }
+
+        cursor.advance(invocations.size(), newMatches);
+        return cursor.getMatchCount();
+    }
+
+    InvocationPublisher getPublisher() {
+        return this.publisher;
+    }
+
+    synchronized void registerWaiter(final InvocationWaiter waiter) {
+        this.waiters.add(waiter);
+    }
+
+    synchronized void unregisterWaiter(final InvocationWaiter waiter) {
+        this.waiters.remove(waiter);
+    }
+
+    private void signalWaiters(final Invocation invocation) {
+        for (final InvocationWaiter waiter : this.waiters) {
+            if (waiter.isWaitingFor(invocation)) {
+                waiter.signal();
+            }
+        }
     }
 
     /*
@@ -202,60 +496,280 @@ public class InvocationRecorder {
      * Part of the contract of this method is that it returns a copy of the original list.
      */
     synchronized List<Invocation> getInvocationList() {
-        return new ArrayList<>(this.ensureAllInvocationsOrderedList());
+        if (this.isLogHistory()) {
+            final List<Invocation> result = new ArrayList<>();
+            this.invocationLog.scan(0, null, null, null, result::add);
+            return result;
+        } else if (this.isWeakHistory()) {
+            final List<WeakReference<Invocation>> refs = this.ensureWeakInvocationsOrderedList();
+            final ArrayList<Invocation> result = new ArrayList<>(refs.size());
+
+            for (final WeakReference<Invocation> ref : refs) {
+                final Invocation invocation = ref.get();
+                if (invocation != null) {
+                    result.add(invocation);
+                }
+            }
+
+            return result;
+        } else {
+            return new ArrayList<>(this.ensureAllInvocationsOrderedList());
+        }
+    }
+
+    /*
+     * Get _all_ invocations, in order, without copying them all up-front.
+     *
+     * In spill or columnar history mode, invocations are read from the log as they're
+     * iterated (stopping early if the recorder is reset). Otherwise, this is
+     * just getInvocationList().
+     */
+    Iterable<Invocation> getInvocations() {
+        if (!this.isLogHistory()) {
+            return this.getInvocationList();
+        }
+
+        final int startEpoch;
+        synchronized (this) {
+            startEpoch = this.epoch;
+        }
+
+        return () -> new Iterator<Invocation>() {
+            private long position;
+            private Invocation next;
+
+            @Override
+            public boolean hasNext() {
+                if (this.next == null) {
+                    synchronized (InvocationRecorder.this) {
+                        if (InvocationRecorder.this.epoch == startEpoch) {
+                            this.position = InvocationRecorder.this.invocationLog.scan(this.position, null, null, null,
+                                    invocation -> {
+                                        this.next = invocation;
+                                        return false;
+                                    });
+                        }
+                    }
+                }
+
+                return this.next != null;
+            }
+
+            @Override
+            public Invocation next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                final Invocation result = this.next;
+                this.next = null;
+                return result;
+            }
+        };
+    }
+
+    boolean isTimingEnabled() {
+        return this.timingEnabled;
+    }
+
+    void setTimingEnabled(final boolean timingEnabled) {
+        this.timingEnabled = timingEnabled;
+    }
+
+    /*
+     * Called from generated code just before the real (or delegate) method
+     * for the current invocation is called. Returns a timing to be passed
+     * to realMethodExited, or null if timing is disabled.
+     */
+    RealMethodTiming realMethodEntered() {
+        if (!this.timingEnabled) {
+            return null;
+        }
+
+        final Invocation invocation = this.getCurrentInvocation();
+        if (invocation == null) {
+            return null;
+        }
+
+        final int currentEpoch;
+        synchronized (this) {
+            currentEpoch = this.epoch;
+        }
+
+        return new RealMethodTiming(invocation, currentEpoch, System.nanoTime());
+    }
+
+    /*
+     * Called from generated code just after the real (or delegate)
+     * method returns or throws. Calls spanning a reset are ignored.
+     */
+    void realMethodExited(final RealMethodTiming timing) {
+        final long endNanos = System.nanoTime();
+        final Invocation invocation = timing.invocation;
+        final LatencyHistogram histogram;
+
+        synchronized (this) {
+            if (timing.epoch != this.epoch) {
+                return;
+            }
+
+            histogram = this.timings
+                    .computeIfAbsent(invocation.getReceiver(), k -> new HashMap<>())
+                    .computeIfAbsent(invocation.getMethodName() + invocation.getMethodDesc(),
+                            k -> new LatencyHistogram());
+        }
+
+        histogram.record(timing.startNanos, endNanos);
+    }
+
+    /*
+     * Snapshot of the timings for the given receiver/method/desc combo
+     * (empty if there are none).
+     */
+    LatencyHistogram getTimings(final Object receiver, final String methodName, final String methodDesc) {
+        final LatencyHistogram histogram;
+
+        synchronized (this) {
+            histogram = this.timings
+                    .getOrDefault(receiver, Collections.emptyMap())
+                    .get(methodName + methodDesc);
+        }
+
+        return histogram == null ? new LatencyHistogram() : histogram.copy();
+    }
+
+    boolean isConcurrencyTrackingEnabled() {
+        return this.concurrencyTrackingEnabled;
+    }
+
+    void setConcurrencyTrackingEnabled(final boolean concurrencyTrackingEnabled) {
+        this.concurrencyTrackingEnabled = concurrencyTrackingEnabled;
+    }
+
+    /*
+     * Called from generated code when a mock method is entered, just after the
+     * invocation is recorded. Returns the counter to be passed to invocationExited
+     * when the method returns or throws, or null if concurrency isn't being tracked
+     * (or the call is part of stubbing or verification).
+     */
+    ConcurrencyCounter invocationEntered(final ASMMockInstanceVars ivars) {
+        if (!this.concurrencyTrackingEnabled || this.getThreadContext().isMockBehaviourDisabled()) {
+            return null;
+        }
+
+        final Invocation invocation = this.getCurrentInvocation();
+        if (invocation == null) {
+            return null;
+        }
+
+        final ConcurrencyCounter counter = ivars.getConcurrencyCounters().computeIfAbsent(
+                invocation.getMethodName() + invocation.getMethodDesc(),
+                k -> new ConcurrencyCounter());
+
+        counter.enter(this.concurrencyEpoch);
+        return counter;
+    }
+
+    /*
+     * The greatest number of concurrent calls to the given receiver/method/desc
+     * combo since the last reset.
+     */
+    int getMaxConcurrency(final Object receiver, final String methodName, final String methodDesc) {
+        if (!(receiver instanceof ASMMockSupport)) {
+            return 0;
+        }
+
+        final ConcurrencyCounter counter = ((ASMMockSupport) receiver).__moxy_asm_ivars()
+                .getConcurrencyCounters()
+                .get(methodName + methodDesc);
+
+        return counter == null ? 0 : counter.getHighWater(this.concurrencyEpoch);
     }
 
     /*
      * Get the current invocation. Valid *only* during a mock invocation.
      */
     Invocation getCurrentInvocation() {
-        return this.currentInvocationThreadLocal.get();
+        return this.getThreadContext().getCurrentInvocation();
     }
 
+    /*
+     * Constant-time: recorded invocations are discarded lazily (see epoch).
+     */
     synchronized void reset() {
-        this.standardInvocationsOrderedList.clear();
-        this.invocationMap.clear();
+        this.epoch++;
+        this.timings = new IdentityHashMap<>();
+        this.concurrencyEpoch++;
+
+        if (this.isLogHistory()) {
+            this.invocationLog.reset();
+        }
     }
 
     void startMonitoredInvocation() {
-        this.ensureThreadLocalMonitoredInvocationStack().push(new ArrayList<>());
+        this.getThreadContext().ensureMonitoredInvocationStack().push(new ArrayList<>());
     }
 
     List<Invocation> getCurrentMonitoredInvocations() {
-        return this.ensureThreadLocalMonitoredInvocationStack().peek();
+        return this.getThreadContext().ensureMonitoredInvocationStack().peek();
     }
 
     void endMonitoredInvocation() {
-        if (this.ensureThreadLocalMonitoredInvocationStack().isEmpty()) {
+        final EngineThreadContext context = this.getThreadContext();
+
+        if (!context.isInMonitoredInvocation()) {
             throw new IllegalStateException("[BUG] Attempt to end an unstarted monitored invocation (in recorder)");
         }
 
-        this.currentInvocationThreadLocal.remove();
-        this.monitoredInvocationStackThreadLocal.get().pop();
-
-        if (this.monitoredInvocationStackThreadLocal.get().isEmpty()) {
-            this.monitoredInvocationStackThreadLocal.remove();
-        }
+        context.setCurrentInvocation(null);
+        context.ensureMonitoredInvocationStack().pop();
     }
 
-    private HashMap<Class<?>, LinkedHashMap<String, List<Invocation>>> ensureLocalClassMap() {
+    private HashMap<Class<?>, LinkedHashMap<String, EpochInvocationList>> ensureLocalClassMap() {
         return this.invocationMap;
     }
 
     private List<Invocation> ensureAllInvocationsOrderedList() {
-        return this.standardInvocationsOrderedList;
+        return this.standardInvocationsOrderedList.ensureEpoch(this.epoch);
+    }
+
+    /*
+     * Only valid in weak history mode. Lazily clears the list for a
+     * new epoch, and sweeps out any references the GC has cleared.
+     */
+    private List<WeakReference<Invocation>> ensureWeakInvocationsOrderedList() {
+        if (this.weakInvocationsOrderedListEpoch != this.epoch) {
+            this.weakInvocationsOrderedList.clear();
+            this.weakInvocationsOrderedListEpoch = this.epoch;
+        }
+
+        if (this.collectedInvocations.poll() != null) {
+            while (this.collectedInvocations.poll() != null) {
+                // drain - we sweep all cleared references below
+            }
+
+            this.weakInvocationsOrderedList.removeIf(ref -> ref.get() == null);
+        }
+
+        return this.weakInvocationsOrderedList;
     }
 
-    private LinkedHashMap<String, List<Invocation>> ensureInvocationMap(
-            final HashMap<Class<?>, LinkedHashMap<String, List<Invocation>>> classMap,
-            final Class<?> forClz) {
-        return classMap.computeIfAbsent(forClz, k -> new LinkedHashMap<>());
+    private Map<String, EpochInvocationList> ensureInvocationMap(final Object receiver) {
+        if (receiver instanceof ASMMockSupport) {
+            final ASMMockInstanceVars ivars = ((ASMMockSupport) receiver).__moxy_asm_ivars();
+
+            if (ivars != null) {
+                return ivars.getInvocationIndex();
+            }
+        }
+
+        return this.ensureLocalClassMap().computeIfAbsent(receiver.getClass(), k -> new LinkedHashMap<>());
     }
 
     private List<Invocation> ensureInvocationList(
-            final LinkedHashMap<String, List<Invocation>> invocationMap,
+            final Map<String, EpochInvocationList> invocationMap,
             final String forMethodName, final String forMethodDescriptor) {
         return invocationMap.computeIfAbsent(forMethodName + forMethodDescriptor,
-                k -> new ArrayList<>());
+                k -> new EpochInvocationList(this.epoch)).ensureEpoch(this.epoch);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import java.util.function.Predicate;
+
+/*
+ * A thread waiting (in a timed verification) for invocations of
+ * a given receiver/method that satisfy a predicate.
+ *
+ * Waiters are registered with the InvocationRecorder, which signals
+ * them as matching invocations are recorded. Signals are latched, so
+ * one arriving between the waiter's check and its wait isn't lost.
+ */
+final class InvocationWaiter {
+    private final Object receiver;
+    private final String methodName;
+    private final String methodDesc;
+    private final Predicate<Invocation> predicate;
+
+    private boolean signalled;
+
+    InvocationWaiter(final Object receiver,
+                     final String methodName,
+                     final String methodDesc,
+                     final Predicate<Invocation> predicate) {
+        this.receiver = receiver;
+        this.methodName = methodName;
+        this.methodDesc = methodDesc;
+        this.predicate = predicate;
+    }
+
+    /*
+     * Called by the recorder (holding its lock) for each standard invocation.
+     */
+    boolean isWaitingFor(final Invocation invocation) {
+        return invocation.getReceiver() == this.receiver &&      // identity is intentional!
+                this.methodName.equals(invocation.getMethodName()) &&
+                this.methodDesc.equals(invocation.getMethodDesc()) &&
+                this.predicate.test(invocation);
+    }
+
+    synchronized void signal() {
+        this.signalled = true;
+        this.notifyAll();
+    }
+
+    /*
+     * Wait until signalled, or the timeout expires. Clears the signal.
+     */
+    synchronized void await(final long timeoutNanos) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeoutNanos;
+        long remaining = timeoutNanos;
+
+        while (!this.signalled && remaining > 0) {
+            this.wait(remaining / 1_000_000, (int) (remaining % 1_000_000));
+            remaining = deadline - System.nanoTime();
+        }
+
+        this.signalled = false;
+    }
+}
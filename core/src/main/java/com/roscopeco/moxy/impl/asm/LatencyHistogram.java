@@ -0,0 +1,164 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.InvocationTimings;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Log-linear histogram of call latencies (in nanoseconds), in the style
+ * of HdrHistogram. Values below 32 have their own bucket; above that,
+ * each power of two is split into 32 buckets, so reported values
+ * are within ~3% of the recorded ones. Buckets are a fixed array, so
+ * recording is constant-time and allocation-free (aside from the
+ * per-second call counts).
+ *
+ * Live histograms are recorded into under their own lock; readers
+ * should take a snapshot with copy().
+ */
+final class LatencyHistogram implements InvocationTimings {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long[] counts;
+    private final Map<Long, Long> callsPerSecond;
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private long total;
+
+    LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+        this.callsPerSecond = new HashMap<>();
+    }
+
+    private LatencyHistogram(final LatencyHistogram other) {
+        this.counts = Arrays.copyOf(other.counts, BUCKETS);
+        this.callsPerSecond = new HashMap<>(other.callsPerSecond);
+        this.count = other.count;
+        this.min = other.min;
+        this.max = other.max;
+        this.total = other.total;
+    }
+
+    synchronized void record(final long startNanos, final long endNanos) {
+        final long latency = Math.max(0, endNanos - startNanos);
+
+        this.counts[bucketFor(latency)]++;
+        this.count++;
+        this.total += latency;
+        this.min = Math.min(this.min, latency);
+        this.max = Math.max(this.max, latency);
+        this.callsPerSecond.merge(Math.floorDiv(startNanos, NANOS_PER_SECOND), 1L, Long::sum);
+    }
+
+    synchronized LatencyHistogram copy() {
+        return new LatencyHistogram(this);
+    }
+
+    static int bucketFor(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /*
+     * Highest value that falls in the given bucket.
+     */
+    static long highestValueIn(final int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final long subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        final long lowest = (SUB_BUCKETS + subBucket) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public Duration getMin() {
+        return this.count == 0 ? Duration.ZERO : Duration.ofNanos(this.min);
+    }
+
+    @Override
+    public Duration getMax() {
+        return Duration.ofNanos(this.max);
+    }
+
+    @Override
+    public Duration getMean() {
+        return this.count == 0 ? Duration.ZERO : Duration.ofNanos(this.total / this.count);
+    }
+
+    @Override
+    public Duration getPercentile(final double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+
+        if (this.count == 0) {
+            return Duration.ZERO;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts[bucket];
+
+            if (seen >= rank) {
+                return Duration.ofNanos(Math.max(this.min, Math.min(this.max, highestValueIn(bucket))));
+            }
+        }
+
+        return Duration.ofNanos(this.max);
+    }
+
+    @Override
+    public long getPeakCallsPerSecond() {
+        long peak = 0;
+
+        for (final long calls : this.callsPerSecond.values()) {
+            peak = Math.max(peak, calls);
+        }
+
+        return peak;
+    }
+}
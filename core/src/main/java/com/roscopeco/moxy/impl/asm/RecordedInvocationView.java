@@ -0,0 +1,71 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.RecordedInvocation;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * A read-only view of a recorded Invocation, as handed out by the
+ * public API (invocation queries and the invocation publisher).
+ *
+ * The recorder's own Invocation is never exposed directly, as its
+ * arguments (and other state) are live and used by later verification.
+ */
+final class RecordedInvocationView implements RecordedInvocation {
+    private final Invocation invocation;
+    private final List<Object> args;
+
+    RecordedInvocationView(final Invocation invocation) {
+        this.invocation = invocation;
+        this.args = Collections.unmodifiableList(invocation.getArgs());
+    }
+
+    @Override
+    public Object getReceiver() {
+        return this.invocation.getReceiver();
+    }
+
+    @Override
+    public String getMethodName() {
+        return this.invocation.getMethodName();
+    }
+
+    @Override
+    public String getMethodDesc() {
+        return this.invocation.getMethodDesc();
+    }
+
+    @Override
+    public List<Object> getArgs() {
+        return this.args;
+    }
+
+    @Override
+    public String toString() {
+        return this.invocation.toString();
+    }
+}
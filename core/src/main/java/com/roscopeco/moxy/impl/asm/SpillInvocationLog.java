@@ -0,0 +1,483 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.MoxyException;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/*
+ * An append-only log of standard invocations, held in memory-mapped
+ * files rather than on the heap. Used by the InvocationRecorder in
+ * spill history mode, so history can grow beyond the size of the heap.
+ *
+ * The log is made up of fixed-size segments (each a separate file).
+ * A record never spans segments - if one won't fit in what's left of
+ * a segment, a zero length marks the end of that segment and the record
+ * is written at the start of the next. Records are:
+ *
+ *   int     record length (including this header)
+ *   long    sequence
+ *   long    timestamp (System.nanoTime() when recorded)
+ *   int     receiver handle
+ *   int     method id
+ *   int     thrown exception id (-1 if none)
+ *   int     argument count
+ *   ...     arguments, each a tag byte followed by its value
+ *
+ * Primitives (boxed in the args) and Strings are stored by value (unless
+ * that would make the record too big for a segment). Other
+ * objects are stored as handles. Arguments are held strongly (as they would
+ * be by an in-memory history), so they can always be verified. Receivers
+ * are held weakly unless they're also passed as arguments - a record whose
+ * receiver has been collected can never be verified, so is skipped when the
+ * log is read. Thrown exceptions are kept on the heap (they're expected to
+ * be relatively rare).
+ *
+ * Not thread-safe - guarded by the owning InvocationRecorder's lock.
+ */
+final class SpillInvocationLog implements InvocationLog {
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    // Big enough for a record with the maximum (255) arguments, none inline strings.
+    static final int MIN_SEGMENT_SIZE = 4096;
+
+    private static final int HEADER_SIZE = 4 + 8 + 8 + 4 + 4 + 4 + 4;
+    private static final int THREW_OFFSET = 4 + 8 + 8 + 4 + 4;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_BOOLEAN = 1;
+    private static final byte TAG_BYTE = 2;
+    private static final byte TAG_CHAR = 3;
+    private static final byte TAG_SHORT = 4;
+    private static final byte TAG_INT = 5;
+    private static final byte TAG_LONG = 6;
+    private static final byte TAG_FLOAT = 7;
+    private static final byte TAG_DOUBLE = 8;
+    private static final byte TAG_STRING = 9;
+    private static final byte TAG_HANDLE = 10;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private final Map<String, Integer> methodIds = new HashMap<>();
+    private final List<String> methodNames = new ArrayList<>();
+    private final List<String> methodDescs = new ArrayList<>();
+
+    private ObjectHandles handles = new ObjectHandles();
+    private List<Throwable> throwables = new ArrayList<>();
+
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private long endPosition;
+
+    SpillInvocationLog(final Path directory, final int segmentSize) {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /*
+     * Create a log in a new temporary directory under the given
+     * parent (or the default temporary directory if null). The
+     * directory and its files are deleted on exit.
+     */
+    static SpillInvocationLog create(final Path parent, final int segmentSize) {
+        try {
+            final Path directory = parent == null
+                    ? Files.createTempDirectory("moxy-history")
+                    : Files.createTempDirectory(parent, "moxy-history");
+
+            directory.toFile().deleteOnExit();
+            return new SpillInvocationLog(directory, segmentSize);
+        } catch (final IOException e) {
+            throw new MoxyException("Unable to create invocation log; see cause", e);
+        }
+    }
+
+    @Override
+    public long getEndPosition() {
+        return this.endPosition;
+    }
+
+    /*
+     * Segments are kept, and overwritten as new invocations are recorded.
+     * Handles are dropped along with the records that refer to them.
+     */
+    @Override
+    public void reset() {
+        this.endPosition = 0;
+        this.handles = new ObjectHandles();
+        this.throwables = new ArrayList<>();
+    }
+
+    @Override
+    public long append(final Invocation invocation) {
+        ByteBuffer record = this.encode(invocation, true);
+
+        if (record.position() > this.segmentSize) {
+            // Strings are too big to fit - store them as handles instead.
+            record = this.encode(invocation, false);
+        }
+
+        final int length = record.position();
+        int offset = this.offsetOf(this.endPosition);
+
+        if (this.segmentSize - offset < length) {
+            if (this.segmentSize - offset >= 4) {
+                this.ensureSegment(this.segmentOf(this.endPosition)).putInt(offset, 0);
+            }
+
+            this.endPosition = (long) (this.segmentOf(this.endPosition) + 1) * this.segmentSize;
+            offset = 0;
+        }
+
+        final long position = this.endPosition;
+        final ByteBuffer segment = this.ensureSegment(this.segmentOf(position)).duplicate();
+        record.flip();
+        segment.position(offset);
+        segment.put(record);
+
+        this.endPosition = position + length;
+        return position;
+    }
+
+    private ByteBuffer encode(final Invocation invocation, final boolean inlineStrings) {
+        final List<Object> args = invocation.getArgs();
+
+        ByteBuffer record = this.scratch;
+        record.clear();
+        record.position(HEADER_SIZE);
+
+        for (final Object arg : args) {
+            record = this.ensureScratch(record, 9);
+
+            if (inlineStrings && arg instanceof String) {
+                final byte[] bytes = ((String) arg).getBytes(StandardCharsets.UTF_8);
+                record = this.ensureScratch(record, bytes.length + 5);
+                record.put(TAG_STRING).putInt(bytes.length).put(bytes);
+            } else {
+                this.putArg(record, arg);
+            }
+        }
+
+        record.putInt(0, record.position())
+                .putLong(4, invocation.getSequence())
+                .putLong(12, System.nanoTime())
+                .putInt(20, this.handles.handleFor(invocation.getReceiver(), false))
+                .putInt(24, this.methodIdFor(invocation.getMethodName(), invocation.getMethodDesc()))
+                .putInt(THREW_OFFSET, -1)
+                .putInt(THREW_OFFSET + 4, args.size());
+
+        return record;
+    }
+
+    @Override
+    public void updateThrew(final long position, final long sequence, final Throwable threw) {
+        if (position + HEADER_SIZE <= this.endPosition) {
+            final MappedByteBuffer segment = this.segments.get(this.segmentOf(position));
+            final int offset = this.offsetOf(position);
+
+            if (segment.getLong(offset + 4) == sequence) {
+                this.throwables.add(threw);
+                segment.putInt(offset + THREW_OFFSET, this.throwables.size() - 1);
+            }
+        }
+    }
+
+    @Override
+    public long scan(final long fromPosition,
+              final Object receiver,
+              final String methodName,
+              final String methodDesc,
+              final Predicate<Invocation> visitor) {
+        int receiverFilter = -1;
+        int methodFilter = -1;
+
+        if (receiver != null) {
+            receiverFilter = this.handles.existingHandleFor(receiver);
+            final Integer methodId = this.methodIds.get(methodName + methodDesc);
+
+            if (receiverFilter < 0 || methodId == null) {
+                return this.endPosition;
+            }
+
+            methodFilter = methodId;
+        }
+
+        long position = fromPosition;
+
+        while (position < this.endPosition) {
+            final int offset = this.offsetOf(position);
+            final MappedByteBuffer segment = this.segments.get(this.segmentOf(position));
+            final int length = this.segmentSize - offset < 4 ? 0 : segment.getInt(offset);
+
+            if (length == 0) {
+                position = (long) (this.segmentOf(position) + 1) * this.segmentSize;
+                continue;
+            }
+
+            position += length;
+
+            final int receiverHandle = segment.getInt(offset + 20);
+            final int methodId = segment.getInt(offset + 24);
+
+            if (receiver != null && (receiverHandle != receiverFilter || methodId != methodFilter)) {
+                continue;
+            }
+
+            final Object actualReceiver = this.handles.resolve(receiverHandle);
+            if (actualReceiver == null) {
+                continue;
+            }
+
+            if (!visitor.test(this.decode(segment, offset, actualReceiver, methodId))) {
+                return position;
+            }
+        }
+
+        return this.endPosition;
+    }
+
+    private Invocation decode(final MappedByteBuffer segment,
+                              final int offset,
+                              final Object receiver,
+                              final int methodId) {
+        final ByteBuffer record = segment.duplicate();
+        record.position(offset + HEADER_SIZE);
+
+        final int argCount = segment.getInt(offset + THREW_OFFSET + 4);
+        final ArrayList<Object> args = new ArrayList<>(argCount);
+
+        for (int i = 0; i < argCount; i++) {
+            args.add(this.getArg(record));
+        }
+
+        final Invocation invocation = new Invocation(receiver,
+                this.methodNames.get(methodId),
+                this.methodDescs.get(methodId),
+                args);
+
+        invocation.setSequence(segment.getLong(offset + 4));
+
+        final int threwId = segment.getInt(offset + THREW_OFFSET);
+        if (threwId >= 0) {
+            invocation.setThrew(this.throwables.get(threwId));
+        }
+
+        return invocation;
+    }
+
+    private void putArg(final ByteBuffer record, final Object arg) {
+        if (arg == null) {
+            record.put(TAG_NULL);
+        } else if (arg instanceof Boolean) {
+            record.put(TAG_BOOLEAN).put((byte) (((Boolean) arg) ? 1 : 0));
+        } else if (arg instanceof Byte) {
+            record.put(TAG_BYTE).put((Byte) arg);
+        } else if (arg instanceof Character) {
+            record.put(TAG_CHAR).putChar((Character) arg);
+        } else if (arg instanceof Short) {
+            record.put(TAG_SHORT).putShort((Short) arg);
+        } else if (arg instanceof Integer) {
+            record.put(TAG_INT).putInt((Integer) arg);
+        } else if (arg instanceof Long) {
+            record.put(TAG_LONG).putLong((Long) arg);
+        } else if (arg instanceof Float) {
+            record.put(TAG_FLOAT).putFloat((Float) arg);
+        } else if (arg instanceof Double) {
+            record.put(TAG_DOUBLE).putDouble((Double) arg);
+        } else {
+            record.put(TAG_HANDLE).putInt(this.handles.handleFor(arg, true));
+        }
+    }
+
+    private Object getArg(final ByteBuffer record) {
+        final byte tag = record.get();
+
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_BOOLEAN:
+                return record.get() != 0;
+            case TAG_BYTE:
+                return record.get();
+            case TAG_CHAR:
+                return record.getChar();
+            case TAG_SHORT:
+                return record.getShort();
+            case TAG_INT:
+                return record.getInt();
+            case TAG_LONG:
+                return record.getLong();
+            case TAG_FLOAT:
+                return record.getFloat();
+            case TAG_DOUBLE:
+                return record.getDouble();
+            case TAG_STRING:
+                final byte[] bytes = new byte[record.getInt()];
+                record.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            case TAG_HANDLE:
+                return this.handles.resolve(record.getInt());
+            default:
+                throw new IllegalStateException("[BUG] Corrupt invocation log (unknown tag " + tag + ")");
+        }
+    }
+
+    private ByteBuffer ensureScratch(final ByteBuffer record, final int needed) {
+        if (record.remaining() >= needed) {
+            return record;
+        }
+
+        final ByteBuffer bigger = ByteBuffer.allocate(Math.max(record.capacity() * 2, record.position() + needed));
+        record.flip();
+        bigger.put(record);
+        this.scratch = bigger;
+        return bigger;
+    }
+
+    private int methodIdFor(final String methodName, final String methodDesc) {
+        return this.methodIds.computeIfAbsent(methodName + methodDesc, k -> {
+            this.methodNames.add(methodName);
+            this.methodDescs.add(methodDesc);
+            return this.methodNames.size() - 1;
+        });
+    }
+
+    private int segmentOf(final long position) {
+        return (int) (position / this.segmentSize);
+    }
+
+    private int offsetOf(final long position) {
+        return (int) (position % this.segmentSize);
+    }
+
+    private MappedByteBuffer ensureSegment(final int index) {
+        while (this.segments.size() <= index) {
+            final Path file = this.directory.resolve("invocations-" + this.segments.size() + ".log");
+
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                file.toFile().deleteOnExit();
+                this.segments.add(channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize));
+            } catch (final IOException e) {
+                throw new MoxyException("Unable to extend invocation log; see cause", e);
+            }
+        }
+
+        return this.segments.get(index);
+    }
+
+    /*
+     * Assigns int handles to objects, by identity, holding them weakly
+     * unless asked to hold them strongly. Handles are never reused, so
+     * a handle for a collected object will never resolve to a different one.
+     */
+    private static final class ObjectHandles {
+        private static final class HandleRef extends WeakReference<Object> {
+            final int handle;
+            final int hash;
+            Object strong;
+
+            HandleRef(final Object referent, final int handle, final ReferenceQueue<Object> queue) {
+                super(referent, queue);
+                this.handle = handle;
+                this.hash = System.identityHashCode(referent);
+            }
+        }
+
+        private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+        private final Map<Integer, List<HandleRef>> byIdentityHash = new HashMap<>();
+        private final ArrayList<HandleRef> byHandle = new ArrayList<>();
+
+        int handleFor(final Object obj, final boolean strong) {
+            final int existing = this.existingHandleFor(obj);
+
+            if (existing >= 0) {
+                if (strong) {
+                    this.byHandle.get(existing).strong = obj;
+                }
+                return existing;
+            }
+
+            final HandleRef ref = new HandleRef(obj, this.byHandle.size(), this.collected);
+            if (strong) {
+                ref.strong = obj;
+            }
+            this.byHandle.add(ref);
+            this.byIdentityHash.computeIfAbsent(ref.hash, k -> new ArrayList<>(1)).add(ref);
+            return ref.handle;
+        }
+
+        int existingHandleFor(final Object obj) {
+            this.expunge();
+
+            final List<HandleRef> refs = this.byIdentityHash.get(System.identityHashCode(obj));
+            if (refs != null) {
+                for (final HandleRef ref : refs) {
+                    if (ref.get() == obj) {
+                        return ref.handle;
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        Object resolve(final int handle) {
+            final HandleRef ref = this.byHandle.get(handle);
+            return ref == null ? null : ref.get();
+        }
+
+        private void expunge() {
+            HandleRef ref;
+            while ((ref = (HandleRef) this.collected.poll()) != null) {
+                this.byHandle.set(ref.handle, null);
+
+                final List<HandleRef> refs = this.byIdentityHash.get(ref.hash);
+                refs.remove(ref);
+                if (refs.isEmpty()) {
+                    this.byIdentityHash.remove(ref.hash);
+                }
+            }
+        }
+    }
+}
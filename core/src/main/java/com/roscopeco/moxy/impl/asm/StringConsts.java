@@ -38,6 +38,9 @@ enum StringConsts {
     AT_LEAST("at least"),
     AT_MOST("at most"),
     AT_LEAST_ONCE_BUT_WASNT_AT_ALL("at least once but it wasn't called at all"),
+    WITHIN(" within "),
+    MILLIS("ms"),
+    BUT_WAS_INTERRUPTED(", but was interrupted while waiting"),
     TAB("\t"),
     EOL("\n"),
     EXPECTED_INVOCATIONS("Expected invocations:"),
@@ -45,6 +48,16 @@ enum StringConsts {
     IN_ORDER_BUT_WERE("in that order, but they were "),
     NOT_INVOKED_OR("not invoked or were "),
     OUT_OF_ORDER("invoked out of order"),
+    TO_HAVE_LATENCY(" to have latency at the "),
+    PERCENTILE_OF_AT_MOST(" percentile of at most "),
+    BUT_IT_WAS(", but it was "),
+    BUT_NO_TIMED_CALLS(", but no timed calls were recorded (is invocation timing enabled?)"),
+    TO_BE_CALLED_AT_MOST(" to be called at most "),
+    TIMES_PER_SECOND(" times per second"),
+    TIMES_IN_ONE_SECOND(" times in one second"),
+    TO_HAVE(" to have "),
+    CONCURRENT_CALLS(" concurrent calls"),
+    BUT_IT_HAD(", but it had "),
     ;
 
     private final String value;
@@ -0,0 +1,202 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.MoxyStubSource;
+import com.roscopeco.moxy.impl.asm.stubs.StubInvocation;
+import com.roscopeco.moxy.impl.asm.stubs.StubReturn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * The stubbing for one method of a mock - StubInvocations in the order
+ * they were stubbed, where the first whose arguments match an actual
+ * invocation wins.
+ *
+ * Stubbing with plain, immutable argument values (the common case, and the
+ * only case in big data-driven fixtures) is indexed by those arguments, so
+ * adding, replacing and finding it take constant time. Everything else -
+ * stubbing with matchers, or with arguments that may change (and so change
+ * their hash) after stubbing - is kept in a list and scanned. Every entry
+ * is numbered in stubbing order, so that a match in the index only wins
+ * over scanned stubbing that came after it.
+ *
+ * Indexed values only ever equal values of their own (final) classes, so
+ * actual arguments that can't be indexed can never match indexed stubbing.
+ *
+ * Calls that match no stubbing may be answered from a MoxyStubSource,
+ * which gets a throwaway StubInvocation for each result it finds.
+ *
+ * Only modified under the owning mock's ivars lock, and read without locking.
+ */
+final class StubTable {
+    private static final class Entry {
+        private final long order;
+        private final StubInvocation invocation;
+
+        private Entry(final long order, final StubInvocation invocation) {
+            this.order = order;
+            this.invocation = invocation;
+        }
+    }
+
+    /*
+     * Classes whose values can't change once stubbed, so can safely be
+     * used as index keys (enums are also allowed).
+     */
+    private static final Set<Class<?>> INDEXABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class,
+            Integer.class, Long.class, Float.class, Double.class, Class.class, UUID.class);
+
+    private final ConcurrentHashMap<List<Object>, Entry> indexed = new ConcurrentHashMap<>();
+    private volatile List<Entry> scanned = Collections.emptyList();
+    private long nextOrder;
+    private volatile MoxyStubSource<?> source;
+
+    static boolean isIndexable(final List<Object> args) {
+        for (final Object arg : args) {
+            if (arg != null && !INDEXABLE_TYPES.contains(arg.getClass()) && !(arg instanceof Enum)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /*
+     * Find the stubbing for an actual invocation with the given arguments.
+     */
+    StubInvocation find(final List<Object> actualArgs, final ASMMoxyMatcherEngine matchEngine) {
+        final Entry candidate = isIndexable(actualArgs) ? this.indexed.get(actualArgs) : null;
+
+        for (final Entry entry : this.scanned) {
+            if (candidate != null && entry.order > candidate.order) {
+                break;
+            }
+
+            if (matchEngine.argsMatch(actualArgs, entry.invocation.getArgs())) {
+                return entry.invocation;
+            }
+        }
+
+        return candidate == null ? null : candidate.invocation;
+    }
+
+    /*
+     * Find the stubbing previously added with exactly these (monitored) arguments,
+     * for chaining further stubs onto it.
+     */
+    StubInvocation findForMonitoredArgs(final List<Object> monitoredArgs) {
+        if (isIndexable(monitoredArgs)) {
+            final Entry entry = this.indexed.get(monitoredArgs);
+            return entry == null ? null : entry.invocation;
+        }
+
+        for (final Entry entry : this.scanned) {
+            if (monitoredArgs.equals(entry.invocation.getArgs())) {
+                return entry.invocation;
+            }
+        }
+
+        return null;
+    }
+
+    /*
+     * Callers must hold the ivars lock.
+     */
+    void add(final StubInvocation invocation) {
+        final Entry entry = new Entry(this.nextOrder++, invocation);
+
+        if (isIndexable(invocation.getArgs())) {
+            this.indexed.put(invocation.getArgs(), entry);
+        } else {
+            final List<Entry> newScanned = new ArrayList<>(this.scanned.size() + 1);
+            newScanned.addAll(this.scanned);
+            newScanned.add(entry);
+            this.scanned = Collections.unmodifiableList(newScanned);
+        }
+    }
+
+    /*
+     * Remove all stubbing that an invocation with the given (monitored) arguments
+     * would match, ready for it to be replaced.
+     *
+     * Callers must hold the ivars lock.
+     */
+    void removeMatching(final List<Object> monitoredArgs, final ASMMoxyMatcherEngine matchEngine) {
+        if (isIndexable(monitoredArgs)) {
+            this.indexed.remove(monitoredArgs);
+        }
+        // else indexed stubbing can't equal the arguments (or matcher(s)), so only scanned stubbing can match.
+
+        final List<Entry> current = this.scanned;
+        if (current.stream().anyMatch(entry -> matchEngine.argsMatch(monitoredArgs, entry.invocation.getArgs()))) {
+            final List<Entry> newScanned = new ArrayList<>(current.size());
+
+            for (final Entry entry : current) {
+                if (!matchEngine.argsMatch(monitoredArgs, entry.invocation.getArgs())) {
+                    newScanned.add(entry);
+                }
+            }
+
+            this.scanned = Collections.unmodifiableList(newScanned);
+        }
+    }
+
+    void setSource(final MoxyStubSource<?> source) {
+        this.source = source;
+    }
+
+    /*
+     * Look up a call that matched no stubbing in the source, if any.
+     */
+    StubInvocation findInSource(final List<Object> actualArgs) {
+        final MoxyStubSource<?> currentSource = this.source;
+
+        if (currentSource == null) {
+            return null;
+        }
+
+        return currentSource.lookup(Collections.unmodifiableList(actualArgs))
+                .map(value -> {
+                    final StubInvocation invocation = new StubInvocation(actualArgs);
+                    invocation.addStub(new StubReturn(value, true));
+                    return invocation;
+                })
+                .orElse(null);
+    }
+
+    boolean isEmpty() {
+        return this.indexed.isEmpty() && this.scanned.isEmpty();
+    }
+
+    int size() {
+        return this.indexed.size() + this.scanned.size();
+    }
+}
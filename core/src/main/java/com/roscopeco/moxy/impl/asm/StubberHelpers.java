@@ -24,22 +24,119 @@
 
 package com.roscopeco.moxy.impl.asm;
 
+import com.roscopeco.moxy.api.*;
+import com.roscopeco.moxy.impl.asm.stubs.StubTypedAction;
 import org.objectweb.asm.Type;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 class StubberHelpers {
-    static Method findCompatibleMethod(final Class<?> clz, final String methodName, final String methodDesc) {
-        for (final Method m : clz.getDeclaredMethods()) {
-            final String mDesc = Type.getMethodDescriptor(Type.getReturnType(m), Type.getArgumentTypes(m));
-            if (!Modifier.isStatic(m.getModifiers()) &&
-                    m.getName().equals(methodName) &&
-                    mDesc.equals(methodDesc)) {
-                return m;
+    /*
+     * Per-class cache of non-static declared methods, keyed by name + descriptor.
+     * Where more than one method shares a key, the first declared wins (as it
+     * did when this was a linear search).
+     */
+    private static final ClassValue<Map<String, Method>> COMPATIBLE_METHODS_CACHE = new ClassValue<>() {
+        @Override
+        protected Map<String, Method> computeValue(final Class<?> type) {
+            final HashMap<String, Method> methods = new HashMap<>();
+
+            for (final Method m : type.getDeclaredMethods()) {
+                if (!Modifier.isStatic(m.getModifiers())) {
+                    methods.putIfAbsent(m.getName() + Type.getMethodDescriptor(m), m);
+                }
             }
+
+            return Collections.unmodifiableMap(methods);
         }
-        return null;
+    };
+
+    /*
+     * Return types (as internal names) that a CompletableFuture can be returned as.
+     */
+    private static final Set<String> COMPLETABLE_FUTURE_TYPES = Set.of(
+            Type.getInternalName(CompletableFuture.class),
+            Type.getInternalName(CompletionStage.class),
+            Type.getInternalName(Future.class),
+            Type.getInternalName(Object.class));
+
+    static boolean canReturnCompletableFuture(final String methodDesc) {
+        final Type returnType = Type.getReturnType(methodDesc);
+
+        return returnType.getSort() == Type.OBJECT
+                && COMPLETABLE_FUTURE_TYPES.contains(returnType.getInternalName());
+    }
+
+    /*
+     * Check that a typed answer or action takes as many arguments as the method.
+     */
+    static void checkArgumentCount(final Invocation invocation, final int count, final String kind) {
+        final int actual = Type.getArgumentTypes(invocation.getMethodDesc()).length;
+
+        if (actual != count) {
+            throw new IllegalArgumentException(
+                    "Cannot stub "
+                            + TypeStringUtils.javaMethodSignature(invocation)
+                            + " with " + kind + " taking " + count + " argument(s) - it takes " + actual);
+        }
+    }
+
+    // Adapters from the typed answers and actions to the list-based forms
+    // the stubs use. The casts are unchecked - a mismatch with the method's
+    // argument types surfaces as a ClassCastException when the mock is called.
+    @SuppressWarnings("unchecked")
+    static <A, R> Function<List<?>, R> answerFunction(final Answer1<A, R> answer) {
+        return args -> answer.answer((A) args.get(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, R> Function<List<?>, R> answerFunction(final Answer2<A, B, R> answer) {
+        return args -> answer.answer((A) args.get(0), (B) args.get(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, R> Function<List<?>, R> answerFunction(final Answer3<A, B, C, R> answer) {
+        return args -> answer.answer((A) args.get(0), (B) args.get(1), (C) args.get(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D, R> Function<List<?>, R> answerFunction(final Answer4<A, B, C, D, R> answer) {
+        return args -> answer.answer((A) args.get(0), (B) args.get(1), (C) args.get(2), (D) args.get(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A> StubTypedAction actionConsumer(final Action1<A> action) {
+        return args -> action.accept((A) args.get(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B> StubTypedAction actionConsumer(final Action2<A, B> action) {
+        return args -> action.accept((A) args.get(0), (B) args.get(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C> StubTypedAction actionConsumer(final Action3<A, B, C> action) {
+        return args -> action.accept((A) args.get(0), (B) args.get(1), (C) args.get(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B, C, D> StubTypedAction actionConsumer(final Action4<A, B, C, D> action) {
+        return args -> action.accept((A) args.get(0), (B) args.get(1), (C) args.get(2), (D) args.get(3));
+    }
+
+    static Method findCompatibleMethod(final Class<?> clz, final String methodName, final String methodDesc) {
+        return COMPATIBLE_METHODS_CACHE.get(clz).get(methodName + methodDesc);
     }
 
     private StubberHelpers() {
@@ -25,6 +25,9 @@ package com.roscopeco.moxy.impl.asm;
 
 import org.objectweb.asm.Type;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
@@ -41,6 +44,33 @@ final class TypeStringUtils {
         }
     }
 
+    /*
+     * e.g. "99th", "99.9th", "1st".
+     */
+    static String readablePercentile(final double percentile) {
+        final String number = BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+
+        if (number.endsWith("1") && !number.endsWith("11")) {
+            return number + "st";
+        } else if (number.endsWith("2") && !number.endsWith("12")) {
+            return number + "nd";
+        } else if (number.endsWith("3") && !number.endsWith("13")) {
+            return number + "rd";
+        } else {
+            return number + "th";
+        }
+    }
+
+    /*
+     * Milliseconds, to (at most) microsecond precision - e.g. "2ms", "0.125ms".
+     */
+    static String readableDuration(final Duration duration) {
+        return BigDecimal.valueOf(duration.toNanos(), 6)
+                .setScale(3, RoundingMode.HALF_UP)
+                .stripTrailingZeros()
+                .toPlainString() + StringConsts.MILLIS;
+    }
+
     private static String inspectArg(final Object arg) {
         if (arg == null) {
             return null;
@@ -53,11 +53,11 @@ public final class TypesAndDescriptors {
     private static final String BOOLEAN_VOID_DESCRIPTOR = "()Z";
     public static final String VOID_INT_DESCRIPTOR = "(I)V";
     private static final String OBJECT_VOID_DESCRIPTOR = "()" + OBJECT_DESCRIPTOR;
-    private static final String OBJECT_BOOL_DESCRIPTOR = "(Z)" + OBJECT_DESCRIPTOR;
-    private static final String THROWABLE_BOOL_DESCRIPTOR = "(Z)" + THROWABLE_DESCRIPTOR;
+    private static final String THROWABLE_VOID_DESCRIPTOR = "()" + THROWABLE_DESCRIPTOR;
     public static final String VOID_STRING_STRING_DESCRIPTOR = "(" + STRING_DESCRIPTOR + STRING_DESCRIPTOR + ")V";
     public static final String BOOLEAN_OBJECT_DESCRIPTOR = "(L" + OBJECT_INTERNAL_NAME + ";)Z";
     public static final String VOID_OBJECT_THROWABLE_DESCRIPTOR = "(" + OBJECT_DESCRIPTOR + THROWABLE_DESCRIPTOR + ")V";
+    private static final String VOID_OBJECT_DESCRIPTOR = "(" + OBJECT_DESCRIPTOR + ")V";
 
     /* Moxy stuff */
     public static final String MOXY_ENGINE_DESCRIPTOR = "L" + Type.getInternalName(MoxyEngine.class) + ";";
@@ -79,11 +79,9 @@ public final class TypesAndDescriptors {
 
     /* ASMMoxyMockSupport-related */
     public static final String SUPPORT_GETCURRENTTHROW_METHOD_NAME = "__moxy_asm_getThrowableForCurrentInvocation";
-    public static final String SUPPORT_GETCURRENTTHROW_DESCRIPTOR = THROWABLE_BOOL_DESCRIPTOR;
+    public static final String SUPPORT_GETCURRENTTHROW_DESCRIPTOR = THROWABLE_VOID_DESCRIPTOR;
     public static final String SUPPORT_GETCURRENTRETURN_METHOD_NAME = "__moxy_asm_getReturnableForCurrentInvocation";
-    public static final String SUPPORT_GETCURRENTRETURN_DESCRIPTOR = OBJECT_BOOL_DESCRIPTOR;
-    public static final String SUPPORT_POPRETURNTHROW_METHOD_NAME = "__moxy_asm_popReturnOrThrowForCurrentInvocation";
-    public static final String SUPPORT_POPRETURNTHROW_DESCRIPTOR = VOID_VOID_DESCRIPTOR;
+    public static final String SUPPORT_GETCURRENTRETURN_DESCRIPTOR = OBJECT_VOID_DESCRIPTOR;
     public static final String SUPPORT_SHOULD_CALL_SUPER_METHOD_NAME = "__moxy_asm_shouldCallSuperForCurrentInvocation";
     public static final String SUPPORT_SHOULD_CALL_SUPER_DESCRIPTOR = BOOLEAN_VOID_DESCRIPTOR;
     public static final String SUPPORT_SHOULD_DELEGATE_METHOD_NAME = "__moxy_asm_shouldDelegateForCurrentInvocation";
@@ -96,6 +94,14 @@ public final class TypesAndDescriptors {
     public static final String SUPPORT_GETRECORDER_DESCRIPTOR = "()" + MOXY_RECORDER_DESCRIPTOR;
     public static final String SUPPORT_UPDATECURRENTRETURNED_METHOD_NAME = "__moxy_asm_updateCurrentInvocationReturnThrow";
     public static final String SUPPORT_UPDATECURRENTRETURNED_DESCRIPTOR = VOID_OBJECT_THROWABLE_DESCRIPTOR;
+    public static final String SUPPORT_INVOCATION_ENTERED_METHOD_NAME = "__moxy_asm_invocationEntered";
+    public static final String SUPPORT_INVOCATION_ENTERED_DESCRIPTOR = OBJECT_VOID_DESCRIPTOR;
+    public static final String SUPPORT_INVOCATION_EXITED_METHOD_NAME = "__moxy_asm_invocationExited";
+    public static final String SUPPORT_INVOCATION_EXITED_DESCRIPTOR = VOID_OBJECT_DESCRIPTOR;
+    public static final String SUPPORT_REAL_METHOD_ENTERED_METHOD_NAME = "__moxy_asm_realMethodEntered";
+    public static final String SUPPORT_REAL_METHOD_ENTERED_DESCRIPTOR = OBJECT_VOID_DESCRIPTOR;
+    public static final String SUPPORT_REAL_METHOD_EXITED_METHOD_NAME = "__moxy_asm_realMethodExited";
+    public static final String SUPPORT_REAL_METHOD_EXITED_DESCRIPTOR = VOID_OBJECT_DESCRIPTOR;
     public static final String SUPPORT_MAKE_JAVA_SIGNATURE_METHOD_NAME = "__moxy_asm_makeJavaSignature";
     public static final String SUPPORT_MAKE_JAVA_SIGNATURE_DESCRIPTOR =
             "(" + STRING_DESCRIPTOR + STRING_DESCRIPTOR + ")" + STRING_DESCRIPTOR;
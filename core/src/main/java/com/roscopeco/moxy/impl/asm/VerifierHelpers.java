@@ -25,18 +25,38 @@ package com.roscopeco.moxy.impl.asm;
 
 import org.opentest4j.AssertionFailedError;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
 class VerifierHelpers {
+    /*
+     * Whether the actual invocation matches the expected (monitored) one,
+     * whose arguments may be matchers.
+     */
     private static boolean invocationsMatch(final ASMMoxyMatcherEngine engine,
-                                            final Invocation actual,
-                                            final Invocation stored) {
+                                            final Invocation expected,
+                                            final Invocation actual) {
         return
-                stored.getReceiver() == actual.getReceiver() &&     // identity is intentional!
-                        stored.getMethodName().equals(actual.getMethodName()) &&
-                        stored.getMethodDesc().equals(actual.getMethodDesc()) &&
-                        engine.argsMatch(stored.getArgs(), actual.getArgs());
+                actual.getReceiver() == expected.getReceiver() &&     // identity is intentional!
+                        actual.getMethodName().equals(expected.getMethodName()) &&
+                        actual.getMethodDesc().equals(expected.getMethodDesc()) &&
+                        engine.argsMatch(actual.getArgs(), expected.getArgs());
+    }
+
+    /*
+     * Whether the stored invocation matches any of the given (monitored) invocations.
+     */
+    static boolean matchesAny(final ASMMoxyMatcherEngine engine,
+                              final List<Invocation> invocationsToMatch,
+                              final Invocation stored) {
+        for (final Invocation invocationToMatch : invocationsToMatch) {
+            if (invocationsMatch(engine, invocationToMatch, stored)) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /*
@@ -59,6 +79,57 @@ class VerifierHelpers {
         }
     }
 
+    /*
+     * Return number of times invocationToMatch matches in the recorder's
+     * invocations of the same receiver and method, counting incrementally
+     * from the given cursor.
+     */
+    static long getCallCount(final ASMMoxyMatcherEngine engine,
+                             final Invocation invocationToMatch,
+                             final InvocationRecorder recorder,
+                             final InvocationCursor cursor) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Cannot match arguments with null engine");
+        } else if (invocationToMatch == null) {
+            throw new IllegalArgumentException("Cannot match arguments with null invocation");
+        } else {
+            return recorder.countInvocations(cursor,
+                    invocationToMatch.getReceiver(),
+                    invocationToMatch.getMethodName(),
+                    invocationToMatch.getMethodDesc(),
+                    e -> invocationsMatch(engine, invocationToMatch, e));
+        }
+    }
+
+    /*
+     * Return the number of times each of invocationsToMatch matches in
+     * invocations, in a single pass over invocations. The result is in
+     * the same order as invocationsToMatch.
+     */
+    static long[] getCallCounts(final ASMMoxyMatcherEngine engine,
+                                final List<Invocation> invocationsToMatch,
+                                final List<Invocation> invocations) {
+        if (engine == null) {
+            throw new IllegalArgumentException("Cannot match arguments with null engine");
+        } else if (invocationsToMatch == null) {
+            throw new IllegalArgumentException("Cannot match arguments with null invocation list");
+        } else if (invocations == null) {
+            throw new IllegalArgumentException("Cannot match arguments with null invocation list");
+        } else {
+            final long[] counts = new long[invocationsToMatch.size()];
+
+            for (final Invocation invocation : invocations) {
+                for (int i = 0; i < counts.length; i++) {
+                    if (invocationsMatch(engine, invocationsToMatch.get(i), invocation)) {
+                        counts[i]++;
+                    }
+                }
+            }
+
+            return counts;
+        }
+    }
+
     private VerifierHelpers() {
         throw new UnsupportedOperationException(
                 "com.roscopeco.moxy.impl.asm.VerifierHelpers is not designed for instantiation");
@@ -100,6 +171,79 @@ class VerifierHelpers {
                 .toString();
     }
 
+    static String makeExpectedCountWithinMismatchMessage(final Invocation invocation,
+                                                         final long expectedTimes,
+                                                         final long actualTimes,
+                                                         final Duration timeout) {
+        return new StringBuilder()
+                .append(StringConsts.EXPECTED_MOCK)
+                .append(invocation.toString())
+                .append(StringConsts.TO_BE_CALLED)
+                .append(StringConsts.AT_LEAST)
+                .append(StringConsts.SPACE)
+                .append(TypeStringUtils.readableTimes(expectedTimes))
+                .append(StringConsts.WITHIN)
+                .append(timeout.toMillis())
+                .append(StringConsts.MILLIS)
+                .append(StringConsts.BUT_IT_WAS_CALLED)
+                .append(TypeStringUtils.readableTimes(actualTimes))
+                .toString();
+    }
+
+    static String makeLatencyMismatchMessage(final Invocation invocation,
+                                             final double percentile,
+                                             final Duration limit,
+                                             final LatencyHistogram timings) {
+        final StringBuilder message = new StringBuilder()
+                .append(StringConsts.EXPECTED_MOCK)
+                .append(invocation.toString())
+                .append(StringConsts.TO_HAVE_LATENCY)
+                .append(TypeStringUtils.readablePercentile(percentile))
+                .append(StringConsts.PERCENTILE_OF_AT_MOST)
+                .append(TypeStringUtils.readableDuration(limit));
+
+        if (timings.getCount() == 0) {
+            return message.append(StringConsts.BUT_NO_TIMED_CALLS).toString();
+        } else {
+            return message
+                    .append(StringConsts.BUT_IT_WAS)
+                    .append(TypeStringUtils.readableDuration(timings.getPercentile(percentile)))
+                    .toString();
+        }
+    }
+
+    static String makeCallRateMismatchMessage(final Invocation invocation,
+                                              final long callsPerSecond,
+                                              final long peak) {
+        return new StringBuilder()
+                .append(StringConsts.EXPECTED_MOCK)
+                .append(invocation.toString())
+                .append(StringConsts.TO_BE_CALLED_AT_MOST)
+                .append(callsPerSecond)
+                .append(StringConsts.TIMES_PER_SECOND)
+                .append(StringConsts.BUT_IT_WAS_CALLED)
+                .append(peak)
+                .append(StringConsts.TIMES_IN_ONE_SECOND)
+                .toString();
+    }
+
+    static String makeConcurrencyMismatchMessage(final Invocation invocation,
+                                                 final StringConsts qualifier,
+                                                 final int expected,
+                                                 final int actual) {
+        return new StringBuilder()
+                .append(StringConsts.EXPECTED_MOCK)
+                .append(invocation.toString())
+                .append(StringConsts.TO_HAVE)
+                .append(qualifier)
+                .append(StringConsts.SPACE)
+                .append(expected)
+                .append(StringConsts.CONCURRENT_CALLS)
+                .append(StringConsts.BUT_IT_HAD)
+                .append(actual)
+                .toString();
+    }
+
     /*
      * Tests for an ordered match of the monitored invocations in the list
      * of actual invocations.
@@ -108,7 +252,7 @@ class VerifierHelpers {
      * one-another in order to match.
      */
     static void testOrderedMatch(final ASMMoxyMatcherEngine engine,
-                                 final List<Invocation> actualInvocations,
+                                 final Iterable<Invocation> actualInvocations,
                                  final List<Invocation> monitoredInvocations,
                                  final boolean exclusiveMode,
                                  final boolean allCalledChecked) {
@@ -120,7 +264,7 @@ class VerifierHelpers {
 
             if (!inMatch) {
                 // could this be the start of our match?
-                if (invocationsMatch(engine, actual, monitored)) {
+                if (invocationsMatch(engine, monitored, actual)) {
                     inMatch = true;
                     currentMatchPtr++;
                 }
@@ -130,7 +274,7 @@ class VerifierHelpers {
                     // exclusive mode, so reset matchPtr if next invocation isn't
                     // also a match (i.e. our wanted invocations don't exactly follow
                     // one-another).
-                    if (!invocationsMatch(engine, actual, monitored)) {
+                    if (!invocationsMatch(engine, monitored, actual)) {
                         currentMatchPtr = 0;
                         inMatch = false;
                     } else {
@@ -139,7 +283,7 @@ class VerifierHelpers {
                     }
                 } else {
                     // not exclusive, so if this isn't a match, just move on.
-                    if (invocationsMatch(engine, actual, monitored)) {
+                    if (invocationsMatch(engine, monitored, actual)) {
                         currentMatchPtr++;
                     }
                 }
@@ -156,6 +300,37 @@ class VerifierHelpers {
                 makeOrderMismatchMessage(monitoredInvocations, exclusiveMode, allCalledChecked));
     }
 
+    /*
+     * Tests for a non-exclusive ordered match of the monitored invocations,
+     * using the recorder's per-method indices rather than the full list of
+     * actual invocations.
+     *
+     * For each monitored invocation in turn, this finds the earliest matching
+     * invocation recorded after the previous match, which gives the same
+     * result as testOrderedMatch in non-exclusive mode.
+     */
+    static void testIndexedOrderedMatch(final ASMMoxyMatcherEngine engine,
+                                        final InvocationRecorder recorder,
+                                        final List<Invocation> monitoredInvocations,
+                                        final boolean allCalledChecked) {
+        long lastMatchSequence = -1;
+
+        for (final Invocation monitored : monitoredInvocations) {
+            final Invocation match = recorder.findFirstInvocationAfter(monitored.getReceiver(),
+                    monitored.getMethodName(),
+                    monitored.getMethodDesc(),
+                    lastMatchSequence,
+                    actual -> invocationsMatch(engine, monitored, actual));
+
+            if (match == null) {
+                throw new AssertionFailedError(
+                        makeOrderMismatchMessage(monitoredInvocations, false, allCalledChecked));
+            }
+
+            lastMatchSequence = match.getSequence();
+        }
+    }
+
     private static String makeOrderMismatchMessage(final List<Invocation> expected,
                                                    final boolean exclusiveMode,
                                                    final boolean allCalledChecked) {
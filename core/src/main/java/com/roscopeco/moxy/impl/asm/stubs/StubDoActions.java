@@ -23,14 +23,17 @@
  */
 package com.roscopeco.moxy.impl.asm.stubs;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 /*
  * This is used as the value in the stubbed returnMap
  * on the mocks.
+ *
+ * Actions are copy-on-write, as they are run (without
+ * locking) far more often than they are added.
  */
 public final class StubDoActions {
     private final List<Object> matchArgs;
@@ -39,9 +42,7 @@ public final class StubDoActions {
     @SafeVarargs
     public StubDoActions(final List<Object> matchArgs, final Consumer<List<?>>... actions) {
         this.matchArgs = matchArgs;
-        this.actions = new ArrayList<>(actions.length);
-
-        this.actions.addAll(Arrays.asList(actions));
+        this.actions = new CopyOnWriteArrayList<>(Arrays.asList(actions));
     }
 
     public List<Object> getMatchArgs() {
@@ -21,27 +21,113 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package com.roscopeco.moxy.impl.asm.stubs;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/*
+ * The chain of stubs (e.g. thenReturn(a).thenReturn(b)) for an
+ * invocation with given arguments.
+ *
+ * The chain is copy-on-write - it is only appended to while stubbing
+ * (under the mock's ivars lock) - and consumed by moving an atomic
+ * cursor along it, so invocations on any number of threads never
+ * need to lock. The stub under the cursor is the current stub; the
+ * last stub in the chain, and retained stubs, are never moved past.
+ */
 public final class StubInvocation {
+    private static final Stub[] EMPTY_STUBS = new Stub[0];
+
     private final List<Object> args;
-    private final Deque<Stub> stubs;
+    private volatile Stub[] stubs = EMPTY_STUBS;
+    private final AtomicInteger cursor = new AtomicInteger();
 
     public StubInvocation(final List<Object> args) {
         this.args = args;
-        this.stubs = new ArrayDeque<>();
     }
 
     public List<Object> getArgs() {
         return this.args;
     }
 
-    public Deque<Stub> getStubs() {
-        return this.stubs;
+    /*
+     * Callers must hold the mock's ivars lock.
+     */
+    public void addStub(final Stub stub) {
+        final Stub[] current = this.stubs;
+        final Stub[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = stub;
+        this.stubs = updated;
+    }
+
+    /*
+     * The current stub, or null if there are none.
+     */
+    public Stub peekStub() {
+        final Stub[] current = this.stubs;
+        final int position = this.cursor.get();
+
+        return position < current.length ? current[position] : null;
+    }
+
+    /*
+     * Atomically take the current stub, moving on to the next (unless the
+     * current one is retained, or the last). Each caller gets a different
+     * stub until the end of the chain is reached, however many threads
+     * are invoking. Returns null if there are no stubs.
+     *
+     * A StubSequence instead gives each caller its next value (through
+     * the given claim, returning the sequence itself), only moving on
+     * (if its policy allows) once it has run out.
+     */
+    public Stub claimStub(final StubClaim claim) {
+        while (true) {
+            final Stub[] current = this.stubs;
+            final int position = this.cursor.get();
+
+            if (position >= current.length) {
+                return null;
+            }
+
+            final Stub stub = current[position];
+
+            if (stub instanceof StubSequence) {
+                final StubSequence sequence = (StubSequence) stub;
+                final boolean hasFollowing = position < current.length - 1;
+                final Object next = sequence.claimNext(hasFollowing);
+
+                if (next == StubSequence.THROW) {
+                    return sequence.getExhaustedThrow();
+                } else if (next != StubSequence.NO_VALUE) {
+                    claim.setClaimedValue(next);
+                    return sequence;
+                } else if (!hasFollowing || !sequence.movesOnWhenExhausted()) {
+                    return null;
+                }
+
+                this.cursor.compareAndSet(position, position + 1);
+                continue;
+            }
+
+            if (stub.isRetained() || position == current.length - 1
+                    || this.cursor.compareAndSet(position, position + 1)) {
+                return stub;
+            }
+        }
+    }
+
+    /*
+     * As #claimStub, but only moves on if expected is still
+     * the current stub.
+     */
+    public void popStub(final Stub expected) {
+        final Stub[] current = this.stubs;
+        final int position = this.cursor.get();
+
+        if (position < current.length - 1 && current[position] == expected && !expected.isRetained()) {
+            this.cursor.compareAndSet(position, position + 1);
+        }
     }
 }
@@ -0,0 +1,125 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm.stubs;
+
+import com.roscopeco.moxy.api.ExhaustionPolicy;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/*
+ * Stub that returns the values from an Iterator in turn, pulling
+ * each one only when a call claims it (see StubInvocation#claimStub).
+ *
+ * Values are pulled under this stub's lock, so each call gets a
+ * different value, in order, however many threads are calling. Claimed
+ * values are handed straight to the caller (rather than each being
+ * wrapped in a stub), so long sequences don't allocate per call.
+ */
+public final class StubSequence implements Stub {
+    // Returned by claimNext when the call should behave as unstubbed
+    // (or move on to the following stub).
+    public static final Object NO_VALUE = new Object();
+
+    // Returned by claimNext when the call should throw (see #getExhaustedThrow).
+    public static final Object THROW = new Object();
+
+    private final Iterator<?> values;
+    private final ExhaustionPolicy policy;
+
+    private Object last;
+    private boolean hasLast;
+    private StubThrow exhaustedThrow;
+
+    public StubSequence(final Iterator<?> values, final ExhaustionPolicy policy) {
+        this.values = values;
+        this.policy = policy;
+    }
+
+    @Override
+    public StubType getType() {
+        return StubType.RETURN_OBJECT;
+    }
+
+    /*
+     * Retained, as it's StubInvocation#claimStub that decides whether to
+     * move on once it's exhausted.
+     */
+    @Override
+    public boolean isRetained() {
+        return true;
+    }
+
+    @Override
+    public Object getObject(final List<Object> actualArgs) {
+        final Object next = this.claimNext(false);
+
+        if (next == THROW) {
+            throw (NoSuchElementException) this.getExhaustedThrow().getObject(actualArgs);
+        } else {
+            return next == NO_VALUE ? null : next;
+        }
+    }
+
+    public boolean movesOnWhenExhausted() {
+        return this.policy == ExhaustionPolicy.NEXT_STUB;
+    }
+
+    /*
+     * The value for a single call - the next value, or once exhausted,
+     * as determined by the policy. Returns THROW when the call should
+     * throw, or NO_VALUE when it should behave as unstubbed (or, where
+     * hasFollowing and the policy is NEXT_STUB, move on to the following
+     * stub).
+     */
+    public synchronized Object claimNext(final boolean hasFollowing) {
+        if (this.values.hasNext()) {
+            this.last = this.values.next();
+            this.hasLast = true;
+            return this.last;
+        }
+
+        switch (this.policy) {
+            case THROW:
+                return THROW;
+            case RETURN_DEFAULT:
+                return NO_VALUE;
+            default:
+                return !hasFollowing && this.hasLast ? this.last : NO_VALUE;
+        }
+    }
+
+    /*
+     * The stub for calls made once exhausted with the THROW policy.
+     * Created once, when first needed.
+     */
+    public synchronized Stub getExhaustedThrow() {
+        if (this.exhaustedThrow == null) {
+            this.exhaustedThrow = new StubThrow(new NoSuchElementException("No more stubbed values to return"), true);
+        }
+
+        return this.exhaustedThrow;
+    }
+}
@@ -58,6 +58,21 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
     protected final String methodName;
     protected final String methodDescriptor;
 
+    // Bound the whole method body after the preamble, so in-flight
+    // calls are counted down however the method exits. The region is
+    // split around the super and delegate calls' try blocks (which rethrow
+    // into the following part) so the handlers don't overlap.
+    //
+    // Created afresh by each generatePreamble, as code may be generated
+    // more than once (e.g. for inherited native methods).
+    private Label inFlightStart;
+    private Label inFlightEnd;
+    private Label inFlightHandler;
+    private Label superTryStart;
+    private Label superTryEnd;
+    private Label delegateTryStart;
+    private Label delegateTryEnd;
+
     @SuppressWarnings("squid:S00107" /* This internal class requires these parameters */)
     protected AbstractMoxyMockMethodVisitor(final MethodVisitor delegate,
                                             final Class<?> originalClass,
@@ -354,6 +369,108 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
         return this.getFirstAvailableLocalSlot() + 1;
     }
 
+    /**
+     * Get the local slot that will be used as temporary storage
+     * for the real method timing (see {@link #generateRealMethodEntered()}).
+     *
+     * @return The local slot with the timing.
+     */
+    private int getRealMethodTimingLocalSlot() {
+        return this.getFirstAvailableLocalSlot() + 2;
+    }
+
+    /**
+     * Get the local slot that will be used as temporary storage
+     * for the in-flight counter (see {@link #generateInvocationEntered()}).
+     *
+     * @return The local slot with the counter.
+     */
+    private int getInFlightCounterLocalSlot() {
+        return this.getFirstAvailableLocalSlot() + 3;
+    }
+
+    /**
+     * Generate a call to the support's invocationEntered, storing the
+     * result (a counter, or null if not tracking concurrency) in the
+     * counter slot, and mark the start of the in-flight region.
+     */
+    private void generateInvocationEntered() {
+        this.inFlightStart = new Label();
+        this.inFlightEnd = new Label();
+        this.inFlightHandler = new Label();
+        this.superTryStart = new Label();
+        this.superTryEnd = new Label();
+        this.delegateTryStart = new Label();
+        this.delegateTryEnd = new Label();
+
+        this.generateLoadMockSupport();
+        this.delegate.visitMethodInsn(INVOKEINTERFACE,
+                MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
+                SUPPORT_INVOCATION_ENTERED_METHOD_NAME,
+                SUPPORT_INVOCATION_ENTERED_DESCRIPTOR,
+                true);
+        this.delegate.visitVarInsn(ASTORE, this.getInFlightCounterLocalSlot());
+
+        this.delegate.visitTryCatchBlock(this.inFlightStart, this.superTryStart, this.inFlightHandler, null);
+        this.delegate.visitTryCatchBlock(this.superTryEnd, this.delegateTryStart, this.inFlightHandler, null);
+        this.delegate.visitTryCatchBlock(this.delegateTryEnd, this.inFlightEnd, this.inFlightHandler, null);
+        this.delegate.visitLabel(this.inFlightStart);
+    }
+
+    /**
+     * Generate a call to the support's invocationExited with the counter
+     * stored by {@link #generateInvocationEntered()}. Leaves the stack as-is.
+     */
+    private void generateInvocationExited() {
+        this.generateLoadMockSupport();
+        this.delegate.visitVarInsn(ALOAD, this.getInFlightCounterLocalSlot());
+        this.delegate.visitMethodInsn(INVOKEINTERFACE,
+                MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
+                SUPPORT_INVOCATION_EXITED_METHOD_NAME,
+                SUPPORT_INVOCATION_EXITED_DESCRIPTOR,
+                true);
+    }
+
+    /**
+     * Generate the catch-all handler for the in-flight region, which
+     * counts the call down and rethrows.
+     */
+    private void generateInFlightHandler() {
+        this.delegate.visitLabel(this.inFlightEnd);
+        this.delegate.visitLabel(this.inFlightHandler);
+        this.generateInvocationExited();
+        this.delegate.visitInsn(ATHROW);
+    }
+
+    /**
+     * Generate a call to the support's realMethodEntered, storing the
+     * result (a timing, or null if timing is disabled) in the timing slot.
+     * Must be generated immediately before calling a real or delegate method.
+     */
+    private void generateRealMethodEntered() {
+        this.generateLoadMockSupport();
+        this.delegate.visitMethodInsn(INVOKEINTERFACE,
+                MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
+                SUPPORT_REAL_METHOD_ENTERED_METHOD_NAME,
+                SUPPORT_REAL_METHOD_ENTERED_DESCRIPTOR,
+                true);
+        this.delegate.visitVarInsn(ASTORE, this.getRealMethodTimingLocalSlot());
+    }
+
+    /**
+     * Generate a call to the support's realMethodExited with the timing
+     * stored by {@link #generateRealMethodEntered()}. Leaves the stack as-is.
+     */
+    private void generateRealMethodExited() {
+        this.generateLoadMockSupport();
+        this.delegate.visitVarInsn(ALOAD, this.getRealMethodTimingLocalSlot());
+        this.delegate.visitMethodInsn(INVOKEINTERFACE,
+                MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
+                SUPPORT_REAL_METHOD_EXITED_METHOD_NAME,
+                SUPPORT_REAL_METHOD_EXITED_DESCRIPTOR,
+                true);
+    }
+
     /**
      * Load the method arguments to the stack.
      * <p>
@@ -436,12 +553,14 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
         this.delegate.visitTypeInsn(CHECKCAST, boxClass);
         this.delegate.visitMethodInsn(INVOKEVIRTUAL, boxClass, valueOfMethod, valueOfDescriptor, false);
         this.delegate.visitLabel(returnLabel);
+        this.generateInvocationExited();
         this.delegate.visitInsn(returnOpcode);
 
         this.delegate.visitLabel(defaultValueLabel);
 
         // No - return default value for type.
         this.delegate.visitInsn(defaultValueOpcode);
+        this.generateInvocationExited();
         this.delegate.visitInsn(returnOpcode);
     }
 
@@ -520,6 +639,10 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
                 MOXY_RECORDER_RECORD_METHOD_NAME,
                 MOXY_RECORDER_RECORD_DESCRIPTOR,
                 false);
+
+        // Count the call in (if tracking concurrency) - generateReturn
+        // ensures it's counted out again.
+        this.generateInvocationEntered();
     }
 
     // NOTE this isn't super-efficient, but it's easier to grok this way...
@@ -584,14 +707,15 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
         if (!this.wasAbstract) {
             // Handle super call
             // Labels for try/catch
-            final Label superTryStart = new Label();
-            final Label superTryEnd = new Label();
             final Label superTryHandler = new Label();
 
-            this.delegate.visitTryCatchBlock(superTryStart, superTryEnd, superTryHandler, THROWABLE_INTERNAL_NAME);
+            this.delegate.visitTryCatchBlock(this.superTryStart, this.superTryEnd, superTryHandler, THROWABLE_INTERNAL_NAME);
+
+            // Start timing (if enabled)
+            this.generateRealMethodEntered();
 
             // start of try
-            this.delegate.visitLabel(superTryStart);
+            this.delegate.visitLabel(this.superTryStart);
 
             // call super
             this.generateRealMethodCall();
@@ -611,11 +735,13 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
             }
 
             // end of try
-            this.delegate.visitLabel(superTryEnd);
+            this.delegate.visitLabel(this.superTryEnd);
+            this.generateRealMethodExited();
             this.delegate.visitJumpInsn(GOTO, returnLabel);
 
             // start of catch : exception is now on top of stack.
             this.delegate.visitLabel(superTryHandler);
+            this.generateRealMethodExited();
             this.delegate.visitInsn(DUP);             // dup for later rethrow
 
             // Update the current invocation's thrown field to reflect the exception
@@ -634,6 +760,9 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
 
             // end of catch
         } else {
+            // No super call, so the in-flight region isn't split.
+            this.delegate.visitLabel(this.superTryStart);
+            this.delegate.visitLabel(this.superTryEnd);
             this.generateThrowInvalidStubbing("it is abstract");
         }
 
@@ -652,7 +781,17 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
         this.delegate.visitJumpInsn(IF_ICMPEQ, noCallSuperOrDelegateLabel);
 
         // Delegating, so delegate.
-        // TODO Need to be catching and recording exceptions here, like for super, above. See #2
+        // TODO Need to be recording exceptions here, like for super, above. See #2
+        final Label delegateTryHandler = new Label();
+        final Label delegateReturnedLabel = new Label();
+
+        this.delegate.visitTryCatchBlock(this.delegateTryStart, this.delegateTryEnd, delegateTryHandler, THROWABLE_INTERNAL_NAME);
+
+        // Start timing (if enabled)
+        this.generateRealMethodEntered();
+
+        // start of try
+        this.delegate.visitLabel(this.delegateTryStart);
         this.generateLoadMockSupport();
         this.delegate.visitMethodInsn(INVOKEINTERFACE,
                 MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
@@ -660,6 +799,19 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
                 SUPPORT_RUN_DELEGATE_DESCRIPTOR,
                 true);
 
+        // end of try
+        this.delegate.visitLabel(this.delegateTryEnd);
+        this.generateRealMethodExited();
+        this.delegate.visitJumpInsn(GOTO, delegateReturnedLabel);
+
+        // start of catch : exception is now on top of stack, so just time and rethrow.
+        this.delegate.visitLabel(delegateTryHandler);
+        this.generateRealMethodExited();
+        this.delegate.visitInsn(ATHROW);
+
+        // end of catch
+        this.delegate.visitLabel(delegateReturnedLabel);
+
         if (this.isNonVoidMethod()) {
             // Update the current invocation's return field to reflect the result
             this.delegate.visitInsn(DUP);
@@ -766,7 +918,6 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
         this.generateLoadMockSupport();
         this.delegate.visitInsn(DUP);
         this.delegate.visitInsn(DUP);
-        this.delegate.visitInsn(ICONST_1);    // forceRetain = true
         this.delegate.visitMethodInsn(INVOKEINTERFACE,
                 MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
                 SUPPORT_GETCURRENTRETURN_METHOD_NAME,
@@ -778,7 +929,6 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
 
         // Get the exception this method will throw (or null if none)
         this.delegate.visitInsn(SWAP);
-        this.delegate.visitInsn(ICONST_1);    // forceRetain = true
         this.delegate.visitMethodInsn(INVOKEINTERFACE,
                 MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
                 SUPPORT_GETCURRENTTHROW_METHOD_NAME,
@@ -795,14 +945,6 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
                 SUPPORT_UPDATECURRENTRETURNED_DESCRIPTOR,
                 true);
 
-        // pop return/throw
-        this.generateLoadMockSupport();
-        this.delegate.visitMethodInsn(INVOKEINTERFACE,
-                MOXY_SUPPORT_INTERFACE_INTERNAL_NAME,
-                SUPPORT_POPRETURNTHROW_METHOD_NAME,
-                SUPPORT_POPRETURNTHROW_DESCRIPTOR,
-                true);
-
         // Always do exception first.
         // Should never have both anyway, this is/ enforced in ASMMoxyMockSupport
         // when the fields are set.
@@ -888,10 +1030,12 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
                 // return it. CHECKCAST not strictly necessary, but for safety's sake...
                 this.delegate.visitTypeInsn(CHECKCAST, this.returnType.getInternalName());
                 this.delegate.visitLabel(returnLabel);
+                this.generateInvocationExited();
                 this.delegate.visitInsn(ARETURN);
                 break;
             case VOID_PRIMITIVE_INTERNAL_NAME:
                 this.delegate.visitLabel(returnLabel);
+                this.generateInvocationExited();
                 this.delegate.visitInsn(RETURN);
                 break;
             default:
@@ -899,5 +1043,7 @@ public abstract class AbstractMoxyMockMethodVisitor extends MethodVisitor {
                         + SUPER_NEW_JVM
                         + TO_FIX + "MoxyMockingMethodVisitor#generateReturn()");
         }
+
+        this.generateInFlightHandler();
     }
 }
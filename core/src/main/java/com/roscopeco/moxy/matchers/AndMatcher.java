@@ -51,6 +51,17 @@ class AndMatcher<T> implements MoxyMatcher<T> {
         return this.matchers.stream().allMatch(e -> e.matches(arg));
     }
 
+    @Override
+    public int cost() {
+        int cost = 0;
+
+        for (final MoxyMatcher<? super T> matcher : this.matchers) {
+            cost += matcher.cost();
+        }
+
+        return cost;
+    }
+
     // NOTE inefficient way to reverse the matchers!
     // NOTE not strictly type-safe, but only used internally so it'll be fine...
     ///         ... as long as long as the stack stays consistent (!)
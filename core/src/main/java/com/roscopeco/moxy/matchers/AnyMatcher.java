@@ -34,6 +34,11 @@ class AnyMatcher<T> implements MoxyMatcher<T> {
         return true;
     }
 
+    @Override
+    public int cost() {
+        return COST_TRIVIAL;
+    }
+
     @Override
     public String toString() {
         return "<any>";
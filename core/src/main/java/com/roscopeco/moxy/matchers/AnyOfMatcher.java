@@ -49,6 +49,11 @@ class AnyOfMatcher<T> implements MoxyMatcher<T> {
         return this.objects.contains(arg);
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         if (this.objects.size() < 3) {
@@ -37,6 +37,11 @@ class ContainsMatcher extends SimpleObjectMatcher<String> {
         }
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<contains" + super.toString();
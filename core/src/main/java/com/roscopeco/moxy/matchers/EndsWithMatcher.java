@@ -37,6 +37,11 @@ class EndsWithMatcher extends SimpleObjectMatcher<String> {
         }
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<endsWith" + super.toString();
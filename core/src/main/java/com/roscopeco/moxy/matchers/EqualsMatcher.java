@@ -38,6 +38,11 @@ class EqualsMatcher<T> extends SimpleObjectMatcher<T> {
         }
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<eq" + super.toString();
@@ -34,6 +34,11 @@ class GreaterThanMatcher<T extends Comparable<T>> extends SimpleObjectMatcher<T>
         return this.getObject().compareTo(arg) < 0;
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<gt" + super.toString();
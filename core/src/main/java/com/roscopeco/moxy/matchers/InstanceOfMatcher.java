@@ -47,6 +47,11 @@ class InstanceOfMatcher<T> implements MoxyMatcher<T> {
         }
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<instanceOf: " + this.clz + ">";
@@ -34,6 +34,11 @@ class LessThanMatcher<T extends Comparable<T>> extends SimpleObjectMatcher<T> {
         return this.getObject().compareTo(arg) > 0;
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<lt" + super.toString();
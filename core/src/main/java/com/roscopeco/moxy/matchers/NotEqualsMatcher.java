@@ -38,6 +38,11 @@ class NotEqualsMatcher<T> extends SimpleObjectMatcher<T> {
         }
     }
 
+    @Override
+    public int cost() {
+        return COST_CHEAP;
+    }
+
     @Override
     public String toString() {
         return "<neq" + super.toString();
@@ -39,6 +39,11 @@ class NotMatcher<T> implements MoxyMatcher<T> {
         return !this.matcher.matches(arg);
     }
 
+    @Override
+    public int cost() {
+        return this.matcher.cost();
+    }
+
     // NOTE not strictly type-safe, but only used internally so it'll be fine...
     ///         ... as long as long as the stack stays consistent (!)
     @SuppressWarnings("unchecked")
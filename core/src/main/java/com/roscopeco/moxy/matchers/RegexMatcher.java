@@ -42,6 +42,11 @@ class RegexMatcher extends SimpleObjectMatcher<CharSequence> {
         }
     }
 
+    @Override
+    public int cost() {
+        return COST_EXPENSIVE;
+    }
+
     @Override
     public String toString() {
         return "<regex: " + this.regex.toString() + ">";
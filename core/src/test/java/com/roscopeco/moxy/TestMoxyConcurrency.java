@@ -0,0 +1,170 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.MoxyEngine;
+import com.roscopeco.moxy.model.MethodWithArgAndReturn;
+import com.roscopeco.moxy.model.SleepingClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.roscopeco.moxy.matchers.Matchers.any;
+import static com.roscopeco.moxy.matchers.Matchers.anyInt;
+import static com.roscopeco.moxy.matchers.Matchers.anyLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyConcurrency {
+    private static final int THREADS = 4;
+
+    private MoxyEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        this.engine = Moxy.getMoxyEngine();
+        this.engine.reset();
+        this.engine.setConcurrencyTrackingEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.engine.setConcurrencyTrackingEnabled(false);
+    }
+
+    private void callConcurrently(final MethodWithArgAndReturn mock) throws Exception {
+        final CountDownLatch entered = new CountDownLatch(THREADS);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        Moxy.when(() -> mock.sayHelloTo(any())).thenAnswer(args -> {
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return "Hello";
+        });
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final Thread thread = new Thread(() -> mock.sayHelloTo("Bill"));
+            threads.add(thread);
+            thread.start();
+        }
+
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    @Test
+    void testConcurrentCallsAreCounted() throws Exception {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        this.callConcurrently(mock);
+
+        Moxy.assertMock(() -> mock.sayHelloTo(any()))
+                .wasCalled(THREADS)
+                .hadMaxConcurrency(THREADS)
+                .hadMaxConcurrencyAtMost(THREADS);
+
+        assertThatThrownBy(() -> Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrencyAtMost(1))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected mock sayHelloTo(<any>) to have at most 1 concurrent calls, but it had " + THREADS);
+
+        assertThatThrownBy(() -> Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrency(2))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected mock sayHelloTo(<any>) to have exactly 2 concurrent calls, but it had " + THREADS);
+    }
+
+    @Test
+    void testSequentialCallsHaveConcurrencyOfOne() {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Bill");
+        mock.sayHelloTo("Ben");
+        mock.hasTwoArgs("Bill", 1);
+
+        Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrency(1);
+        Moxy.assertMock(() -> mock.hasTwoArgs(any(), anyInt())).hadMaxConcurrency(1);
+        Moxy.assertMock(() -> mock.objectMethod(any())).hadMaxConcurrency(0);
+    }
+
+    @Test
+    void testCallsThatThrowAreCountedOut() {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+        Moxy.when(() -> mock.sayHelloTo(any())).thenThrow(new IllegalStateException("Boom"));
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> mock.sayHelloTo("Bill")).isInstanceOf(IllegalStateException.class);
+        }
+
+        Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrency(1);
+    }
+
+    @Test
+    void testRealMethodsThatThrowAreCountedOut() {
+        final SleepingClass spy = Moxy.spy(SleepingClass.class);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> spy.sleepThenThrow(1)).isInstanceOf(IllegalStateException.class);
+        }
+
+        Moxy.assertMock(() -> spy.sleepThenThrow(anyLong())).hadMaxConcurrency(1);
+    }
+
+    @Test
+    void testResetDiscardsHighWaterMark() throws Exception {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        this.callConcurrently(mock);
+        this.engine.reset();
+
+        Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrency(0);
+
+        mock.sayHelloTo("Bill");
+
+        Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrency(1);
+    }
+
+    @Test
+    void testNotCountedWhenDisabled() {
+        this.engine.setConcurrencyTrackingEnabled(false);
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Bill");
+
+        Moxy.assertMock(() -> mock.sayHelloTo(any())).hadMaxConcurrency(0);
+    }
+}
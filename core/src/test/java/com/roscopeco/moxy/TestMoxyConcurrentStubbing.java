@@ -0,0 +1,140 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.MoxyStubber;
+import com.roscopeco.moxy.model.MethodWithArgAndReturn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.roscopeco.moxy.matchers.Matchers.any;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestMoxyConcurrentStubbing {
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 500;
+
+    @BeforeEach
+    void setUp() {
+        Moxy.getMoxyEngine().reset();
+    }
+
+    private List<Future<?>> runConcurrently(final ExecutorService executor, final Runnable task) {
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        return futures;
+    }
+
+    @Test
+    void testConsecutiveReturnsAreEachReturnedOnceUnderConcurrentCalls() throws Exception {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+        final int stubbed = THREADS * CALLS_PER_THREAD / 2;
+
+        final MoxyStubber<String> stubber = Moxy.when(() -> mock.sayHelloTo(any()));
+        for (int i = 0; i < stubbed; i++) {
+            stubber.thenReturn("" + i);
+        }
+        stubber.thenReturn("last");
+
+        final ConcurrentLinkedQueue<String> results = new ConcurrentLinkedQueue<>();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            for (final Future<?> future : this.runConcurrently(executor, () -> {
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    results.add(mock.sayHelloTo("Bill"));
+                }
+            })) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < stubbed; i++) {
+            expected.add("" + i);
+        }
+        for (int i = stubbed; i < THREADS * CALLS_PER_THREAD; i++) {
+            expected.add("last");
+        }
+
+        assertThat(results).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void testStubbingWhileInvokingConcurrently() throws Exception {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+        Moxy.when(() -> mock.sayHelloTo("Bill")).thenReturn("Hi, Bill");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        try {
+            final CountDownLatch invoking = new CountDownLatch(1);
+            final Future<?> stubbing = executor.submit(() -> {
+                invoking.await();
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    final String who = "Ben" + i;
+                    Moxy.when(() -> mock.sayHelloTo(who)).thenReturn("Hi, " + who);
+                }
+                return null;
+            });
+
+            for (final Future<?> future : this.runConcurrently(executor, () -> {
+                invoking.countDown();
+                for (int i = 0; i < CALLS_PER_THREAD; i++) {
+                    assertThat(mock.sayHelloTo("Bill")).isEqualTo("Hi, Bill");
+                }
+            })) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            stubbing.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(mock.sayHelloTo("Ben42")).isEqualTo("Hi, Ben42");
+        assertThat(mock.sayHelloTo("Bill")).isEqualTo("Hi, Bill");
+    }
+}
@@ -27,7 +27,9 @@ package com.roscopeco.moxy;
 import com.roscopeco.moxy.model.ClassWithDefaultConfiguredReturnTypes;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -73,4 +75,48 @@ class TestMoxyConfiguredDefaultReturns {
 
         Moxy.getMoxyEngine().resetDefaultReturnTypes();
     }
+
+    @Test
+    void testMoxyMockDefaultReturnsForContainersAreSharedEmptyValues() {
+        final ClassWithDefaultConfiguredReturnTypes mock = Moxy.mock(ClassWithDefaultConfiguredReturnTypes.class);
+
+        assertThat(mock.returnListOfString()).isEmpty();
+        assertThat(mock.returnMapStringToString()).isEmpty();
+        assertThat(mock.returnSetOfString()).isEmpty();
+
+        assertThat(mock.returnListOfString()).isSameAs(mock.returnListOfString());
+        assertThat(mock.returnMapStringToString()).isSameAs(mock.returnMapStringToString());
+        assertThat(mock.returnSetOfString()).isSameAs(mock.returnSetOfString());
+    }
+
+    @Test
+    void testMoxyMockDefaultReturnForStreamIsNewEmptyStreamEachCall() {
+        final ClassWithDefaultConfiguredReturnTypes mock = Moxy.mock(ClassWithDefaultConfiguredReturnTypes.class);
+
+        final Stream<String> first = mock.returnStreamOfString();
+        final Stream<String> second = mock.returnStreamOfString();
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+    }
+
+    @Test
+    void testMoxyMockDefaultConfiguredReturnTypeChangesAfterMockIsCalled() {
+        final ClassWithDefaultConfiguredReturnTypes mock = Moxy.mock(ClassWithDefaultConfiguredReturnTypes.class);
+
+        assertThat(mock.returnListOfString()).isEmpty();
+
+        try {
+            Moxy.getMoxyEngine().registerDefaultReturnForType(List.class.getName(), () -> List.of("Goodbye"));
+            assertThat(mock.returnListOfString()).containsExactly("Goodbye");
+
+            Moxy.getMoxyEngine().removeDefaultReturnForType(List.class.getName());
+            assertThat(mock.returnListOfString()).isNull();
+        } finally {
+            Moxy.getMoxyEngine().resetDefaultReturnTypes();
+        }
+
+        assertThat(mock.returnListOfString()).isEmpty();
+    }
 }
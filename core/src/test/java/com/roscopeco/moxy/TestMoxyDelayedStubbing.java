@@ -0,0 +1,211 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.MoxyEngine;
+import com.roscopeco.moxy.api.VirtualClock;
+import com.roscopeco.moxy.model.AsyncService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.roscopeco.moxy.matchers.Matchers.any;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyDelayedStubbing {
+    private MoxyEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        this.engine = Moxy.getMoxyEngine();
+        this.engine.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.engine.useRealClock();
+    }
+
+    @Test
+    void testThenReturnAfterCompletesAfterDelay() throws Exception {
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        Moxy.when(() -> mock.fetch(any())).thenReturnAfter(Duration.ofMillis(50), "value");
+
+        final long start = System.nanoTime();
+        final CompletableFuture<String> future = mock.fetch("key");
+
+        assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(45));
+
+        Moxy.assertMock(() -> mock.fetch("key")).wasCalledOnce();
+    }
+
+    @Test
+    void testThenReturnAfterDoesNotBlockCallers() throws Exception {
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        Moxy.when(() -> mock.fetch(any())).thenReturnAfter(Duration.ofMillis(200), "value");
+
+        final long start = System.nanoTime();
+        final List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(mock.fetch("key"));
+        }
+
+        assertThat(futures).noneMatch(CompletableFuture::isDone);
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        assertThat(futures).allMatch(f -> "value".equals(f.join()));
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void testThenThrowAfterCompletesExceptionally() {
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        final RuntimeException boom = new RuntimeException("Boom");
+        Moxy.when(() -> mock.fetchStage(any())).thenThrowAfter(Duration.ofMillis(10), boom);
+
+        final CompletableFuture<String> future = mock.fetchStage("key").toCompletableFuture();
+
+        assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(boom);
+    }
+
+    @Test
+    void testVirtualClockControlsCompletion() {
+        final VirtualClock clock = this.engine.useVirtualClock();
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        Moxy.when(() -> mock.fetch(any())).thenReturnAfter(Duration.ofSeconds(10), "value");
+
+        final CompletableFuture<String> first = mock.fetch("key");
+        clock.advance(Duration.ofSeconds(4));
+        final CompletableFuture<String> second = mock.fetch("key");
+
+        assertThat(clock.getPendingCount()).isEqualTo(2);
+
+        clock.advance(Duration.ofSeconds(5));
+        assertThat(first).isNotDone();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(first).isCompletedWithValue("value");
+        assertThat(second).isNotDone();
+        assertThat(clock.getPendingCount()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(4));
+        assertThat(second).isCompletedWithValue("value");
+        assertThat(clock.getPendingCount()).isZero();
+        assertThat(clock.getElapsed()).isEqualTo(Duration.ofSeconds(14));
+    }
+
+    @Test
+    void testVirtualClockCompletesResponsesScheduledWhileAdvancing() {
+        final VirtualClock clock = this.engine.useVirtualClock();
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        Moxy.when(() -> mock.fetch(any())).thenReturnAfter(Duration.ofMinutes(1), "value");
+
+        final CompletableFuture<String> chained = mock.fetch("one")
+                .thenCompose(v -> mock.fetch("two"))
+                .thenCompose(v -> mock.fetch("three"));
+
+        clock.advance(Duration.ofMinutes(2));
+        assertThat(chained).isNotDone();
+
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(chained).isCompletedWithValue("value");
+    }
+
+    @Test
+    void testVirtualClockDoesNotAffectStubbingAfterUseRealClock() throws Exception {
+        final VirtualClock clock = this.engine.useVirtualClock();
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        Moxy.when(() -> mock.fetch(any())).thenReturnAfter(Duration.ofMillis(1), "value");
+
+        final CompletableFuture<String> virtual = mock.fetch("key");
+        this.engine.useRealClock();
+        final CompletableFuture<String> real = mock.fetch("key");
+
+        assertThat(real.get(10, TimeUnit.SECONDS)).isEqualTo("value");
+        assertThat(virtual).isNotDone();
+
+        clock.advance(Duration.ofMillis(1));
+        assertThat(virtual).isCompletedWithValue("value");
+    }
+
+    @Test
+    void testThenReturnAfterCanBeChained() {
+        final VirtualClock clock = this.engine.useVirtualClock();
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+        Moxy.when(() -> mock.fetch(any()))
+                .thenReturnAfter(Duration.ofSeconds(1), "slow")
+                .thenReturn(CompletableFuture.completedFuture("fast"));
+
+        final CompletableFuture<String> slow = mock.fetch("key");
+
+        assertThat(mock.fetch("key")).isCompletedWithValue("fast");
+        assertThat(slow).isNotDone();
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(slow).isCompletedWithValue("slow");
+    }
+
+    @Test
+    void testThenReturnAfterWithIncompatibleReturnTypeThrowsIllegalArgumentException() {
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+
+        assertThatThrownBy(() -> Moxy.when(() -> mock.fetchNow(any())).thenReturnAfter(Duration.ofMillis(1), "value"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub java.lang.String fetchNow(java.lang.String) "
+                        + "to complete after a delay - it cannot return a CompletableFuture");
+    }
+
+    @Test
+    void testThenReturnAfterWithBadArgumentsThrowsIllegalArgumentException() {
+        final AsyncService mock = Moxy.mock(AsyncService.class);
+
+        assertThatThrownBy(() -> Moxy.when(() -> mock.fetch(any())).thenReturnAfter(null, "value"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null or negative delay");
+
+        assertThatThrownBy(() -> Moxy.when(() -> mock.fetch(any())).thenReturnAfter(Duration.ofMillis(-1), "value"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null or negative delay");
+
+        assertThatThrownBy(() -> Moxy.when(() -> mock.fetch(any())).thenThrowAfter(Duration.ofMillis(1), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null throwable");
+
+        assertThatThrownBy(() -> this.engine.useVirtualClock().advance(Duration.ofMillis(-1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot advance clock by null or negative amount");
+    }
+}
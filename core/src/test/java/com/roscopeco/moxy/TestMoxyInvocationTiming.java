@@ -0,0 +1,163 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.InvocationTimings;
+import com.roscopeco.moxy.api.MoxyEngine;
+import com.roscopeco.moxy.api.MoxyException;
+import com.roscopeco.moxy.model.SleepingClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.time.Duration;
+
+import static com.roscopeco.moxy.matchers.Matchers.anyLong;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyInvocationTiming {
+    private MoxyEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        this.engine = Moxy.getMoxyEngine();
+        this.engine.reset();
+        this.engine.setInvocationTimingEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.engine.setInvocationTimingEnabled(false);
+    }
+
+    @Test
+    void testSpyRealMethodCallsAreTimed() throws Exception {
+        final SleepingClass spy = Moxy.spy(SleepingClass.class);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(spy.sleepFor(20)).isEqualTo("Slept");
+        }
+
+        final InvocationTimings timings = this.engine.getInvocationTimings(() -> spy.sleepFor(anyLong()));
+
+        assertThat(timings.getCount()).isEqualTo(5);
+        assertThat(timings.getMin()).isGreaterThanOrEqualTo(Duration.ofMillis(19));
+        assertThat(timings.getPercentile(50)).isBetween(timings.getMin(), timings.getMax());
+        assertThat(timings.getPercentile(100)).isEqualTo(timings.getMax());
+        assertThat(timings.getMean()).isBetween(timings.getMin(), timings.getMax());
+        assertThat(timings.getPeakCallsPerSecond()).isBetween(1L, 5L);
+
+        Moxy.assertMock(() -> spy.sleepFor(anyLong()))
+                .wasCalled(5)
+                .hadLatencyAtMost(99, Duration.ofSeconds(10))
+                .hadCallRateAtMost(5);
+
+        assertThatThrownBy(() -> Moxy.assertMock(() -> spy.sleepFor(anyLong())).hadLatencyAtMost(50, Duration.ofMillis(1)))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessageStartingWith("Expected mock sleepFor(<any>) to have latency at the 50th percentile of at most 1ms, but it was ");
+
+        assertThatThrownBy(() -> Moxy.assertMock(() -> spy.sleepFor(anyLong())).hadCallRateAtMost(0))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessageStartingWith("Expected mock sleepFor(<any>) to be called at most 0 times per second, but it was called ");
+    }
+
+    @Test
+    void testNestedRealMethodCallsAreTimedSeparately() throws Exception {
+        final SleepingClass spy = Moxy.spy(SleepingClass.class);
+
+        spy.nap();
+
+        final InvocationTimings nap = this.engine.getInvocationTimings(spy::nap);
+        final InvocationTimings sleepFor = this.engine.getInvocationTimings(() -> spy.sleepFor(anyLong()));
+
+        assertThat(nap.getCount()).isEqualTo(1);
+        assertThat(sleepFor.getCount()).isEqualTo(1);
+        assertThat(nap.getMax()).isGreaterThanOrEqualTo(sleepFor.getMax());
+        assertThat(sleepFor.getMax()).isGreaterThanOrEqualTo(Duration.ofMillis(49));
+    }
+
+    @Test
+    void testRealMethodCallsThatThrowAreTimed() {
+        final SleepingClass spy = Moxy.spy(SleepingClass.class);
+
+        assertThatThrownBy(() -> spy.sleepThenThrow(10)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(this.engine.getInvocationTimings(() -> spy.sleepThenThrow(anyLong())).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testDelegateCallsAreTimed() throws Exception {
+        final SleepingClass mock = Moxy.mock(SleepingClass.class);
+        Moxy.when(() -> mock.sleepFor(anyLong())).thenDelegateTo(new SleepingClass());
+
+        mock.sleepFor(10);
+
+        assertThat(this.engine.getInvocationTimings(() -> mock.sleepFor(anyLong())).getMax())
+                .isGreaterThanOrEqualTo(Duration.ofMillis(9));
+    }
+
+    @Test
+    void testDelegateCallsThatThrowAreTimed() {
+        final SleepingClass mock = Moxy.mock(SleepingClass.class);
+        Moxy.when(() -> mock.sleepThenThrow(anyLong())).thenDelegateTo(new SleepingClass());
+
+        assertThatThrownBy(() -> mock.sleepThenThrow(10)).isInstanceOf(MoxyException.class);
+        assertThatThrownBy(() -> mock.sleepThenThrow(10)).isInstanceOf(MoxyException.class);
+
+        final InvocationTimings timings = this.engine.getInvocationTimings(() -> mock.sleepThenThrow(anyLong()));
+        assertThat(timings.getCount()).isEqualTo(2);
+        assertThat(timings.getMax()).isGreaterThanOrEqualTo(Duration.ofMillis(9));
+    }
+
+    @Test
+    void testStubbedCallsAndDisabledTimingAreNotTimed() throws Exception {
+        final SleepingClass mock = Moxy.mock(SleepingClass.class);
+        final SleepingClass spy = Moxy.spy(SleepingClass.class);
+
+        mock.sleepFor(10);
+
+        this.engine.setInvocationTimingEnabled(false);
+        spy.sleepFor(10);
+
+        assertThat(this.engine.getInvocationTimings(() -> mock.sleepFor(anyLong())).getCount()).isZero();
+        assertThat(this.engine.getInvocationTimings(() -> spy.sleepFor(anyLong())).getCount()).isZero();
+
+        assertThatThrownBy(() -> Moxy.assertMock(() -> spy.sleepFor(10)).hadLatencyAtMost(99, Duration.ofSeconds(1)))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected mock sleepFor(10L) to have latency at the 99th percentile of at most 1000ms, "
+                        + "but no timed calls were recorded (is invocation timing enabled?)");
+    }
+
+    @Test
+    void testResetDiscardsTimings() throws Exception {
+        final SleepingClass spy = Moxy.spy(SleepingClass.class);
+
+        spy.sleepFor(1);
+        this.engine.reset();
+
+        assertThat(this.engine.getInvocationTimings(() -> spy.sleepFor(anyLong())).getCount()).isZero();
+    }
+}
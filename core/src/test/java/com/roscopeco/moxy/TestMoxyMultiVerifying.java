@@ -651,6 +651,37 @@ class TestMoxyMultiVerifying {
                         + "in that order, but they were not invoked or were invoked out of order");
     }
 
+    @Test
+    void testMoxyMockWithMockAssertMocksInThatOrderAcrossMocksWithMatchers() {
+        final MethodWithArgAndReturn mock1 = Moxy.mock(MethodWithArgAndReturn.class);
+        final MethodWithArgAndReturn mock2 = Moxy.mock(MethodWithArgAndReturn.class);
+
+        mock1.sayHelloTo("Bill");
+        mock2.sayHelloTo("Steve");
+        mock1.sayHelloTo("Norman");
+        mock2.hasTwoArgs("Keith", 2);
+        mock1.sayHelloTo("Joe");
+
+        Moxy.assertMocks(() -> {
+            mock2.sayHelloTo("Steve");
+            mock1.sayHelloTo(Matchers.startsWith("N"));
+            mock2.hasTwoArgs(Matchers.any(), Matchers.eqInt(2));
+            mock1.sayHelloTo(Matchers.any());
+        }).inThatOrder();
+
+        assertThatThrownBy(() ->
+                Moxy.assertMocks(() -> {
+                    mock1.sayHelloTo("Norman");
+                    mock2.sayHelloTo("Steve");
+                }).inThatOrder()
+        )
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected invocations:\n"
+                        + "\tsayHelloTo(\"Norman\")\n"
+                        + "\tsayHelloTo(\"Steve\")\n"
+                        + "in that order, but they were not invoked or were invoked out of order");
+    }
+
     @Test
     void testMoxyMockWithMockAssertMocksExclusivelyInThatOrder() {
         final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
@@ -681,4 +712,30 @@ class TestMoxyMultiVerifying {
                         + "\tsayHelloTo(\"Keith\")\n"
                         + "exclusively in that order, but they were invoked out of order");
     }
+
+    @Test
+    void testMoxyMockWithMockAssertMocksExclusivelyInThatOrderWithMatchers() {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Steve");
+        mock.hasTwoArgs("Bill", 2);
+        mock.sayHelloTo("Norman");
+
+        Moxy.assertMocks(() -> {
+            mock.hasTwoArgs(Matchers.startsWith("B"), Matchers.eqInt(2));
+            mock.sayHelloTo(Matchers.any());
+        }).exclusivelyInThatOrder();
+
+        assertThatThrownBy(() ->
+                Moxy.assertMocks(() -> {
+                    mock.sayHelloTo(Matchers.startsWith("S"));
+                    mock.sayHelloTo(Matchers.startsWith("N"));
+                }).exclusivelyInThatOrder()
+        )
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected invocations:\n"
+                        + "\tsayHelloTo(<startsWith: S>)\n"
+                        + "\tsayHelloTo(<startsWith: N>)\n"
+                        + "exclusively in that order, but they were not invoked or were invoked out of order");
+    }
 }
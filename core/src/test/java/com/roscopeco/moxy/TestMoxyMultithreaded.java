@@ -27,6 +27,12 @@ package com.roscopeco.moxy;
 import com.roscopeco.moxy.model.classmock.SimpleClass;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class TestMoxyMultithreaded {
@@ -58,4 +64,32 @@ class TestMoxyMultithreaded {
 
         Moxy.assertMock(mock::returnHello).wasCalledTwice();
     }
+
+    @Test
+    void testMoxyMockManyThreadsRecordAndStubIndependently() throws Exception {
+        final SimpleClass mock = Moxy.mock(SimpleClass.class);
+        Moxy.when(mock::returnHello).thenReturn("MARKER");
+
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> {
+                    boolean allMatched = true;
+                    for (int j = 0; j < 100; j++) {
+                        allMatched &= "MARKER".equals(mock.returnHello());
+                    }
+                    return allMatched;
+                }));
+            }
+
+            for (final Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Moxy.assertMock(mock::returnHello).wasCalled(6400);
+    }
 }
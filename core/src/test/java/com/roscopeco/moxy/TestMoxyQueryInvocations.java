@@ -0,0 +1,151 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.InvalidMockInvocationException;
+import com.roscopeco.moxy.api.RecordedInvocation;
+import com.roscopeco.moxy.model.MethodWithArgAndReturn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.roscopeco.moxy.Moxy.*;
+import static com.roscopeco.moxy.matchers.Matchers.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyQueryInvocations {
+    @BeforeEach
+    void setUp() {
+        getMoxyEngine().reset();
+    }
+
+    @Test
+    void testQueryMatchesAllStandardInvocationsInOrder() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Bill");
+        mock.hasTwoArgs("Steve", 2);
+
+        assertMock(() -> mock.sayHelloTo("Bill")).wasCalledOnce();
+
+        assertThat(queryInvocations().list())
+                .extracting(RecordedInvocation::getMethodName)
+                .containsExactly("sayHelloTo", "hasTwoArgs");
+
+        assertThat(queryInvocations().list().get(1).getArgs()).containsExactly("Steve", 2);
+    }
+
+    @Test
+    void testQueryFiltersByMockAndMethodName() {
+        final MethodWithArgAndReturn mock1 = mock(MethodWithArgAndReturn.class);
+        final MethodWithArgAndReturn mock2 = mock(MethodWithArgAndReturn.class);
+
+        mock1.sayHelloTo("Bill");
+        mock2.sayHelloTo("Bob");
+        mock1.hasTwoArgs("Steve", 2);
+
+        assertThat(queryInvocations().onMock(mock1).count()).isEqualTo(2);
+        assertThat(queryInvocations().withMethodName("sayHelloTo").count()).isEqualTo(2);
+        assertThat(queryInvocations().onMock(mock1).withMethodName("sayHelloTo").list())
+                .extracting(i -> i.getArgs().get(0))
+                .containsExactly("Bill");
+
+        assertThat(queryInvocations().countBy(RecordedInvocation::getReceiver))
+                .containsEntry(mock1, 2L)
+                .containsEntry(mock2, 1L);
+    }
+
+    @Test
+    void testQueryMatchingUsesArgumentMatchers() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Bill");
+        mock.sayHelloTo("Steve");
+        mock.sayHelloTo("Bob");
+        mock.hasTwoArgs("Bill", 2);
+
+        assertThat(queryInvocations().matching(() -> mock.sayHelloTo(startsWith("B"))).list())
+                .extracting(i -> i.getArgs().get(0))
+                .containsExactly("Bill", "Bob");
+
+        assertThat(queryInvocations().matching(() -> {
+            mock.sayHelloTo("Steve");
+            mock.hasTwoArgs(any(), anyInt());
+        }).count()).isEqualTo(2);
+
+        assertThat(queryInvocations()
+                .matching(() -> mock.sayHelloTo(any()))
+                .filter(i -> ((String) i.getArgs().get(0)).length() == 5)
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void testQueryResultsCannotModifyHistory() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Bill");
+
+        final List<Object> listed = queryInvocations().list().get(0).getArgs();
+        final List<Object> streamed = queryInvocations().stream().findFirst().orElseThrow().getArgs();
+
+        assertThatThrownBy(() -> listed.set(0, "Steve")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(listed::clear).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> streamed.set(0, "Steve")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(streamed::clear).isInstanceOf(UnsupportedOperationException.class);
+
+        assertMock(() -> mock.sayHelloTo("Bill")).wasCalledOnce();
+    }
+
+    @Test
+    void testQueryMatchingFailsWithNoInvocation() {
+        assertThatThrownBy(() -> queryInvocations().matching(() -> { /* nothing here */ }))
+                .isInstanceOf(InvalidMockInvocationException.class)
+                .hasMessage("No mock invocation found");
+    }
+
+    @Test
+    void testParallelQueryAggregatesLargeHistory() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        IntStream.range(0, 10000).forEach(i -> mock.hasTwoArgs("batch", i % 10));
+
+        final Map<Object, Long> bySize = queryInvocations()
+                .matching(() -> mock.hasTwoArgs(eq("batch"), anyInt()))
+                .parallel()
+                .countBy(i -> i.getArgs().get(1));
+
+        assertThat(bySize).hasSize(10).allSatisfy((size, count) -> assertThat(count).isEqualTo(1000L));
+
+        assertThat(queryInvocations().parallel().stream().isParallel()).isTrue();
+        assertThat(queryInvocations().parallel().stream()
+                .map(i -> (Integer) i.getArgs().get(1))
+                .collect(Collectors.toList()))
+                .isEqualTo(IntStream.range(0, 10000).map(i -> i % 10).boxed().collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.ExhaustionPolicy;
+import com.roscopeco.moxy.model.ClassWithPrimitiveReturns;
+import com.roscopeco.moxy.model.SimpleClass;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.roscopeco.moxy.Moxy.mock;
+import static com.roscopeco.moxy.Moxy.when;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyReturnEach {
+    @BeforeEach
+    void setUp() {
+        Moxy.getMoxyEngine().reset();
+    }
+
+    @Test
+    void testThenReturnEachIterableReturnsValuesInTurnThenRepeatsLast() {
+        final SimpleClass mock = mock(SimpleClass.class);
+
+        when(mock::returnHello).thenReturnEach(List.of("one", "two", "three"));
+
+        assertThat(mock.returnHello()).isEqualTo("one");
+        assertThat(mock.returnHello()).isEqualTo("two");
+        assertThat(mock.returnHello()).isEqualTo("three");
+        assertThat(mock.returnHello()).isEqualTo("three");
+    }
+
+    @Test
+    void testThenReturnEachMovesOnToNextStubWhenExhausted() {
+        final SimpleClass mock = mock(SimpleClass.class);
+
+        when(mock::returnHello)
+                .thenReturn("first")
+                .thenReturnEach(List.of("one", "two"))
+                .thenThrow(new IllegalStateException("done"));
+
+        assertThat(mock.returnHello()).isEqualTo("first");
+        assertThat(mock.returnHello()).isEqualTo("one");
+        assertThat(mock.returnHello()).isEqualTo("two");
+        assertThatThrownBy(mock::returnHello).isInstanceOf(IllegalStateException.class).hasMessage("done");
+        assertThatThrownBy(mock::returnHello).isInstanceOf(IllegalStateException.class).hasMessage("done");
+    }
+
+    @Test
+    void testThenReturnEachStreamIsConsumedLazily() {
+        final SimpleClass mock = mock(SimpleClass.class);
+        final AtomicInteger pulled = new AtomicInteger();
+
+        when(mock::returnHello).thenReturnEach(Stream.iterate(0, i -> i + 1)
+                .peek(i -> pulled.incrementAndGet())
+                .map(String::valueOf));
+
+        assertThat(pulled.get()).isZero();
+
+        assertThat(mock.returnHello()).isEqualTo("0");
+        assertThat(mock.returnHello()).isEqualTo("1");
+        assertThat(pulled.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testThenReturnEachWithReturnDefaultPolicy() {
+        final SimpleClass mock = mock(SimpleClass.class);
+
+        when(mock::returnHello).thenReturnEach(List.of("one").iterator(), ExhaustionPolicy.RETURN_DEFAULT);
+
+        assertThat(mock.returnHello()).isEqualTo("one");
+        assertThat(mock.returnHello()).isNull();
+        assertThat(mock.returnHello()).isNull();
+    }
+
+    @Test
+    void testThenReturnEachWithThrowPolicy() {
+        final SimpleClass mock = mock(SimpleClass.class);
+
+        when(mock::returnHello)
+                .thenReturnEach(List.of("one"), ExhaustionPolicy.THROW)
+                .thenReturn("never");
+
+        assertThat(mock.returnHello()).isEqualTo("one");
+        assertThatThrownBy(mock::returnHello)
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessage("No more stubbed values to return");
+    }
+
+    @Test
+    void testThenReturnEachEmptyIterableBehavesAsUnstubbed() {
+        final SimpleClass mock = mock(SimpleClass.class);
+
+        when(mock::returnHello).thenReturnEach(Collections.emptyList());
+
+        assertThat(mock.returnHello()).isNull();
+    }
+
+    @Test
+    void testThenReturnEachBoxedPrimitivesForPrimitiveReturns() {
+        final ClassWithPrimitiveReturns mock = mock(ClassWithPrimitiveReturns.class);
+
+        when(mock::returnLong).thenReturnEach(LongStream.rangeClosed(1, 10000).boxed());
+
+        for (long i = 1; i <= 10000; i++) {
+            assertThat(mock.returnLong()).isEqualTo(i);
+        }
+
+        // Repeats last
+        assertThat(mock.returnLong()).isEqualTo(10000L);
+    }
+
+    @Test
+    void testThenReturnEachThrowsIllegalArgumentExceptionWithNulls() {
+        final SimpleClass mock = mock(SimpleClass.class);
+
+        assertThatThrownBy(() -> when(mock::returnHello).thenReturnEach((Iterable<String>) null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null values");
+
+        assertThatThrownBy(() -> when(mock::returnHello).thenReturnEach(List.of("one"), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null exhaustion policy");
+    }
+
+    @Test
+    void testThenReturnEachGivesEachConcurrentCallADifferentValue() throws Exception {
+        final ClassWithPrimitiveReturns mock = mock(ClassWithPrimitiveReturns.class);
+        final int threads = 8;
+        final int callsPerThread = 1000;
+
+        final Iterator<Long> values = LongStream.range(0, threads * callsPerThread).boxed().iterator();
+        when(mock::returnLong).thenReturnEach(values, ExhaustionPolicy.THROW);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<List<Long>>> futures = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> IntStream.range(0, callsPerThread)
+                        .mapToObj(j -> mock.returnLong())
+                        .collect(Collectors.toList())));
+            }
+
+            final List<Long> all = new ArrayList<>();
+
+            for (final Future<List<Long>> future : futures) {
+                final List<Long> result = future.get();
+
+                // Each thread sees its values in order
+                assertThat(result).isSorted();
+                all.addAll(result);
+            }
+
+            assertThat(all).hasSize(threads * callsPerThread).doesNotHaveDuplicates();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThatThrownBy(mock::returnLong).isInstanceOf(NoSuchElementException.class);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.model.MethodWithArgAndReturn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.roscopeco.moxy.Moxy.*;
+import static com.roscopeco.moxy.matchers.Matchers.any;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyStubTable {
+    @BeforeEach
+    void setUp() {
+        Moxy.getMoxyEngine().reset();
+    }
+
+    @Test
+    void testStubTableRowsFromMapStubsEachKey() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        final Map<String, String> rows = new HashMap<>();
+        IntStream.range(0, 10000).forEach(i -> rows.put("key" + i, "value" + i));
+
+        stubTable(() -> mock.sayHelloTo(null)).rows(rows);
+
+        assertThat(mock.sayHelloTo("key0")).isEqualTo("value0");
+        assertThat(mock.sayHelloTo("key5000")).isEqualTo("value5000");
+        assertThat(mock.sayHelloTo("key9999")).isEqualTo("value9999");
+        assertThat(mock.sayHelloTo("missing")).isNull();
+    }
+
+    @Test
+    void testStubTableIsNotRecordedAsAnInvocation() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        stubTable(() -> mock.sayHelloTo("ignored")).row(List.of("Bill"), "Hi, Bill");
+
+        assertMock(() -> mock.sayHelloTo(any())).wasNotCalled();
+        assertThat(mock.sayHelloTo("ignored")).isNull();
+    }
+
+    @Test
+    void testStubTableRowsFromStreamWithMultipleArguments() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        stubTable(() -> mock.hasTwoArgs(null, 0)).rows(Stream.of(
+                new SimpleEntry<>(List.of("one", 1), "first"),
+                new SimpleEntry<>(List.of("two", 2), "second")));
+
+        assertThat(mock.hasTwoArgs("one", 1)).isEqualTo("first");
+        assertThat(mock.hasTwoArgs("two", 2)).isEqualTo("second");
+        assertThat(mock.hasTwoArgs("one", 2)).isNull();
+    }
+
+    @Test
+    void testStubTableRowAnswerReceivesArguments() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        stubTable(() -> mock.hasTwoArgs(null, 0))
+                .rowAnswer(List.of("one", 1), args -> args.get(0) + "=" + args.get(1));
+
+        assertThat(mock.hasTwoArgs("one", 1)).isEqualTo("one=1");
+        assertThat(mock.hasTwoArgs("one", 1)).isEqualTo("one=1");
+    }
+
+    @Test
+    void testStubTableReplacesPriorStubbingForSameArgumentsOnly() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        when(() -> mock.sayHelloTo("Bill")).thenReturn("old Bill");
+        when(() -> mock.sayHelloTo("Steve")).thenReturn("old Steve");
+
+        stubTable(() -> mock.sayHelloTo(null)).row(List.of("Bill"), "new Bill");
+
+        assertThat(mock.sayHelloTo("Bill")).isEqualTo("new Bill");
+        assertThat(mock.sayHelloTo("Steve")).isEqualTo("old Steve");
+
+        when(() -> mock.sayHelloTo("Bill")).thenReturn("newer Bill");
+
+        assertThat(mock.sayHelloTo("Bill")).isEqualTo("newer Bill");
+    }
+
+    @Test
+    void testStubTableThrowsIllegalArgumentExceptionForWrongArgumentCount() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        assertThatThrownBy(() -> stubTable(() -> mock.hasTwoArgs(null, 0)).rows(Map.of("one", "first")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub java.lang.String hasTwoArgs(java.lang.String, int) with 1 argument(s) - it takes 2");
+
+        assertThatThrownBy(() -> stubTable(() -> mock.hasTwoArgs(null, 0)).rows(Stream.of(
+                new SimpleEntry<>(List.of("one", 1), "first"),
+                new SimpleEntry<>(List.of("two"), "second"))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // Validation happens before any row is installed
+        assertThat(mock.hasTwoArgs("one", 1)).isNull();
+    }
+
+    @Test
+    void testStubTableSourceAnswersCallsWithNoMatchingStubbing() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        stubTable(() -> mock.sayHelloTo(null))
+                .row(List.of("Bill"), "row Bill")
+                .source(args -> "Steve".equals(args.get(0)) ? Optional.empty() : Optional.of("source " + args.get(0)));
+
+        assertThat(mock.sayHelloTo("Bill")).isEqualTo("row Bill");
+        assertThat(mock.sayHelloTo("Bob")).isEqualTo("source Bob");
+        assertThat(mock.sayHelloTo("Bob")).isEqualTo("source Bob");
+        assertThat(mock.sayHelloTo("Steve")).isNull();
+
+        assertMock(() -> mock.sayHelloTo("Bob")).wasCalledTwice();
+    }
+
+    @Test
+    void testStubTableThrowsIllegalArgumentExceptionWithNullSource() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        assertThatThrownBy(() -> stubTable(() -> mock.sayHelloTo(null)).source(null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null source");
+    }
+
+    @Test
+    void testStubTableThrowsIllegalArgumentExceptionWithNullAnswer() {
+        final MethodWithArgAndReturn mock = mock(MethodWithArgAndReturn.class);
+
+        assertThatThrownBy(() -> stubTable(() -> mock.sayHelloTo(null)).rowAnswer(List.of("Bill"), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null answer");
+    }
+}
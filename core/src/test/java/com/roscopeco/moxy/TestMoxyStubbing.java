@@ -27,6 +27,7 @@ import com.roscopeco.moxy.api.InvalidMockInvocationException;
 import com.roscopeco.moxy.api.MoxyStubber;
 import com.roscopeco.moxy.matchers.Matchers;
 import com.roscopeco.moxy.model.ClassWithPrimitiveReturns;
+import com.roscopeco.moxy.model.MatcherTestClass;
 import com.roscopeco.moxy.model.MethodWithArgAndReturn;
 import com.roscopeco.moxy.model.MethodWithArguments;
 import com.roscopeco.moxy.model.SimpleClass;
@@ -34,6 +35,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -284,4 +288,20 @@ class TestMoxyStubbing {
         assertThat(mock.sayHelloTo("Bill")).isEqualTo("Hallo, Bill");
         assertThat(mock.sayHelloTo("Bill")).isEqualTo("Hallo, Bill");
     }
+
+    @Test
+    void testMoxyMockWithMockStubbingWithMutableArgumentMatchesAfterMutation() {
+        final MatcherTestClass mock = Moxy.mock(MatcherTestClass.class);
+        final List<String> list = new ArrayList<>();
+
+        Moxy.when(() -> mock.testObject(list)).thenReturn("stubbed");
+
+        list.add("mutated");
+
+        assertThat(mock.testObject(list)).isEqualTo("stubbed");
+
+        Moxy.when(() -> mock.testObject(list)).thenReturn("restubbed");
+
+        assertThat(mock.testObject(list)).isEqualTo("restubbed");
+    }
 }
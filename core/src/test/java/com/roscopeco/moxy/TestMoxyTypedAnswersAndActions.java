@@ -0,0 +1,137 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy;
+
+import com.roscopeco.moxy.api.Action1;
+import com.roscopeco.moxy.api.Answer1;
+import com.roscopeco.moxy.model.MethodsWithArities;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.roscopeco.moxy.Moxy.mock;
+import static com.roscopeco.moxy.Moxy.when;
+import static com.roscopeco.moxy.matchers.Matchers.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMoxyTypedAnswersAndActions {
+    private MethodsWithArities mock;
+
+    @BeforeEach
+    void setUp() {
+        Moxy.getMoxyEngine().reset();
+        this.mock = mock(MethodsWithArities.class);
+    }
+
+    @Test
+    void testThenAnswerWithReceivesTypedArguments() {
+        when(() -> this.mock.oneArg(any())).thenAnswerWith((String a) -> "one " + a);
+        when(() -> this.mock.twoArgs(any(), anyInt())).thenAnswerWith((String a, Integer b) -> a + (b + 1));
+        when(() -> this.mock.threeArgs(any(), anyInt(), anyLong()))
+                .thenAnswerWith((String a, Integer b, Long c) -> a + (b * c));
+        when(() -> this.mock.fourArgs(any(), anyInt(), anyLong(), anyBool()))
+                .thenAnswerWith((String a, Integer b, Long c, Boolean d) -> d ? c * b : a.length());
+
+        assertThat(this.mock.oneArg("Bill")).isEqualTo("one Bill");
+        assertThat(this.mock.twoArgs("x", 1)).isEqualTo("x2");
+        assertThat(this.mock.threeArgs("x", 2, 3)).isEqualTo("x6");
+        assertThat(this.mock.fourArgs("four", 2, 3, true)).isEqualTo(6L);
+        assertThat(this.mock.fourArgs("four", 2, 3, false)).isEqualTo(4L);
+    }
+
+    @Test
+    void testThenAnswerWithCanBeChained() {
+        when(() -> this.mock.oneArg("Bill"))
+                .thenReturn("first")
+                .thenAnswerWith((String a) -> "then " + a);
+
+        assertThat(this.mock.oneArg("Bill")).isEqualTo("first");
+        assertThat(this.mock.oneArg("Bill")).isEqualTo("then Bill");
+        assertThat(this.mock.oneArg("Bill")).isEqualTo("then Bill");
+    }
+
+    @Test
+    void testThenDoWithReceivesTypedArguments() {
+        final List<String> calls = new ArrayList<>();
+
+        when(() -> this.mock.twoArgs(any(), anyInt()))
+                .thenDoWith((String a, Integer b) -> calls.add(a + b))
+                .thenReturn("stubbed");
+
+        when(() -> this.mock.record(any(), anyInt()))
+                .thenDoWith((String a, Integer b) -> calls.add("record " + a + b));
+
+        assertThat(this.mock.twoArgs("x", 1)).isEqualTo("stubbed");
+        this.mock.record("y", 2);
+
+        assertThat(calls).containsExactly("x1", "record y2");
+    }
+
+    @Test
+    void testThenDoWithRunsInOrderWithPlainActionsWhichStillGetImmutableArgs() {
+        final List<String> calls = new ArrayList<>();
+
+        when(() -> this.mock.record(any(), anyInt()))
+                .thenDoWith((String a, Integer b) -> calls.add("typed " + a + b))
+                .thenDo(args -> {
+                    calls.add("plain " + args);
+                    assertThatThrownBy(() -> args.remove(0)).isInstanceOf(UnsupportedOperationException.class);
+                })
+                .thenDoWith((String a, Integer b) -> calls.add("typed again " + a + b));
+
+        this.mock.record("y", 2);
+
+        assertThat(calls).containsExactly("typed y2", "plain [y, 2]", "typed again y2");
+    }
+
+    @Test
+    void testThenAnswerWithThrowsIllegalArgumentExceptionForWrongArity() {
+        assertThatThrownBy(() -> when(() -> this.mock.oneArg(any())).thenAnswerWith((String a, Integer b) -> a))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub java.lang.String oneArg(java.lang.String) "
+                        + "with an answer taking 2 argument(s) - it takes 1");
+    }
+
+    @Test
+    void testThenDoWithThrowsIllegalArgumentExceptionForWrongArity() {
+        assertThatThrownBy(() -> when(() -> this.mock.record(any(), anyInt())).thenDoWith((String a) -> { }))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub void record(java.lang.String, int) "
+                        + "with an action taking 1 argument(s) - it takes 2");
+    }
+
+    @Test
+    void testTypedAnswersAndActionsThrowIllegalArgumentExceptionWhenNull() {
+        assertThatThrownBy(() -> when(() -> this.mock.oneArg(any())).thenAnswerWith((Answer1<String, String>) null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null answer");
+
+        assertThatThrownBy(() -> when(() -> this.mock.oneArg(any())).thenDoWith((Action1<String>) null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot stub with null action");
+    }
+}
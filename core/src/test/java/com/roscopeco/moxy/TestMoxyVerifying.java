@@ -25,11 +25,14 @@ package com.roscopeco.moxy;
 
 import com.roscopeco.moxy.api.InvalidMockInvocationException;
 import com.roscopeco.moxy.api.MoxyVerifier;
+import com.roscopeco.moxy.matchers.Matchers;
 import com.roscopeco.moxy.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.opentest4j.AssertionFailedError;
 
+import java.time.Duration;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -307,6 +310,85 @@ class TestMoxyVerifying {
                 .hasMessage("Expected mock returnHello() to be called at most 3 times, but it was called 4 times");
     }
 
+    @Test
+    void testMoxyMockWithMockVerifierCanBeRecheckedIncrementally() {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        final MoxyVerifier verifier = Moxy.assertMock(() -> mock.sayHelloTo(Matchers.startsWith("B")));
+
+        verifier.wasNotCalled();
+
+        mock.sayHelloTo("Bill");
+        mock.sayHelloTo("Steve");
+
+        verifier.wasCalledOnce();
+
+        mock.sayHelloTo("Bob");
+
+        verifier.wasCalledTwice().wasCalledAtLeast(2).wasCalledAtMost(2);
+
+        assertThatThrownBy(() -> verifier.wasCalled(3))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected mock sayHelloTo(<startsWith: B>) to be called "
+                        + "exactly 3 times, but it was called twice");
+
+        Moxy.getMoxyEngine().reset();
+
+        verifier.wasNotCalled();
+
+        mock.sayHelloTo("Ben");
+
+        verifier.wasCalledOnce();
+    }
+
+    @Test
+    void testMoxyMockWithMockWasCalledWithinWaitsForAsyncCall() throws Exception {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        final Thread caller = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            mock.sayHelloTo("Steve");
+            mock.sayHelloTo("Bill");
+            mock.sayHelloTo("Bill");
+        });
+
+        final long start = System.nanoTime();
+        caller.start();
+
+        Moxy.assertMock(() -> mock.sayHelloTo("Bill")).wasCalledWithin(Duration.ofSeconds(30));
+        Moxy.assertMock(() -> mock.sayHelloTo(Matchers.any())).awaitCalls(3, Duration.ofSeconds(30));
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(30));
+
+        caller.join();
+
+        Moxy.assertMock(() -> mock.sayHelloTo("Bill")).wasCalledTwice();
+    }
+
+    @Test
+    void testMoxyMockWithMockAwaitCallsFailsAfterTimeout() {
+        final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
+
+        mock.sayHelloTo("Bill");
+
+        assertThatThrownBy(() ->
+                Moxy.assertMock(() -> mock.sayHelloTo("Bill")).awaitCalls(2, Duration.ofMillis(50)))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected mock sayHelloTo(\"Bill\") to be called "
+                        + "at least twice within 50ms, but it was called once");
+
+        assertThatThrownBy(() ->
+                Moxy.assertMock(() -> mock.sayHelloTo("Steve")).wasCalledWithin(Duration.ofMillis(10)))
+                .isInstanceOf(AssertionFailedError.class)
+                .hasMessage("Expected mock sayHelloTo(\"Steve\") to be called "
+                        + "at least once within 10ms, but it was called zero times");
+    }
+
     @Test
     void testCanStubAndAssertNullArgument() {
         final MethodWithArgAndReturn mock = Moxy.mock(MethodWithArgAndReturn.class);
@@ -0,0 +1,148 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestMappedStubSource {
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.directory = Files.createTempDirectory("moxy-test");
+        this.file = this.directory.resolve("stubs.bin");
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.file.toFile().deleteOnExit();
+        this.directory.toFile().deleteOnExit();
+    }
+
+    @Test
+    void testLookupFindsEveryRow() throws Exception {
+        final Map<String, String> rows = new HashMap<>();
+        IntStream.range(0, 5000).forEach(i -> rows.put("key" + i, "value" + i));
+
+        MappedStubSource.write(this.file, rows, MoxyStubCodec.utf8());
+
+        final MappedStubSource<String> source = new MappedStubSource<>(this.file, MoxyStubCodec.utf8());
+
+        for (int i = 0; i < 5000; i++) {
+            assertThat(source.lookup(List.of("key" + i))).contains("value" + i);
+        }
+
+        assertThat(source.lookup(List.of("key"))).isEmpty();
+        assertThat(source.lookup(List.of("key5000"))).isEmpty();
+        assertThat(source.lookup(List.of(""))).isEmpty();
+    }
+
+    @Test
+    void testLookupWithMultipleArgumentsAndCustomCodec() throws Exception {
+        final MoxyStubCodec<Integer> codec = new MoxyStubCodec<>() {
+            @Override
+            public byte[] encodeArgs(final List<?> args) {
+                return MoxyStubCodec.utf8().encodeArgs(args);
+            }
+
+            @Override
+            public byte[] encodeValue(final Integer value) {
+                return ByteBuffer.allocate(4).putInt(value).array();
+            }
+
+            @Override
+            public Integer decodeValue(final ByteBuffer buffer) {
+                return buffer.getInt();
+            }
+        };
+
+        MappedStubSource.write(this.file, Stream.of(
+                new SimpleEntry<>(List.of("one", 1), 11),
+                new SimpleEntry<>(List.of("one", 2), 12),
+                new SimpleEntry<>(List.of("two", 1), 21)), codec);
+
+        final MappedStubSource<Integer> source = new MappedStubSource<>(this.file, codec);
+
+        assertThat(source.lookup(List.of("one", 1))).contains(11);
+        assertThat(source.lookup(List.of("one", 2))).contains(12);
+        assertThat(source.lookup(List.of("two", 1))).contains(21);
+        assertThat(source.lookup(List.of("two", 2))).isEmpty();
+    }
+
+    @Test
+    void testFileIsNotOpenedUntilFirstLookup() throws Exception {
+        final MappedStubSource<String> source = new MappedStubSource<>(this.file, MoxyStubCodec.utf8());
+
+        MappedStubSource.write(this.file, Map.of("key", "value"), MoxyStubCodec.utf8());
+
+        assertThat(source.lookup(List.of("key"))).contains("value");
+    }
+
+    @Test
+    void testWriteThrowsIllegalArgumentExceptionWithDuplicateArguments() {
+        assertThatThrownBy(() -> MappedStubSource.write(this.file, Stream.of(
+                new SimpleEntry<>(List.of("key"), "one"),
+                new SimpleEntry<>(List.of("key"), "two")), MoxyStubCodec.utf8()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot write stub source with duplicate arguments");
+    }
+
+    @Test
+    void testLookupThrowsMoxyExceptionIfFileIsNotAStubSource() throws Exception {
+        Files.write(this.file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+
+        final MappedStubSource<String> source = new MappedStubSource<>(this.file, MoxyStubCodec.utf8());
+
+        assertThatThrownBy(() -> source.lookup(List.of("key")))
+                .isInstanceOf(MoxyException.class)
+                .hasMessage("File " + this.file + " is not a stub source");
+    }
+
+    @Test
+    void testConstructorThrowsIllegalArgumentExceptionWithNullArguments() {
+        assertThatThrownBy(() -> new MappedStubSource<>(null, MoxyStubCodec.utf8()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot create stub source with null path");
+
+        assertThatThrownBy(() -> new MappedStubSource<>(this.file, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot create stub source with null codec");
+    }
+}
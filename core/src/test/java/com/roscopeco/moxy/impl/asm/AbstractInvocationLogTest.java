@@ -0,0 +1,201 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.model.MethodWithArgAndReturn;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.roscopeco.moxy.matchers.Matchers.any;
+import static com.roscopeco.moxy.matchers.Matchers.anyInt;
+import static com.roscopeco.moxy.matchers.Matchers.startsWith;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+ * Behaviour every InvocationLog must have. Tests specific to a
+ * backend's storage live in that backend's subclass.
+ */
+abstract class AbstractInvocationLogTest<L extends InvocationLog> {
+    L log;
+
+    abstract L createLog() throws Exception;
+
+    /*
+     * Create an engine that records its history in this kind of log.
+     */
+    abstract ASMMoxyEngine createEngine();
+
+    static ASMMoxyEngine createEngineWithProperty(final String property, final String value) {
+        final String oldValue = System.setProperty(property, value);
+        try {
+            return new ASMMoxyEngine();
+        } finally {
+            if (oldValue == null) {
+                System.clearProperty(property);
+            } else {
+                System.setProperty(property, oldValue);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUpLog() throws Exception {
+        this.log = this.createLog();
+    }
+
+    long append(final Object receiver, final String name, final long sequence, final Object... args) {
+        final Invocation invocation = new Invocation(receiver, name, "()V", new ArrayList<>(Arrays.asList(args)));
+        invocation.setSequence(sequence);
+        return this.log.append(invocation);
+    }
+
+    List<Invocation> readAll() {
+        final List<Invocation> result = new ArrayList<>();
+        this.log.scan(0, null, null, null, result::add);
+        return result;
+    }
+
+    @Test
+    void testArgumentsRoundTrip() {
+        final Object receiver = new Object();
+        final Object other = new Object();
+
+        this.append(receiver, "m1", 0, null, true, (byte) 1, 'c', (short) 2, 3, 4L, 5.0f, 6.0d, "seven", other);
+
+        assertThat(this.readAll()).hasSize(1);
+
+        final Invocation invocation = this.readAll().get(0);
+        assertThat(invocation.getReceiver()).isSameAs(receiver);
+        assertThat(invocation.getMethodName()).isEqualTo("m1");
+        assertThat(invocation.getMethodDesc()).isEqualTo("()V");
+        assertThat(invocation.getSequence()).isEqualTo(0);
+        assertThat(invocation.getThrew()).isNull();
+        assertThat(invocation.getArgs())
+                .containsExactly(null, true, (byte) 1, 'c', (short) 2, 3, 4L, 5.0f, 6.0d, "seven", other);
+        assertThat(invocation.getArgs().get(10)).isSameAs(other);
+    }
+
+    @Test
+    void testScanFiltersByReceiverAndMethodAndCanStop() {
+        final Object receiver1 = new Object();
+        final Object receiver2 = new Object();
+
+        this.append(receiver1, "m1", 0);
+        this.append(receiver2, "m1", 1);
+        this.append(receiver1, "m2", 2);
+        final long fourth = this.append(receiver1, "m1", 3);
+        this.append(receiver1, "m1", 4);
+
+        final List<Invocation> result = new ArrayList<>();
+        this.log.scan(0, receiver1, "m1", "()V", result::add);
+
+        assertThat(result).extracting(Invocation::getSequence).containsExactly(0L, 3L, 4L);
+
+        result.clear();
+        final long next = this.log.scan(0, receiver1, "m1", "()V", invocation -> {
+            result.add(invocation);
+            return invocation.getSequence() < 3;
+        });
+
+        assertThat(result).extracting(Invocation::getSequence).containsExactly(0L, 3L);
+
+        result.clear();
+        this.log.scan(next, null, null, null, result::add);
+        assertThat(result).extracting(Invocation::getSequence).containsExactly(4L);
+        assertThat(fourth).isLessThan(next);
+
+        assertThat(this.log.scan(0, new Object(), "m1", "()V", result::add)).isEqualTo(this.log.getEndPosition());
+    }
+
+    @Test
+    void testUpdateThrewAndReset() {
+        final Object receiver = new Object();
+        final RuntimeException threw = new RuntimeException("MARKER");
+
+        final long position = this.append(receiver, "m1", 0);
+        this.log.updateThrew(position, 0, threw);
+
+        assertThat(this.readAll().get(0).getThrew()).isSameAs(threw);
+
+        this.log.reset();
+
+        assertThat(this.readAll()).isEmpty();
+        assertThat(this.log.getEndPosition()).isEqualTo(0);
+
+        // Stale update (different sequence) is ignored.
+        this.append(receiver, "m1", 1);
+        this.log.updateThrew(position, 0, threw);
+
+        assertThat(this.readAll()).hasSize(1);
+        assertThat(this.readAll().get(0).getThrew()).isNull();
+    }
+
+    @Test
+    void testEngineVerificationWithLogHistory() {
+        final ASMMoxyEngine engine = this.createEngine();
+
+        assertThat(engine.getRecorder().isLogHistory()).isTrue();
+        assertThat(engine.getRecorder().isWeakHistory()).isFalse();
+
+        final MethodWithArgAndReturn mock = engine.mock(MethodWithArgAndReturn.class);
+        final RuntimeException marker = new RuntimeException("MARKER");
+
+        engine.when(() -> mock.sayHelloTo("Keith")).thenThrow(marker);
+
+        mock.sayHelloTo("Bill");
+        mock.hasTwoArgs("Steve", 2);
+        mock.sayHelloTo("Bob");
+        assertThatThrownBy(() -> mock.sayHelloTo("Keith")).isSameAs(marker);
+
+        engine.assertMock(() -> mock.sayHelloTo(startsWith(engine, "B"))).wasCalledTwice();
+        engine.assertMock(() -> mock.sayHelloTo("Bill")).didntThrowAnyException();
+
+        assertThatThrownBy(() -> engine.assertMock(() -> mock.sayHelloTo("Keith")).didntThrow(marker))
+                .isInstanceOf(AssertionFailedError.class);
+
+        engine.assertMocks(() -> {
+            mock.sayHelloTo("Bill");
+            mock.hasTwoArgs(any(engine), anyInt(engine));
+        }).wereAllCalledOnce()
+                .inThatOrder();
+
+        engine.assertMocks(() -> {
+            mock.hasTwoArgs("Steve", 2);
+            mock.sayHelloTo("Bob");
+        }).exclusivelyInThatOrder();
+
+        assertThat(engine.getRecorder().getInvocationList()).hasSize(4);
+
+        engine.reset();
+
+        engine.assertMock(() -> mock.sayHelloTo(any(engine))).wasNotCalled();
+        assertThat(engine.getRecorder().getInvocationList()).isEmpty();
+    }
+}
@@ -26,7 +26,6 @@ package com.roscopeco.moxy.impl.asm;
 import com.roscopeco.moxy.Moxy;
 import com.roscopeco.moxy.api.*;
 import com.roscopeco.moxy.impl.asm.ASMMoxyEngine.InvocationMonitor;
-import com.roscopeco.moxy.impl.asm.stubs.StubInvocation;
 import com.roscopeco.moxy.impl.asm.stubs.StubMethod;
 import com.roscopeco.moxy.model.*;
 import org.assertj.core.util.Lists;
@@ -89,6 +88,92 @@ class TestASMMoxyEngine extends AbstractImplTest {
         assertMock(recorder::reset).wasCalledOnce();
     }
 
+    @Test
+    void testInvocationsAreIndexedPerMock() {
+        final ASMMoxyEngine engine = new ASMMoxyEngine();
+        final InvocationRecorder recorder = engine.getRecorder();
+        final Object mock1 = engine.mock(Object.class);
+        final Object mock2 = engine.mock(Object.class);
+
+        mock1.toString();
+        mock2.toString();
+        mock2.toString();
+
+        assertThat(recorder.getInvocationList(mock1, "toString", "()Ljava/lang/String;"))
+                .hasSize(1)
+                .allMatch(invocation -> invocation.getReceiver() == mock1);
+        assertThat(recorder.getInvocationList(mock2, "toString", "()Ljava/lang/String;"))
+                .hasSize(2)
+                .allMatch(invocation -> invocation.getReceiver() == mock2);
+
+        // Resetting a mock resets stubbing, but keeps its invocations.
+        engine.resetMock(mock2);
+
+        assertThat(recorder.getInvocationList(mock2, "toString", "()Ljava/lang/String;")).hasSize(2);
+    }
+
+    private static void callUnreachableMock(final ASMMoxyEngine engine) {
+        engine.mock(Object.class).toString();
+    }
+
+    @Test
+    void testWeakHistoryAllowsUnreachableMocksToBeCollected() throws Exception {
+        final String oldValue = System.setProperty(InvocationRecorder.WEAK_HISTORY_PROPERTY, "true");
+        final ASMMoxyEngine engine;
+        try {
+            engine = new ASMMoxyEngine();
+        } finally {
+            if (oldValue == null) {
+                System.clearProperty(InvocationRecorder.WEAK_HISTORY_PROPERTY);
+            } else {
+                System.setProperty(InvocationRecorder.WEAK_HISTORY_PROPERTY, oldValue);
+            }
+        }
+
+        final InvocationRecorder recorder = engine.getRecorder();
+        assertThat(recorder.isWeakHistory()).isTrue();
+
+        final Object liveMock = engine.mock(Object.class);
+
+        callUnreachableMock(engine);
+
+        // Also replaces this thread's current invocation
+        liveMock.toString();
+
+        assertThat(recorder.getInvocationList()).hasSize(2);
+
+        for (int i = 0; i < 50 && recorder.getInvocationList().size() > 1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(recorder.getInvocationList())
+                .hasSize(1)
+                .allMatch(invocation -> invocation.getReceiver() == liveMock);
+    }
+
+    @Test
+    void testResetDiscardsRecordedInvocations() {
+        final ASMMoxyEngine engine = new ASMMoxyEngine();
+        final InvocationRecorder recorder = engine.getRecorder();
+        final Object mock = engine.mock(Object.class);
+
+        mock.toString();
+        mock.toString();
+
+        assertThat(recorder.getInvocationList()).hasSize(2);
+
+        engine.reset();
+
+        assertThat(recorder.getInvocationList()).isEmpty();
+        assertThat(recorder.getInvocationList(mock, "toString", "()Ljava/lang/String;")).isEmpty();
+
+        mock.toString();
+
+        assertThat(recorder.getInvocationList()).hasSize(1);
+        assertThat(recorder.getInvocationList(mock, "toString", "()Ljava/lang/String;")).hasSize(1);
+    }
+
     @Test
     void testMockClassPassesThrough() throws Exception {
         final ASMMoxyEngine mockEngine = this.makePartialMock(true,
@@ -121,7 +206,7 @@ class TestASMMoxyEngine extends AbstractImplTest {
         //
         // Doesn't actually need to be assigned to a local, but gives a spurious IDE error otherwise.
         final InvocationSupplier<Class<?>> classInvocationSupplier =
-                () -> mockEngine.getMockClass(Object.class, mockEngine.getDefaultClassDefinitionStrategy(), Collections.emptySet(), null);
+                () -> mockEngine.getMockClass(Object.class, mockEngine.getDefaultClassDefinitionStrategy(), MoxyEngine.ALL_METHODS, null);
 
         when(classInvocationSupplier)
                 .thenThrow(marker);
@@ -324,6 +409,18 @@ class TestASMMoxyEngine extends AbstractImplTest {
                 );
     }
 
+    @Test
+    void testGatherAllMockableMethodsReturnsIndependentCopies() {
+        final ASMMoxyEngine engine = new ASMMoxyEngine();
+
+        final Map<String, Method> first = engine.gatherAllMockableMethods(DifferentAccessModifiers.class);
+        first.remove("publicMethod()V");
+
+        assertThat(engine.gatherAllMockableMethods(DifferentAccessModifiers.class))
+                .hasSize(6)
+                .containsKey("publicMethod()V");
+    }
+
     @Test
     void testEnsureEngineStartMonitoredInvocation() throws Exception {
         final ASMMoxyEngine engine = this.makePartialMock(true, MoxyEngine.NO_METHODS);
@@ -534,13 +631,16 @@ class TestASMMoxyEngine extends AbstractImplTest {
 
         final ASMMockSupport mockSupp = (ASMMockSupport) mock;
 
-        final Map<StubMethod, Deque<StubInvocation>> originalStubsMap = mockSupp.__moxy_asm_ivars().getStubsMap();
+        engine.when(mock::returnHello).thenReturn("Goodbye");
+
+        final Map<StubMethod, StubTable> originalStubsMap = mockSupp.__moxy_asm_ivars().getStubsMap();
 
         engine.initializeMock(mock.getClass(), mock);
 
         assertThat(mockSupp.__moxy_asm_ivars().getStubsMap())
                 .isNotNull()
-                .isNotSameAs(originalStubsMap);
+                .isNotSameAs(originalStubsMap)
+                .isEmpty();
     }
 
     @Test
@@ -560,7 +660,6 @@ class TestASMMoxyEngine extends AbstractImplTest {
 
         assertThat(mockSupp.__moxy_asm_ivars().getStubsMap())
                 .isNotNull()
-                .isInstanceOf(HashMap.class)
                 .isEmpty();
     }
 
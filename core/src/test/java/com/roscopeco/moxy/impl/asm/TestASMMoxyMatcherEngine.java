@@ -0,0 +1,110 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.MoxyMatcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestASMMoxyMatcherEngine {
+    private ASMMoxyMatcherEngine matchEngine;
+    private List<String> calls;
+
+    @BeforeEach
+    void setUp() {
+        this.matchEngine = new ASMMoxyEngine().getMatcherEngine();
+        this.calls = new ArrayList<>();
+    }
+
+    private static List<Object> args(final Object... args) {
+        return new ArrayList<>(Arrays.asList(args));
+    }
+
+    private MoxyMatcher<Object> matcher(final String name, final int cost, final boolean result) {
+        return new MoxyMatcher<>() {
+            @Override
+            public boolean matches(final Object arg) {
+                TestASMMoxyMatcherEngine.this.calls.add(name);
+                return result;
+            }
+
+            @Override
+            public int cost() {
+                return cost;
+            }
+        };
+    }
+
+    @Test
+    void testArgsMatchWithPlainValues() {
+        assertThat(this.matchEngine.argsMatch(args("one", 1, null), args("one", 1, null))).isTrue();
+        assertThat(this.matchEngine.argsMatch(args("one", 1), args("one", 2))).isFalse();
+        assertThat(this.matchEngine.argsMatch(args("one"), args("one", 1))).isFalse();
+    }
+
+    @Test
+    void testArgsMatchDoesNotLetLaterNullHideEarlierMismatch() {
+        assertThat(this.matchEngine.argsMatch(args("one", null), args("two", null))).isFalse();
+    }
+
+    @Test
+    void testArgsMatchComparesPlainValuesBeforeCallingMatchers() {
+        final List<Object> stored = args(this.matcher("expensive", MoxyMatcher.COST_EXPENSIVE, true), "one");
+
+        assertThat(this.matchEngine.argsMatch(args("x", "two"), stored)).isFalse();
+        assertThat(this.calls).isEmpty();
+
+        assertThat(this.matchEngine.argsMatch(args("x", "one"), stored)).isTrue();
+        assertThat(this.calls).containsExactly("expensive");
+    }
+
+    @Test
+    void testArgsMatchCallsMatchersCheapestFirstAndStopsAtMismatch() {
+        final List<Object> stored = args(
+                this.matcher("expensive", MoxyMatcher.COST_EXPENSIVE, true),
+                this.matcher("default", MoxyMatcher.COST_DEFAULT, false),
+                this.matcher("cheap", MoxyMatcher.COST_CHEAP, true),
+                this.matcher("trivial", MoxyMatcher.COST_TRIVIAL, true));
+
+        assertThat(this.matchEngine.argsMatch(args(1, 2, 3, 4), stored)).isFalse();
+        assertThat(this.calls).containsExactly("trivial", "cheap", "default");
+    }
+
+    @Test
+    void testArgsMatchCallsMatchersOfEqualCostInArgumentOrder() {
+        final List<Object> stored = args(
+                this.matcher("first", MoxyMatcher.COST_CHEAP, true),
+                this.matcher("second", MoxyMatcher.COST_CHEAP, true),
+                this.matcher("third", MoxyMatcher.COST_CHEAP, true));
+
+        assertThat(this.matchEngine.argsMatch(args(1, 2, 3), stored)).isTrue();
+        assertThat(this.calls).containsExactly("first", "second", "third");
+    }
+}
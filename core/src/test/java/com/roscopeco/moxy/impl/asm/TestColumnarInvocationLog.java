@@ -0,0 +1,59 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestColumnarInvocationLog extends AbstractInvocationLogTest<ColumnarInvocationLog> {
+    @Override
+    ColumnarInvocationLog createLog() {
+        return new ColumnarInvocationLog();
+    }
+
+    @Override
+    ASMMoxyEngine createEngine() {
+        return createEngineWithProperty(InvocationRecorder.COLUMNAR_HISTORY_PROPERTY, "true");
+    }
+
+    @Test
+    void testColumnsGrowAndKeepOrder() {
+        final Object receiver = new Object();
+
+        for (int i = 0; i < 1000; i++) {
+            this.append(receiver, "m1", i, "argument " + i, i, (long) -i);
+        }
+
+        final List<Invocation> all = this.readAll();
+        assertThat(all).hasSize(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(all.get(i).getSequence()).isEqualTo(i);
+            assertThat(all.get(i).getArgs()).containsExactly("argument " + i, i, (long) -i);
+        }
+    }
+}
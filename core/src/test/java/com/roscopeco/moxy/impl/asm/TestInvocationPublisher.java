@@ -0,0 +1,217 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.InvocationOverflowPolicy;
+import com.roscopeco.moxy.api.RecordedInvocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestInvocationPublisher {
+    private final Object receiver = new Object();
+
+    private final Invocation i1 = new Invocation(this.receiver, "m1", "()V", Collections.emptyList());
+    private final Invocation i2 = new Invocation(this.receiver, "m2", "()V", Collections.emptyList());
+    private final Invocation i3 = new Invocation(this.receiver, "m3", "()V", Collections.emptyList());
+
+    private static class CollectingSubscriber implements Flow.Subscriber<RecordedInvocation> {
+        final List<RecordedInvocation> received = Collections.synchronizedList(new ArrayList<>());
+        Flow.Subscription subscription;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final RecordedInvocation item) {
+            this.received.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            throw new AssertionError("Invocation publisher should never complete");
+        }
+    }
+
+    private CollectingSubscriber subscribe(final InvocationPublisher publisher,
+                                           final int capacity,
+                                           final InvocationOverflowPolicy policy) {
+        final CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.publisher(capacity, policy).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    void testPublisherHonoursDemand() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+        final CollectingSubscriber subscriber = this.subscribe(publisher, 10, InvocationOverflowPolicy.DROP_NEWEST);
+
+        assertThat(publisher.hasSubscribers()).isTrue();
+
+        subscriber.subscription.request(2);
+
+        publisher.offer(this.i1);
+        publisher.offer(this.i2);
+        publisher.offer(this.i3);
+
+        assertThat(subscriber.received).extracting(RecordedInvocation::getMethodName).containsExactly("m1", "m2");
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.received).extracting(RecordedInvocation::getMethodName).containsExactly("m1", "m2", "m3");
+    }
+
+    @Test
+    void testPublisherDropNewestWhenBufferFull() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+        final CollectingSubscriber subscriber = this.subscribe(publisher, 2, InvocationOverflowPolicy.DROP_NEWEST);
+
+        publisher.offer(this.i1);
+        publisher.offer(this.i2);
+        publisher.offer(this.i3);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.received).extracting(RecordedInvocation::getMethodName).containsExactly("m1", "m2");
+    }
+
+    @Test
+    void testPublisherDropOldestWhenBufferFull() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+        final CollectingSubscriber subscriber = this.subscribe(publisher, 2, InvocationOverflowPolicy.DROP_OLDEST);
+
+        publisher.offer(this.i1);
+        publisher.offer(this.i2);
+        publisher.offer(this.i3);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.received).extracting(RecordedInvocation::getMethodName).containsExactly("m2", "m3");
+    }
+
+    @Test
+    void testPublisherCancelStopsDelivery() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+        final CollectingSubscriber subscriber = this.subscribe(publisher, 10, InvocationOverflowPolicy.DROP_NEWEST);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        publisher.offer(this.i1);
+        subscriber.subscription.cancel();
+        publisher.offer(this.i2);
+
+        assertThat(publisher.hasSubscribers()).isFalse();
+        assertThat(subscriber.received).extracting(RecordedInvocation::getMethodName).containsExactly("m1");
+    }
+
+    @Test
+    void testPublisherNonPositiveRequestIsError() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+        final CollectingSubscriber subscriber = this.subscribe(publisher, 10, InvocationOverflowPolicy.DROP_NEWEST);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+        assertThat(publisher.hasSubscribers()).isFalse();
+    }
+
+    @Test
+    void testPublisherRejectsBadArguments() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+
+        assertThatThrownBy(() -> publisher.publisher(0, InvocationOverflowPolicy.DROP_NEWEST))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Buffer capacity must be at least 1");
+
+        assertThatThrownBy(() -> publisher.publisher(1, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot publish invocations with null overflow policy");
+    }
+
+    @Test
+    void testPublishedArgsCannotBeModified() {
+        final InvocationPublisher publisher = new InvocationPublisher(Runnable::run);
+        final CollectingSubscriber subscriber = this.subscribe(publisher, 10, InvocationOverflowPolicy.DROP_NEWEST);
+        final Invocation invocation = new Invocation(this.receiver, "m1", "(Ljava/lang/Object;)V",
+                new ArrayList<>(Collections.singletonList("one")));
+
+        subscriber.subscription.request(1);
+        publisher.offer(invocation);
+
+        final List<Object> args = subscriber.received.get(0).getArgs();
+
+        assertThat(args).containsExactly("one");
+        assertThatThrownBy(() -> args.add("two")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> args.set(0, "two")).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(args::clear).isInstanceOf(UnsupportedOperationException.class);
+        assertThat(invocation.getArgs()).containsExactly("one");
+    }
+
+    @Test
+    void testEnginePublishesStandardInvocationsAsynchronously() throws Exception {
+        final ASMMoxyEngine engine = new ASMMoxyEngine();
+        final Object mock = engine.mock(Object.class);
+        final CountDownLatch latch = new CountDownLatch(2);
+        final List<String> methodNames = Collections.synchronizedList(new ArrayList<>());
+
+        engine.getInvocationPublisher(16, InvocationOverflowPolicy.DROP_NEWEST)
+                .subscribe(new CollectingSubscriber() {
+                    @Override
+                    public void onSubscribe(final Flow.Subscription subscription) {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(final RecordedInvocation item) {
+                        assertThat(item.getReceiver()).isSameAs(mock);
+                        methodNames.add(item.getMethodName());
+                        latch.countDown();
+                    }
+                });
+
+        // Stubbing is a monitored invocation, so isn't published.
+        engine.when(mock::toString).thenReturn("mock");
+
+        mock.toString();
+        mock.toString();
+
+        assertThat(latch.await(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(methodNames).containsExactly("toString", "toString");
+    }
+}
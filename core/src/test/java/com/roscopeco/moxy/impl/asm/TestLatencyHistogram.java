@@ -0,0 +1,95 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestLatencyHistogram {
+    @Test
+    void testBucketsAreContiguousAndWithinThreePercent() {
+        assertThat(LatencyHistogram.bucketFor(0)).isZero();
+        assertThat(LatencyHistogram.bucketFor(31)).isEqualTo(31);
+        assertThat(LatencyHistogram.bucketFor(32)).isEqualTo(32);
+
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            final int bucket = LatencyHistogram.bucketFor(value);
+            final long highest = LatencyHistogram.highestValueIn(bucket);
+
+            assertThat(highest).isGreaterThanOrEqualTo(value);
+            assertThat((double) (highest - value)).isLessThanOrEqualTo(value * 0.032);
+            assertThat(LatencyHistogram.bucketFor(highest + 1)).isEqualTo(bucket + 1);
+        }
+
+        assertThat(LatencyHistogram.highestValueIn(LatencyHistogram.bucketFor(Long.MAX_VALUE)))
+                .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getPercentile(99)).isEqualTo(Duration.ZERO);
+        assertThat(histogram.getMin()).isEqualTo(Duration.ZERO);
+
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(0, i * 1000);
+        }
+
+        final LatencyHistogram snapshot = histogram.copy();
+        histogram.record(0, 1_000_000_000);
+
+        assertThat(snapshot.getCount()).isEqualTo(1000);
+        assertThat(snapshot.getMin()).isEqualTo(Duration.ofNanos(1000));
+        assertThat(snapshot.getMax()).isEqualTo(Duration.ofNanos(1_000_000));
+        assertThat(snapshot.getMean()).isEqualTo(Duration.ofNanos(500_500));
+        assertThat(snapshot.getPercentile(0).toNanos()).isBetween(1000L, 1032L);
+        assertThat(snapshot.getPercentile(50).toNanos()).isBetween(500_000L, 516_000L);
+        assertThat(snapshot.getPercentile(99).toNanos()).isBetween(990_000L, 1_000_000L);
+        assertThat(snapshot.getPercentile(100)).isEqualTo(Duration.ofNanos(1_000_000));
+
+        assertThat(histogram.getCount()).isEqualTo(1001);
+
+        assertThatThrownBy(() -> snapshot.getPercentile(101))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Percentile must be between 0 and 100: 101.0");
+    }
+
+    @Test
+    void testPeakCallsPerSecond() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(100, 200);
+        histogram.record(1_000_000_100L, 1_000_000_200L);
+        histogram.record(1_500_000_000L, 1_500_000_200L);
+        histogram.record(1_900_000_000L, 1_900_000_200L);
+        histogram.record(2_000_000_000L, 2_000_000_200L);
+
+        assertThat(histogram.getPeakCallsPerSecond()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TestSpillInvocationLog extends AbstractInvocationLogTest<SpillInvocationLog> {
+    private Path directory;
+
+    @Override
+    SpillInvocationLog createLog() throws Exception {
+        this.directory = Files.createTempDirectory("moxy-test");
+        return SpillInvocationLog.create(this.directory, SpillInvocationLog.MIN_SEGMENT_SIZE);
+    }
+
+    @Override
+    ASMMoxyEngine createEngine() {
+        return createEngineWithProperty(InvocationRecorder.SPILL_HISTORY_PROPERTY, this.directory.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.directory.toFile().deleteOnExit();
+    }
+
+    @Test
+    void testRecordsSpanManySegmentsInOrder() throws Exception {
+        final Object receiver = new Object();
+
+        for (int i = 0; i < 1000; i++) {
+            this.append(receiver, "m1", i, "argument " + i);
+        }
+
+        final List<Invocation> all = this.readAll();
+        assertThat(all).hasSize(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(all.get(i).getSequence()).isEqualTo(i);
+            assertThat(all.get(i).getArgs()).containsExactly("argument " + i);
+        }
+
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isGreaterThan(1);
+        }
+    }
+
+    @Test
+    void testStringsTooBigForASegmentAreStoredAsHandles() {
+        final Object receiver = new Object();
+        final String big = String.join("", Collections.nCopies(SpillInvocationLog.MIN_SEGMENT_SIZE, "x"));
+
+        this.append(receiver, "m1", 0, big);
+
+        assertThat(this.readAll().get(0).getArgs().get(0)).isSameAs(big);
+    }
+
+    @Test
+    void testArgumentsAreHeldStronglyAcrossGc() {
+        final Object receiver = new Object();
+
+        this.append(receiver, "m1", 0, new ArrayList<>(Arrays.asList("one", "two")));
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        assertThat(this.readAll()).hasSize(1);
+        assertThat(this.readAll().get(0).getArgs()).containsExactly(Arrays.asList("one", "two"));
+    }
+
+    @Test
+    void testRejectsTinySegments() {
+        assertThatThrownBy(() -> new SpillInvocationLog(this.directory, 16))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Segment size too small: 16");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.ExhaustionPolicy;
+import com.roscopeco.moxy.impl.asm.stubs.Stub;
+import com.roscopeco.moxy.impl.asm.stubs.StubClaim;
+import com.roscopeco.moxy.impl.asm.stubs.StubInvocation;
+import com.roscopeco.moxy.impl.asm.stubs.StubReturn;
+import com.roscopeco.moxy.impl.asm.stubs.StubSequence;
+import com.roscopeco.moxy.impl.asm.stubs.StubType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestStubInvocation {
+    private final List<Object> claimed = new ArrayList<>();
+    private final StubClaim claim = this.claimed::add;
+
+    @Test
+    void testClaimStubWalksChainAndKeepsLast() {
+        final StubInvocation invocation = new StubInvocation(Collections.emptyList());
+        final Stub one = new StubReturn("one", false);
+        final Stub two = new StubReturn("two", false);
+        final Stub three = new StubReturn("three", false);
+
+        assertThat(invocation.claimStub(this.claim)).isNull();
+        assertThat(invocation.peekStub()).isNull();
+
+        invocation.addStub(one);
+        invocation.addStub(two);
+        invocation.addStub(three);
+
+        assertThat(invocation.peekStub()).isSameAs(one);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(one);
+        assertThat(invocation.peekStub()).isSameAs(two);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(two);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(three);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(three);
+        assertThat(invocation.peekStub()).isSameAs(three);
+    }
+
+    @Test
+    void testClaimStubDoesNotMovePastRetainedStub() {
+        final StubInvocation invocation = new StubInvocation(Collections.emptyList());
+        final Stub retained = new StubReturn("retained", true);
+
+        invocation.addStub(retained);
+        invocation.addStub(new StubReturn("never", false));
+
+        assertThat(invocation.claimStub(this.claim)).isSameAs(retained);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(retained);
+    }
+
+    @Test
+    void testPopStubOnlyMovesPastExpectedStub() {
+        final StubInvocation invocation = new StubInvocation(Collections.emptyList());
+        final Stub one = new StubReturn("one", false);
+        final Stub two = new StubReturn("two", false);
+
+        invocation.addStub(one);
+        invocation.addStub(two);
+
+        invocation.popStub(two);
+        assertThat(invocation.peekStub()).isSameAs(one);
+
+        invocation.popStub(one);
+        assertThat(invocation.peekStub()).isSameAs(two);
+
+        // Last is kept
+        invocation.popStub(two);
+        assertThat(invocation.peekStub()).isSameAs(two);
+    }
+
+    @Test
+    void testStubsAddedAfterEndAreReached() {
+        final StubInvocation invocation = new StubInvocation(Collections.emptyList());
+        final Stub one = new StubReturn("one", false);
+        final Stub two = new StubReturn("two", false);
+
+        invocation.addStub(one);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(one);
+
+        invocation.addStub(two);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(one);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(two);
+    }
+
+    @Test
+    void testClaimStubTakesEachValueOfSequenceThenMovesOn() {
+        final StubInvocation invocation = new StubInvocation(Collections.emptyList());
+        final StubSequence sequence = new StubSequence(List.of("one", "two").iterator(), ExhaustionPolicy.NEXT_STUB);
+        final Stub last = new StubReturn("last", false);
+
+        invocation.addStub(sequence);
+        invocation.addStub(last);
+
+        assertThat(invocation.claimStub(this.claim)).isSameAs(sequence);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(sequence);
+        assertThat(this.claimed).containsExactly("one", "two");
+
+        assertThat(invocation.claimStub(this.claim)).isSameAs(last);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(last);
+        assertThat(this.claimed).containsExactly("one", "two");
+    }
+
+    @Test
+    void testClaimStubDoesNotMovePastSequenceWithOtherPolicies() {
+        final StubInvocation invocation = new StubInvocation(Collections.emptyList());
+        final StubSequence sequence = new StubSequence(List.of("one").iterator(), ExhaustionPolicy.THROW);
+
+        invocation.addStub(sequence);
+        invocation.addStub(new StubReturn("never", false));
+
+        assertThat(invocation.claimStub(this.claim)).isSameAs(sequence);
+        assertThat(this.claimed).containsExactly("one");
+
+        final Stub exhausted = invocation.claimStub(this.claim);
+        assertThat(exhausted.getType()).isEqualTo(StubType.THROW_EXCEPTION);
+        assertThat(invocation.claimStub(this.claim)).isSameAs(exhausted);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Moxy - Lean-and-mean mocking framework for Java with a fluent API.
+ *
+ * Copyright 2018 Ross Bamford
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included
+ *   in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.roscopeco.moxy.impl.asm;
+
+import com.roscopeco.moxy.api.MoxyMatcher;
+import com.roscopeco.moxy.impl.asm.stubs.StubInvocation;
+import com.roscopeco.moxy.model.ClassWithOverridenEqualsHashcode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TestStubTable {
+    private static final MoxyMatcher<Object> ANY = arg -> true;
+
+    private ASMMoxyMatcherEngine matchEngine;
+    private StubTable table;
+
+    @BeforeEach
+    void setUp() {
+        this.matchEngine = new ASMMoxyEngine().getMatcherEngine();
+        this.table = new StubTable();
+    }
+
+    private static List<Object> args(final Object... args) {
+        return new ArrayList<>(Arrays.asList(args));
+    }
+
+    private StubInvocation add(final Object... args) {
+        final StubInvocation invocation = new StubInvocation(args(args));
+        this.table.add(invocation);
+        return invocation;
+    }
+
+    @Test
+    void testFindsPlainStubbing() {
+        final StubInvocation one = this.add("one", 1);
+        final StubInvocation two = this.add("two", 2);
+        final StubInvocation nulls = this.add(null, null);
+
+        assertThat(this.table.find(args("one", 1), this.matchEngine)).isSameAs(one);
+        assertThat(this.table.find(args("two", 2), this.matchEngine)).isSameAs(two);
+        assertThat(this.table.find(args(null, null), this.matchEngine)).isSameAs(nulls);
+        assertThat(this.table.find(args("one", 2), this.matchEngine)).isNull();
+        assertThat(this.table.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testEarliestStubbingWinsBetweenMatchersAndPlainValues() {
+        final StubInvocation plainFirst = this.add("one");
+        final StubInvocation matcher = this.add(ANY);
+        this.add("two");
+
+        assertThat(this.table.find(args("one"), this.matchEngine)).isSameAs(plainFirst);
+        assertThat(this.table.find(args("two"), this.matchEngine)).isSameAs(matcher);
+        assertThat(this.table.find(args("three"), this.matchEngine)).isSameAs(matcher);
+    }
+
+    @Test
+    void testFindForMonitoredArgsOnlyFindsExactArgs() {
+        final List<Object> matcherArgs = args(ANY);
+        final StubInvocation matcher = new StubInvocation(matcherArgs);
+        this.table.add(matcher);
+        final StubInvocation plain = this.add("one");
+
+        assertThat(this.table.findForMonitoredArgs(matcherArgs)).isSameAs(matcher);
+        assertThat(this.table.findForMonitoredArgs(args((MoxyMatcher<Object>) arg -> true))).isNull();
+        assertThat(this.table.findForMonitoredArgs(args("one"))).isSameAs(plain);
+        assertThat(this.table.findForMonitoredArgs(args("two"))).isNull();
+    }
+
+    @Test
+    void testRemoveMatchingWithPlainValues() {
+        this.add("one");
+        final StubInvocation two = this.add("two");
+        this.add(ANY);
+
+        // Removes the plain stubbing with equal args, and matchers that match them
+        this.table.removeMatching(args("one"), this.matchEngine);
+
+        assertThat(this.table.find(args("one"), this.matchEngine)).isNull();
+        assertThat(this.table.find(args("two"), this.matchEngine)).isSameAs(two);
+        assertThat(this.table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testRemoveMatchingWithMatchersLeavesPlainValues() {
+        final StubInvocation one = this.add("one");
+        this.add(ANY);
+
+        this.table.removeMatching(args((MoxyMatcher<Object>) arg -> true), this.matchEngine);
+
+        assertThat(this.table.find(args("one"), this.matchEngine)).isSameAs(one);
+        assertThat(this.table.find(args("two"), this.matchEngine)).isNull();
+        assertThat(this.table.isEmpty()).isFalse();
+
+        this.table.removeMatching(args("one"), this.matchEngine);
+        assertThat(this.table.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testOnlyImmutableValueArgsAreIndexable() {
+        assertThat(StubTable.isIndexable(args("one", 1, 2L, 'c', true, null, Thread.State.NEW, String.class))).isTrue();
+        assertThat(StubTable.isIndexable(args(ANY))).isFalse();
+        assertThat(StubTable.isIndexable(args(new ClassWithOverridenEqualsHashcode()))).isFalse();
+        assertThat(StubTable.isIndexable(args("one", new ArrayList<>()))).isFalse();
+    }
+
+    @Test
+    void testArgsWithEqualsButNotHashCodeAreScanned() {
+        final Object equalsOnly = new Object() {
+            @Override
+            public boolean equals(final Object obj) {
+                return obj != null && obj.getClass() == this.getClass();
+            }
+        };
+
+        final StubInvocation stubbed = this.add(equalsOnly);
+
+        assertThat(this.table.find(args(equalsOnly), this.matchEngine)).isSameAs(stubbed);
+        assertThat(this.table.findForMonitoredArgs(args(equalsOnly))).isSameAs(stubbed);
+
+        this.table.removeMatching(args(equalsOnly), this.matchEngine);
+        assertThat(this.table.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testMutatedCollectionArgStillMatches() {
+        final List<String> list = new ArrayList<>(Arrays.asList("one"));
+        final StubInvocation stubbed = this.add(list);
+
+        list.add("two");
+
+        assertThat(this.table.find(args(list), this.matchEngine)).isSameAs(stubbed);
+        assertThat(this.table.find(args(Arrays.asList("one", "two")), this.matchEngine)).isSameAs(stubbed);
+        assertThat(this.table.findForMonitoredArgs(args(list))).isSameAs(stubbed);
+
+        this.table.removeMatching(args(list), this.matchEngine);
+        assertThat(this.table.isEmpty()).isTrue();
+    }
+
+    @Test
+    void testManyStubbingsWithPlainValues() {
+        final int count = 20000;
+
+        for (int i = 0; i < count; i++) {
+            this.table.removeMatching(args("arg" + i), this.matchEngine);
+            this.add("arg" + i);
+        }
+
+        for (int i = 0; i < count; i += 2) {
+            this.table.removeMatching(args("arg" + i), this.matchEngine);
+        }
+
+        assertThat(this.table.size()).isEqualTo(count / 2);
+        assertThat(this.table.find(args("arg0"), this.matchEngine)).isNull();
+        assertThat(this.table.find(args("arg1"), this.matchEngine).getArgs()).containsExactly("arg1");
+        assertThat(this.table.find(args("arg" + (count - 1)), this.matchEngine).getArgs()).containsExactly("arg" + (count - 1));
+    }
+}
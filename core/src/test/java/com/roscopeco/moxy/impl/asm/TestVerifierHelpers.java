@@ -136,5 +136,24 @@ class TestVerifierHelpers {
                 this.invocations)).isEqualTo(0);
     }
 
+    @Test
+    void testGetCallCountsMatchesGetCallCount() {
+        final List<Invocation> toMatch = Lists.newArrayList(
+                new Invocation(this.seenOne, "m1", "()V", Collections.emptyList()),
+                new Invocation(this.seenTwo, "m2", "(Ljava/lang/String;)V", Collections.singletonList("two")),
+                new Invocation(this.notSeen, "m1", "()V", Collections.emptyList()),
+                new Invocation(this.seenTwo, "m1", "()V", Collections.emptyList()));
+
+        assertThat(VerifierHelpers.getCallCounts(this.mockEngine, toMatch, this.invocations))
+                .containsExactly(1, 1, 0, 1);
+    }
+
+    @Test
+    void testGetCallCountsWithNullList() {
+        assertThatThrownBy(() -> VerifierHelpers.getCallCounts(this.mockEngine, Collections.singletonList(this.m1), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cannot match arguments with null invocation list");
+    }
+
     // TODO Test with matchers
 }
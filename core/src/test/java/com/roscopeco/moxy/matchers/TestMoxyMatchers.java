@@ -24,6 +24,7 @@
 package com.roscopeco.moxy.matchers;
 
 import com.roscopeco.moxy.Moxy;
+import com.roscopeco.moxy.api.MoxyMatcher;
 import com.roscopeco.moxy.model.MatcherTestClass;
 import com.roscopeco.moxy.model.MethodWithArgAndReturn;
 import org.junit.jupiter.api.Test;
@@ -136,4 +137,13 @@ class TestMoxyMatchers {
                 .hasMessage("If you're using primitive matchers, ensure you're using the "
                         + "correct type (e.g. anyInt() rather than any()), especially when nesting");
     }
+
+    @Test
+    void testBuiltInMatchersAdvertiseRelativeCost() {
+        assertThat(new AnyMatcher<>().cost()).isEqualTo(MoxyMatcher.COST_TRIVIAL);
+        assertThat(new EqualsMatcher<>(HELLO).cost()).isEqualTo(MoxyMatcher.COST_CHEAP);
+        assertThat(new InstanceOfMatcher<>(String.class).cost()).isEqualTo(MoxyMatcher.COST_CHEAP);
+        assertThat(new PredicateMatcher<>(arg -> true).cost()).isEqualTo(MoxyMatcher.COST_DEFAULT);
+        assertThat(new RegexMatcher("H.*").cost()).isEqualTo(MoxyMatcher.COST_EXPENSIVE);
+    }
 }
@@ -25,6 +25,7 @@
 package com.roscopeco.moxy.model;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * TODO Document ClassWithDefaultConfiguredReturnTypes
@@ -47,4 +48,8 @@ public class ClassWithDefaultConfiguredReturnTypes {
     public Set<String> returnSetOfString() {
         return Collections.singleton("Hello, World");
     }
+
+    public Stream<String> returnStreamOfString() {
+        return Stream.of("Hello, World");
+    }
 }
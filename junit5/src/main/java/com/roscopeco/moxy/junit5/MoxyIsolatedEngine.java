@@ -0,0 +1,85 @@
+package com.roscopeco.moxy.junit5;
+
+import com.roscopeco.moxy.Moxy;
+import com.roscopeco.moxy.api.MoxyEngine;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * <p>JUnit 5 extension that gives each test its own isolated {@link MoxyEngine}
+ * and binds it (with {@link Moxy#bindMoxyEngine(MoxyEngine)}) while the test
+ * runs, so the static methods in {@link Moxy} and the matchers use that engine.</p>
+ *
+ * <p>Since recorded invocations and stubbing are kept per engine, tests
+ * using this extension can run in parallel without seeing (or resetting)
+ * each other's invocations.</p>
+ *
+ * <p>With the default per-method test instance lifecycle, a new engine is
+ * created for each test. With {@link TestInstance.Lifecycle#PER_CLASS}, a
+ * single engine is created for the test class and shared (without reset)
+ * between its tests.</p>
+ *
+ * <p>Usage:</p>
+ *
+ * <pre><code>
+ * &#64;ExtendWith(MoxyIsolatedEngine.class)
+ * class MyTest {
+ *     // ...
+ * }
+ * </code></pre>
+ *
+ * <p><strong>Note:</strong> Mocks must be created while the engine is bound
+ * (i.e. in the test or a <code>&#64;BeforeEach</code> method, or in
+ * <code>&#64;BeforeAll</code> with the per-class lifecycle). Mocks created
+ * elsewhere (e.g. in field initializers with the per-method lifecycle) will
+ * belong to the global engine. Class mocks are always global.</p>
+ */
+public class MoxyIsolatedEngine
+        implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, AfterAllCallback {
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(MoxyIsolatedEngine.class);
+
+    private static final String ENGINE_KEY = "engine";
+
+    private static boolean isPerClass(final ExtensionContext context) {
+        return context.getTestInstanceLifecycle()
+                .map(lifecycle -> lifecycle == TestInstance.Lifecycle.PER_CLASS)
+                .orElse(false);
+    }
+
+    @Override
+    public void beforeAll(final ExtensionContext context) {
+        if (isPerClass(context)) {
+            final MoxyEngine engine = Moxy.createMoxyEngine();
+            context.getStore(NAMESPACE).put(ENGINE_KEY, engine);
+            Moxy.bindMoxyEngine(engine);
+        }
+    }
+
+    @Override
+    public void beforeEach(final ExtensionContext context) {
+        final ExtensionContext.Store store = context.getStore(NAMESPACE);
+
+        MoxyEngine engine = store.get(ENGINE_KEY, MoxyEngine.class);
+        if (engine == null) {
+            engine = Moxy.createMoxyEngine();
+            store.put(ENGINE_KEY, engine);
+        }
+
+        Moxy.bindMoxyEngine(engine);
+    }
+
+    @Override
+    public void afterEach(final ExtensionContext context) {
+        Moxy.unbindMoxyEngine();
+    }
+
+    @Override
+    public void afterAll(final ExtensionContext context) {
+        Moxy.unbindMoxyEngine();
+    }
+}
@@ -0,0 +1,76 @@
+package com.roscopeco.moxy.junit5;
+
+import com.roscopeco.moxy.Moxy;
+import com.roscopeco.moxy.api.MoxyEngine;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MoxyIsolatedEngine.class)
+class TestMoxyIsolatedEngine {
+    private static final List<MoxyEngine> seenEngines = new CopyOnWriteArrayList<>();
+
+    private void runIsolatedTest() {
+        final MoxyEngine engine = Moxy.getMoxyEngine();
+        assertThat(seenEngines).doesNotContain(engine);
+        seenEngines.add(engine);
+
+        final Object mock = Moxy.mock(Object.class);
+        assertThat(engine.isMock(mock)).isTrue();
+
+        mock.toString();
+
+        Moxy.assertMock(mock::toString).wasCalledOnce();
+    }
+
+    @Test
+    void testMoxyIsolatedEngine01() {
+        this.runIsolatedTest();
+    }
+
+    @Test
+    void testMoxyIsolatedEngine02() {
+        this.runIsolatedTest();
+    }
+
+    @AfterAll
+    static void theRealTest() {
+        assertThat(seenEngines).hasSize(2);
+        assertThat(seenEngines).doesNotContain(Moxy.getMoxyEngine());
+    }
+
+    @Nested
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    @ExtendWith(MoxyIsolatedEngine.class)
+    class PerClass {
+        private MoxyEngine classEngine;
+
+        @Test
+        void testMoxyIsolatedEnginePerClass01() {
+            this.checkSharedEngine();
+        }
+
+        @Test
+        void testMoxyIsolatedEnginePerClass02() {
+            this.checkSharedEngine();
+        }
+
+        private void checkSharedEngine() {
+            final MoxyEngine engine = Moxy.getMoxyEngine();
+            assertThat(seenEngines).doesNotContain(engine);
+
+            if (this.classEngine == null) {
+                this.classEngine = engine;
+            } else {
+                assertThat(engine).isSameAs(this.classEngine);
+            }
+        }
+    }
+}